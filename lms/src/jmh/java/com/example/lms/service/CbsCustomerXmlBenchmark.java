@@ -0,0 +1,66 @@
+package com.example.lms.service;
+
+import com.example.lms.service.CbsCustomerXml.CustomerRequest;
+import com.example.lms.service.JaxbCustomerResponse.CustomerResponse;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one CBS customer round trip (marshal the request, unmarshal the response) as done by
+ * {@link CustomerServiceImpl}: building the JAXB contexts on every call, as before, against the
+ * shared contexts and per-thread marshallers in {@link CbsCustomerXml} and {@link JaxbCustomerResponse}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CbsCustomerXmlBenchmark {
+
+    static final String CUSTOMER_RESPONSE = "<CustomerResponse xmlns=\"http://credable.io/cbs/customer\">\n" +
+            "    <customer>\n" +
+            "      <createdAt>2024-01-26T12:00:00+00:00</createdAt>\n" +
+            "      <customerNumber>234774784</customerNumber>\n" +
+            "      <firstName>John</firstName>\n" +
+            "      <lastName>Doe</lastName>\n" +
+            "      <monthlyIncome>5000.0</monthlyIncome>\n" +
+            "    </customer>\n" +
+            "  </CustomerResponse>";
+
+    @Benchmark
+    public void newContextPerCall(Blackhole blackhole) throws JAXBException {
+        CustomerRequest request = new CustomerRequest();
+        request.setCustomerNumber("234774784");
+        Marshaller marshaller = JAXBContext.newInstance(CustomerRequest.class).createMarshaller();
+        StringWriter sw = new StringWriter();
+        marshaller.marshal(request, sw);
+        blackhole.consume(sw.toString());
+
+        blackhole.consume(JAXBContext.newInstance(CustomerResponse.class).createUnmarshaller()
+                .unmarshal(new StringReader(CUSTOMER_RESPONSE)));
+    }
+
+    @Benchmark
+    public void sharedContext(Blackhole blackhole) throws JAXBException {
+        blackhole.consume(CbsCustomerXml.marshalRequest("234774784"));
+        blackhole.consume(JaxbCustomerResponse.unmarshal(CUSTOMER_RESPONSE));
+    }
+}
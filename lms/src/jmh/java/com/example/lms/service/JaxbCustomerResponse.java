@@ -0,0 +1,108 @@
+package com.example.lms.service;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+import java.io.StringReader;
+
+/**
+ * The JAXB mapping CBS customer responses were read with before {@link CbsCustomerXml#responseToKycJson(String)},
+ * kept as the baseline for the benchmarks: a shared context with one unmarshaller per thread.
+ */
+final class JaxbCustomerResponse {
+
+    private static final JAXBContext RESPONSE_CONTEXT;
+
+    static {
+        try {
+            RESPONSE_CONTEXT = JAXBContext.newInstance(CustomerResponse.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Failed to create JAXB context for CustomerResponse", e);
+        }
+    }
+
+    private static final ThreadLocal<Unmarshaller> RESPONSE_UNMARSHALLER = ThreadLocal.withInitial(() -> {
+        try {
+            return RESPONSE_CONTEXT.createUnmarshaller();
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Failed to create CustomerResponse unmarshaller", e);
+        }
+    });
+
+    private JaxbCustomerResponse() {
+    }
+
+    static CustomerResponse unmarshal(String xml) throws JAXBException {
+        return (CustomerResponse) RESPONSE_UNMARSHALLER.get().unmarshal(new StringReader(xml));
+    }
+
+    @XmlRootElement(name = "CustomerResponse", namespace = "http://credable.io/cbs/customer")
+    static class CustomerResponse {
+        private Customer customer;
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        @XmlElement(namespace = "http://credable.io/cbs/customer")
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        static class Customer {
+            private String customerNumber;
+            private String firstName;
+            private String lastName;
+            private double monthlyIncome;
+            private String createdAt;
+
+            public String getCustomerNumber() {
+                return customerNumber;
+            }
+
+            @XmlElement(namespace = "http://credable.io/cbs/customer")
+            public void setCustomerNumber(String customerNumber) {
+                this.customerNumber = customerNumber;
+            }
+
+            public String getFirstName() {
+                return firstName;
+            }
+
+            @XmlElement(namespace = "http://credable.io/cbs/customer")
+            public void setFirstName(String firstName) {
+                this.firstName = firstName;
+            }
+
+            public String getLastName() {
+                return lastName;
+            }
+
+            @XmlElement(namespace = "http://credable.io/cbs/customer")
+            public void setLastName(String lastName) {
+                this.lastName = lastName;
+            }
+
+            public double getMonthlyIncome() {
+                return monthlyIncome;
+            }
+
+            @XmlElement(namespace = "http://credable.io/cbs/customer")
+            public void setMonthlyIncome(double monthlyIncome) {
+                this.monthlyIncome = monthlyIncome;
+            }
+
+            public String getCreatedAt() {
+                return createdAt;
+            }
+
+            @XmlElement(namespace = "http://credable.io/cbs/customer")
+            public void setCreatedAt(String createdAt) {
+                this.createdAt = createdAt;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.lms.service;
+
+import com.example.lms.service.JaxbCustomerResponse.CustomerResponse;
+import jakarta.xml.bind.JAXBException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CBS customer XML to KYC JSON: the JAXB path (unmarshal, then copy the fields into a string)
+ * against the StAX path in {@link CbsCustomerXml#responseToKycJson(String)}.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KycJsonBenchmark {
+
+    /**
+     * Number of extra elements the CBS adds around the five KYC fields; the mock response has none
+     */
+    @Param({"0", "200"})
+    public int extraElements;
+
+    private String xml;
+
+    @Setup
+    public void setUp() {
+        StringBuilder extra = new StringBuilder();
+        for (int i = 0; i < extraElements; i++) {
+            extra.append("      <account><accountNumber>ACC").append(i)
+                    .append("</accountNumber><balance>").append(i * 100.5)
+                    .append("</balance><status>ACTIVE</status></account>\n");
+        }
+        xml = "<CustomerResponse xmlns=\"http://credable.io/cbs/customer\">\n" +
+                "    <customer>\n" +
+                "      <createdAt>2024-01-26T12:00:00+00:00</createdAt>\n" +
+                "      <customerNumber>234774784</customerNumber>\n" +
+                "      <firstName>John</firstName>\n" +
+                "      <lastName>Doe</lastName>\n" +
+                "      <monthlyIncome>5000.0</monthlyIncome>\n" +
+                extra +
+                "    </customer>\n" +
+                "  </CustomerResponse>";
+    }
+
+    @Benchmark
+    public String jaxb() throws JAXBException {
+        // The conversion CustomerServiceImpl used before the streaming path
+        CustomerResponse customerResponse = JaxbCustomerResponse.unmarshal(xml);
+        return "{"
+                + "\"firstName\": \"" + customerResponse.getCustomer().getFirstName() + "\","
+                + "\"lastName\": \"" + customerResponse.getCustomer().getLastName() + "\","
+                + "\"monthlyIncome\": " + customerResponse.getCustomer().getMonthlyIncome() + ","
+                + "\"customerNumber\": \"" + customerResponse.getCustomer().getCustomerNumber() + "\","
+                + "\"createdAt\": \"" + customerResponse.getCustomer().getCreatedAt() + "\""
+                + "}";
+    }
+
+    @Benchmark
+    public String stax() throws JAXBException {
+        return CbsCustomerXml.responseToKycJson(xml);
+    }
+}
@@ -4,11 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import com.example.lms.config.CbsProperties;
 import com.example.lms.config.ScoringEngineProperties;
 
 @SpringBootApplication
 @EnableFeignClients
-@EnableConfigurationProperties(ScoringEngineProperties.class)
+@EnableConfigurationProperties({ScoringEngineProperties.class, CbsProperties.class})
 public class LmsApplication {
 
 	public static void main(String[] args) {
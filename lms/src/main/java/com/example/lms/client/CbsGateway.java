@@ -0,0 +1,31 @@
+package com.example.lms.client;
+
+import org.springframework.integration.annotation.Gateway;
+import org.springframework.integration.annotation.MessagingGateway;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Request/reply entry point to the CBS customer SOAP service.
+ * <p>
+ * Each call runs on the bounded {@code cbsGatewayExecutor}, so the caller gets its future back at once;
+ * when every slot is taken the call is refused with a {@link java.util.concurrent.RejectedExecutionException}.
+ * The request is then handed to {@code cbsRequestChannel} and its reply is correlated back through the
+ * message's reply channel. A reply that does not arrive within the given timeout fails the future with a
+ * {@link org.springframework.integration.MessageTimeoutException}.
+ */
+@MessagingGateway(defaultRequestChannel = "cbsRequestChannel", asyncExecutor = "cbsGatewayExecutor",
+        errorOnTimeout = true)
+public interface CbsGateway {
+
+    String CUSTOMER_NUMBER_HEADER = "cbsCustomerNumber";
+
+    String REPLY_TIMEOUT_HEADER = "cbsReplyTimeout";
+
+    @Gateway(replyTimeoutExpression = "args[2]")
+    CompletableFuture<String> fetchCustomer(@Payload String soapRequest,
+                                            @Header(CUSTOMER_NUMBER_HEADER) String customerNumber,
+                                            @Header(REPLY_TIMEOUT_HEADER) long replyTimeoutMillis);
+}
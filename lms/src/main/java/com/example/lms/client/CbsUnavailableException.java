@@ -0,0 +1,12 @@
+package com.example.lms.client;
+
+/**
+ * Thrown when the CBS could not be asked for KYC data, either because too many requests are already
+ * in flight or because it did not reply in time.
+ */
+public class CbsUnavailableException extends RuntimeException {
+
+    public CbsUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
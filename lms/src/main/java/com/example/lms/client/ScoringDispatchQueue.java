@@ -0,0 +1,283 @@
+package com.example.lms.client;
+
+import com.example.lms.config.ScoringEngineProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate-limited queue in front of {@link ScoringEngineGateway}. Requests wait here until the token
+ * bucket allows another call, so a burst of applications is spread out to the contracted rate
+ * instead of being answered with 429s. Higher priority classes are always sent first.
+ * <p>
+ * The queue holds at most {@code queueCapacity} requests across all classes. When it is full, a new
+ * request evicts the newest request of a lower class, or is refused if there is none. Requests that
+ * waited longer than {@code maxQueueWait} are dropped rather than sent, since their caller has moved on.
+ * While the gateway's bulkhead is full, requests stay queued instead of being sent only to be refused.
+ */
+@Component
+public class ScoringDispatchQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoringDispatchQueue.class);
+
+    // How often a full bulkhead is checked again for a free slot
+    private static final long BULKHEAD_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ScoringEngineGateway scoringEngineGateway;
+    private final ScoringEngineProperties.Dispatch config;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final ScoringTokenBucket tokenBucket;
+
+    private final Map<ScoringPriority, Deque<QueuedRequest>> queues = new EnumMap<>(ScoringPriority.class);
+    private final Map<ScoringPriority, Timer> waitTimers = new EnumMap<>(ScoringPriority.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int depth;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @Autowired
+    public ScoringDispatchQueue(ScoringEngineGateway scoringEngineGateway, ScoringEngineProperties scoringEngineProperties,
+                                MeterRegistry meterRegistry) {
+        this(scoringEngineGateway, scoringEngineProperties, meterRegistry, System::nanoTime);
+    }
+
+    ScoringDispatchQueue(ScoringEngineGateway scoringEngineGateway, ScoringEngineProperties scoringEngineProperties,
+                         MeterRegistry meterRegistry, LongSupplier clock) {
+        this.scoringEngineGateway = scoringEngineGateway;
+        this.config = scoringEngineProperties.getDispatch();
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.tokenBucket = new ScoringTokenBucket(config.getRatePerSecond(), config.getBurst(), clock);
+
+        for (ScoringPriority priority : ScoringPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            waitTimers.put(priority, Timer.builder("scoring.dispatch.queue.wait")
+                    .description("Time a scoring request spent queued before being sent or dropped")
+                    .tag("priority", tagValue(priority))
+                    .register(meterRegistry));
+            Gauge.builder("scoring.dispatch.queue.depth", this, queue -> queue.depthOf(priority))
+                    .description("Scoring requests waiting to be sent")
+                    .tag("priority", tagValue(priority))
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::runDispatcher, "scoring-rate-limiter");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Queues a score request. The returned future completes with the engine's response, or fails with
+     * {@link ScoringEngineUnavailableException} if the request was shed before being sent.
+     */
+    public CompletableFuture<Map<String, Object>> submit(ScoringPriority priority, Map<String, Object> request) {
+        QueuedRequest entry = new QueuedRequest(priority, request, clock.getAsLong());
+        QueuedRequest evicted = null;
+
+        lock.lock();
+        try {
+            if (depth >= config.getQueueCapacity()) {
+                evicted = pollLowerThan(priority);
+                if (evicted == null) {
+                    countShed(priority, "queue_full");
+                    return CompletableFuture.failedFuture(
+                            new ScoringEngineUnavailableException("Scoring engine unavailable: dispatch queue is full"));
+                }
+            }
+            queues.get(priority).addLast(entry);
+            depth++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (evicted != null) {
+            countShed(evicted.priority, "evicted");
+            evicted.future.completeExceptionally(
+                    new ScoringEngineUnavailableException("Scoring engine unavailable: request shed for higher priority work"));
+        }
+        return entry.future;
+    }
+
+    /**
+     * Sends the next queued request if the rate limit allows it.
+     *
+     * @return 0 if a request was taken off the queue, the nanoseconds until the next token if the
+     *         rate limit is holding requests back, the nanoseconds until the bulkhead is checked again
+     *         if it is full, or -1 if the queue is empty
+     */
+    long dispatchNext() {
+        QueuedRequest entry;
+        boolean expired;
+        long waited;
+
+        lock.lock();
+        try {
+            if (depth == 0) {
+                return -1;
+            }
+            long untilNextToken = tokenBucket.nanosUntilNextToken();
+            if (untilNextToken > 0) {
+                return untilNextToken;
+            }
+            // Expired requests are dropped without spending a token, whether or not the bulkhead is full
+            expired = clock.getAsLong() - peekHighest().enqueuedAt > config.getMaxQueueWait().toNanos();
+            if (!expired && !scoringEngineGateway.hasFreeSlot()) {
+                // The gateway would refuse the request; it keeps its place in the queue instead
+                return BULKHEAD_RECHECK_NANOS;
+            }
+            entry = pollHighest();
+            waited = clock.getAsLong() - entry.enqueuedAt;
+            if (!expired) {
+                tokenBucket.tryAcquire();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        waitTimers.get(entry.priority).record(waited, TimeUnit.NANOSECONDS);
+        if (expired) {
+            countShed(entry.priority, "expired");
+            entry.future.completeExceptionally(
+                    new ScoringEngineUnavailableException("Scoring engine unavailable: request waited too long in the dispatch queue"));
+            return 0;
+        }
+
+        try {
+            scoringEngineGateway.getScore(entry.request).whenComplete((response, error) -> {
+                if (error != null) {
+                    entry.future.completeExceptionally(error);
+                } else {
+                    entry.future.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            entry.future.completeExceptionally(e);
+        }
+        return 0;
+    }
+
+    int depthOf(ScoringPriority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runDispatcher() {
+        while (running) {
+            try {
+                long wait = dispatchNext();
+                if (wait < 0) {
+                    awaitWork();
+                } else if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Scoring dispatcher error", e);
+            }
+        }
+    }
+
+    private void awaitWork() throws InterruptedException {
+        lock.lock();
+        try {
+            while (depth == 0 && running) {
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private QueuedRequest peekHighest() {
+        for (ScoringPriority priority : ScoringPriority.values()) {
+            QueuedRequest entry = queues.get(priority).peekFirst();
+            if (entry != null) {
+                return entry;
+            }
+        }
+        throw new IllegalStateException("Dispatch queue depth out of sync");
+    }
+
+    private QueuedRequest pollHighest() {
+        for (ScoringPriority priority : ScoringPriority.values()) {
+            QueuedRequest entry = queues.get(priority).pollFirst();
+            if (entry != null) {
+                depth--;
+                return entry;
+            }
+        }
+        throw new IllegalStateException("Dispatch queue depth out of sync");
+    }
+
+    private QueuedRequest pollLowerThan(ScoringPriority priority) {
+        ScoringPriority[] priorities = ScoringPriority.values();
+        for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+            QueuedRequest entry = queues.get(priorities[i]).pollLast();
+            if (entry != null) {
+                depth--;
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void countShed(ScoringPriority priority, String reason) {
+        meterRegistry.counter("scoring.dispatch.shed", "priority", tagValue(priority), "reason", reason).increment();
+    }
+
+    private static String tagValue(ScoringPriority priority) {
+        return priority.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class QueuedRequest {
+        private final ScoringPriority priority;
+        private final Map<String, Object> request;
+        private final long enqueuedAt;
+        private final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+
+        private QueuedRequest(ScoringPriority priority, Map<String, Object> request, long enqueuedAt) {
+            this.priority = priority;
+            this.request = request;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.lms.client;
+
+import com.example.lms.config.ScoringEngineProperties;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for the Scoring Engine.
+ * <p>
+ * CLOSED records the outcome of the last {@code slidingWindowSize} calls and opens once at least
+ * {@code minimumCalls} have been seen and the failure rate reaches the threshold. OPEN rejects every
+ * call until {@code openDuration} has passed, then HALF_OPEN lets a few probe calls through:
+ * one failed probe re-opens the circuit, all probes succeeding closes it.
+ */
+class ScoringEngineCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final ScoringEngineProperties.CircuitBreaker config;
+    private final LongSupplier clock;
+    private final BiConsumer<State, State> transitionListener;
+
+    // Outcomes of the most recent calls while CLOSED, true meaning failure
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    ScoringEngineCircuitBreaker(ScoringEngineProperties.CircuitBreaker config, LongSupplier clock,
+                                BiConsumer<State, State> transitionListener) {
+        this.config = config;
+        this.clock = clock;
+        this.transitionListener = transitionListener;
+        this.window = new boolean[Math.max(1, config.getSlidingWindowSize())];
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns whether a call may go ahead. A permitted call must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #release()}.
+     */
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < config.getOpenDuration().toNanos()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= config.getHalfOpenProbes()) {
+                return false;
+            }
+            probesIssued++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= config.getHalfOpenProbes()) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCalls >= config.getMinimumCalls()
+                    && windowFailures * 100 >= config.getFailureRateThreshold() * windowCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * Hands back a permission whose call never reached the engine, so it is not counted either way.
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN && probesIssued > 0) {
+            probesIssued--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCalls == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        switch (next) {
+            case OPEN -> openedAt = clock.getAsLong();
+            case HALF_OPEN -> {
+                probesIssued = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                windowIndex = 0;
+                windowCalls = 0;
+                windowFailures = 0;
+            }
+        }
+        transitionListener.accept(previous, next);
+    }
+}
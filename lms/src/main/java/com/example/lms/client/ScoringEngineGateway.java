@@ -0,0 +1,169 @@
+package com.example.lms.client;
+
+import com.example.lms.client.ScoringEngineCircuitBreaker.State;
+import com.example.lms.config.ScoringEngineProperties;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Single way out to the Scoring Engine. Every call passes a semaphore bulkhead, which caps how many
+ * calls are in flight at once, and a circuit breaker, which fails calls fast while the engine is
+ * unhealthy. Refused calls complete with {@link ScoringEngineUnavailableException} straight away.
+ */
+@Component
+public class ScoringEngineGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoringEngineGateway.class);
+
+    private final ScoringEngineClient scoringEngineClient;
+    private final ScoringEngineProperties scoringEngineProperties;
+    private final TaskExecutor scoringExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ScoringEngineCircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    @Autowired
+    public ScoringEngineGateway(ScoringEngineClient scoringEngineClient, ScoringEngineProperties scoringEngineProperties,
+                                TaskExecutor scoringExecutor, MeterRegistry meterRegistry) {
+        this(scoringEngineClient, scoringEngineProperties, scoringExecutor, meterRegistry, System::nanoTime);
+    }
+
+    ScoringEngineGateway(ScoringEngineClient scoringEngineClient, ScoringEngineProperties scoringEngineProperties,
+                         TaskExecutor scoringExecutor, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.scoringEngineClient = scoringEngineClient;
+        this.scoringEngineProperties = scoringEngineProperties;
+        this.scoringExecutor = scoringExecutor;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = new ScoringEngineCircuitBreaker(scoringEngineProperties.getCircuitBreaker(), clock,
+                this::onTransition);
+        this.bulkhead = new Semaphore(scoringEngineProperties.getBulkhead().getMaxConcurrentCalls());
+        this.circuitOpenRejections = rejectionCounter("circuit_open");
+        this.bulkheadFullRejections = rejectionCounter("bulkhead_full");
+
+        for (State state : State.values()) {
+            Gauge.builder("scoring.engine.circuit.state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .description("1 for the circuit breaker's current state, 0 otherwise")
+                    .tag("state", tagValue(state))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("scoring.engine.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free Scoring Engine call slots")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends a score request on the dispatch pool. The returned future fails with
+     * {@link ScoringEngineUnavailableException} if the call was refused, or with a
+     * {@link java.util.concurrent.TimeoutException} once the total timeout has passed.
+     */
+    public CompletableFuture<Map<String, Object>> getScore(Map<String, Object> request) {
+        if (!acquireBulkhead()) {
+            bulkheadFullRejections.increment();
+            return CompletableFuture.failedFuture(
+                    new ScoringEngineUnavailableException("Scoring engine unavailable: too many calls in flight"));
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            circuitOpenRejections.increment();
+            return CompletableFuture.failedFuture(
+                    new ScoringEngineUnavailableException("Scoring engine unavailable: circuit is open"));
+        }
+
+        CompletableFuture<Map<String, Object>> call;
+        try {
+            // The slot is held until the HTTP call itself returns, even after the caller has given up
+            // on it, so the bulkhead bounds real work on the engine and not just waiting callers
+            call = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return scoringEngineClient.getScore(request);
+                } finally {
+                    bulkhead.release();
+                }
+            }, scoringExecutor);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // The total timeout covers pool lease, connect and read together; the transport bounds each separately
+        return call
+                .orTimeout(scoringEngineProperties.getHttp().getTotalTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error == null || !countsAsFailure(error)) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                });
+    }
+
+    /**
+     * Whether the bulkhead has a free slot right now, so a caller holding work back can tell that
+     * {@link #getScore} would refuse it
+     */
+    public boolean hasFreeSlot() {
+        return bulkhead.availablePermits() > 0;
+    }
+
+    State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private boolean acquireBulkhead() {
+        Duration maxWait = scoringEngineProperties.getBulkhead().getMaxWait();
+        if (maxWait.isZero() || maxWait.isNegative()) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A 4xx means the engine is up and rejected this particular request, so it does not count
+     * against the circuit; timeouts, connection errors and 5xx do.
+     */
+    private static boolean countsAsFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return !(cause instanceof FeignException.FeignClientException);
+    }
+
+    private void onTransition(State from, State to) {
+        logger.warn("Scoring engine circuit breaker moved from {} to {}", from, to);
+        meterRegistry.counter("scoring.engine.circuit.transitions", "from", tagValue(from), "to", tagValue(to))
+                .increment();
+    }
+
+    private Counter rejectionCounter(String reason) {
+        return Counter.builder("scoring.engine.calls.rejected")
+                .description("Scoring Engine calls refused without being sent")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static String tagValue(State state) {
+        return state.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.lms.client;
+
+/**
+ * Thrown when a Scoring Engine call is refused locally, because the circuit is open
+ * or the bulkhead has no free slot, without the request ever being sent.
+ */
+public class ScoringEngineUnavailableException extends RuntimeException {
+
+    public ScoringEngineUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.lms.client;
+
+/**
+ * Dispatch priority of a Scoring Engine request, highest first.
+ */
+public enum ScoringPriority {
+    /** Scoring for a loan application that was just submitted */
+    NEW_APPLICATION,
+    /** Ad-hoc score queries for existing customers */
+    RESCORE
+}
@@ -0,0 +1,50 @@
+package com.example.lms.client;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at {@code ratePerSecond}, holding at most {@code burst} tokens.
+ * Not thread-safe; the dispatch queue only touches it under its own lock.
+ */
+class ScoringTokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double ratePerNano;
+    private final double capacity;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long refilledAt;
+
+    ScoringTokenBucket(double ratePerSecond, int burst, LongSupplier clock) {
+        this.ratePerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.capacity = Math.max(1, burst);
+        this.clock = clock;
+        this.tokens = capacity;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nanoseconds until the next token is available, zero if one is available now.
+     */
+    long nanosUntilNextToken() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
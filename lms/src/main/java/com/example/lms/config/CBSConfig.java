@@ -1,20 +1,82 @@
 package com.example.lms.config;
 
+import com.example.lms.client.CbsGateway;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.annotation.IntegrationComponentScan;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.config.EnableIntegration;
-import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.transport.http.HttpComponents5MessageSender;
 
+/**
+ * CBS request/reply flow: {@link CbsGateway}, then {@code cbsRequestChannel}, then the SOAP exchange.
+ * <p>
+ * Two pools keep SOAP I/O off the servlet threads. {@code cbsGatewayExecutor} holds one thread per
+ * in-flight request waiting for its reply and has no queue, so it is the in-flight limit.
+ * {@code cbsExecutor} performs the SOAP calls; it is sized the same and may queue a little,
+ * because a request that timed out keeps its SOAP thread until the CBS answers.
+ */
 @Configuration
 @EnableIntegration
+@IntegrationComponentScan(basePackageClasses = CbsGateway.class)
 public class CBSConfig {
 
+    @Bean
+    public ThreadPoolTaskExecutor cbsGatewayExecutor(CbsProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getMaxInFlight());
+        executor.setMaxPoolSize(properties.getMaxInFlight());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("cbs-gateway-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cbsExecutor(CbsProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getMaxInFlight());
+        executor.setMaxPoolSize(properties.getMaxInFlight());
+        executor.setQueueCapacity(properties.getMaxInFlight());
+        executor.setThreadNamePrefix("cbs-soap-");
+        return executor;
+    }
+
+    // Stores deferred KYC fetch results, so the database work never runs on a CBS thread
+    @Bean
+    public ThreadPoolTaskExecutor kycEnrichmentExecutor(CbsProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, properties.getEnrichment().getConcurrency()));
+        executor.setMaxPoolSize(Math.max(1, properties.getEnrichment().getConcurrency()));
+        executor.setThreadNamePrefix("kyc-enrichment-store-");
+        return executor;
+    }
+
+    // Runs the deferred KYC enrichment retries once their backoff has passed, and the subscription claim sweeper
+    @Bean
+    public ThreadPoolTaskScheduler kycEnrichmentScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("kyc-enrichment-");
+        return scheduler;
+    }
+
     @Bean
     public MessageChannel cbsRequestChannel() {
+        // Handing a request over is cheap, so it runs on the gateway thread; the SOAP calls are made on cbsExecutor
         return new DirectChannel();
     }
 
@@ -23,28 +85,48 @@ public class CBSConfig {
         return new DirectChannel();
     }
 
-    @ServiceActivator(inputChannel = "cbsRequestChannel")
-    public void callCbs(Message<String> request) {
-        try {
-            // Simply log the request for now to avoid integration issues
-            System.out.println("Received request for CBS: " + request.getPayload());
-            
-            // For now, we'll skip the actual web service call to avoid integration issues
-            // This allows the application to start without external dependencies
-            
-            // Mock a successful response
-            System.out.println("CBS service call simulated successfully");
-            
-        } catch (Exception e) {
-            System.err.println("Error in CBS service: " + e.getMessage());
-            e.printStackTrace();
-        }
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager cbsConnectionManager(CbsProperties properties) {
+        CbsProperties.Http http = properties.getHttp();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getSocketTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getTimeToLive()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient cbsHttpClient(PoolingHttpClientConnectionManager cbsConnectionManager, CbsProperties properties) {
+        CbsProperties.Http http = properties.getHttp();
+        return HttpClients.custom()
+                .setConnectionManager(cbsConnectionManager)
+                // Spring WS sets Content-Length and SOAPAction itself; without this the client rejects the request
+                .addRequestInterceptorFirst(new HttpComponents5MessageSender.RemoveSoapHeadersInterceptor())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getPoolAcquireTimeout()))
+                        .setResponseTimeout(Timeout.of(http.getSocketTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder cbsPoolMetrics(PoolingHttpClientConnectionManager cbsConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(cbsConnectionManager, "cbs");
     }
 
     @Bean
-    public WebServiceTemplate webServiceTemplate() {
+    public WebServiceTemplate webServiceTemplate(CloseableHttpClient cbsHttpClient) {
         WebServiceTemplate webServiceTemplate = new WebServiceTemplate();
         webServiceTemplate.setDefaultUri("http://kycapitest.credable.io/service/customerWsdl.wsdl");
+        // Keep-alive connections from the shared pool instead of a new HttpURLConnection per call
+        webServiceTemplate.setMessageSender(new HttpComponents5MessageSender(cbsHttpClient));
         return webServiceTemplate;
     }
 }
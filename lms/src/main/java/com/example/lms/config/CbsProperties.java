@@ -0,0 +1,282 @@
+package com.example.lms.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "cbs")
+public class CbsProperties {
+
+    /**
+     * Answer KYC requests with a canned customer instead of calling the CBS SOAP service
+     */
+    private boolean mock = true;
+
+    /**
+     * How long a caller waits for the CBS reply before the request fails
+     */
+    private Duration replyTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Maximum CBS requests awaiting a reply; further requests are refused until one completes
+     */
+    private int maxInFlight = 16;
+
+    /**
+     * KYC requests a batch subscription keeps in flight at once; keep it below max-in-flight so
+     * single subscriptions still get through while a batch runs
+     */
+    private int batchConcurrency = 8;
+
+    private final KycCache kycCache = new KycCache();
+
+    private final Http http = new Http();
+
+    private final Enrichment enrichment = new Enrichment();
+
+    public boolean isMock() {
+        return mock;
+    }
+
+    public void setMock(boolean mock) {
+        this.mock = mock;
+    }
+
+    public Duration getReplyTimeout() {
+        return replyTimeout;
+    }
+
+    public void setReplyTimeout(Duration replyTimeout) {
+        this.replyTimeout = replyTimeout;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    public KycCache getKycCache() {
+        return kycCache;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Enrichment getEnrichment() {
+        return enrichment;
+    }
+
+    /**
+     * Read path for stored KYC data: served as-is while fresh, refreshed in the background as it ages,
+     * and fetched from the CBS while the caller waits only once it is older than the staleness budget
+     */
+    public static class KycCache {
+
+        /**
+         * Age after which a read still serves the stored data but triggers a background refresh
+         */
+        private Duration refreshAfter = Duration.ofHours(12);
+
+        /**
+         * Oldest KYC data that may be served; older data is fetched from the CBS before answering
+         */
+        private Duration maxStaleness = Duration.ofHours(24);
+
+        /**
+         * Background refreshes allowed at once; reads that find no free slot serve the stored data without refreshing
+         */
+        private int maxConcurrentRefreshes = 2;
+
+        public Duration getRefreshAfter() {
+            return refreshAfter;
+        }
+
+        public void setRefreshAfter(Duration refreshAfter) {
+            this.refreshAfter = refreshAfter;
+        }
+
+        public Duration getMaxStaleness() {
+            return maxStaleness;
+        }
+
+        public void setMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+        }
+
+        public int getMaxConcurrentRefreshes() {
+            return maxConcurrentRefreshes;
+        }
+
+        public void setMaxConcurrentRefreshes(int maxConcurrentRefreshes) {
+            this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+        }
+    }
+
+    /**
+     * Pooled keep-alive transport shared by every CBS SOAP call, so the TLS handshake is paid once per connection
+     */
+    public static class Http {
+
+        private int maxConnections = 20;
+
+        private int maxConnectionsPerRoute = 20;
+
+        /**
+         * Upper bound on the lifetime of a pooled connection, so DNS changes are picked up
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /**
+         * Pooled connections idle for longer than this are closed by the eviction thread
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Maximum wait for response data once the request has been sent
+         */
+        private Duration socketTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Maximum wait to lease a connection from the pool
+         */
+        private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getSocketTimeout() {
+            return socketTimeout;
+        }
+
+        public void setSocketTimeout(Duration socketTimeout) {
+            this.socketTimeout = socketTimeout;
+        }
+
+        public Duration getPoolAcquireTimeout() {
+            return poolAcquireTimeout;
+        }
+
+        public void setPoolAcquireTimeout(Duration poolAcquireTimeout) {
+            this.poolAcquireTimeout = poolAcquireTimeout;
+        }
+    }
+
+    /**
+     * Background worker that fetches KYC data for customers subscribed with deferred KYC
+     */
+    public static class Enrichment {
+
+        /**
+         * KYC fetches the worker keeps in flight at once; further customers wait in its queue
+         */
+        private int concurrency = 4;
+
+        /**
+         * Fetch attempts per customer before the customer is marked FAILED
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Delay before the first retry; it doubles on each further attempt
+         */
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        private Duration maxBackoff = Duration.ofMinutes(1);
+
+        /**
+         * Longest a loan application waits for a customer's KYC data that is still being enriched
+         */
+        private Duration loanWait = Duration.ofSeconds(10);
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getLoanWait() {
+            return loanWait;
+        }
+
+        public void setLoanWait(Duration loanWait) {
+            this.loanWait = loanWait;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.lms.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Thread pools for the asynchronous scoring flow, kept apart from the servlet threads
+ * so a slow Scoring Engine never holds a request open.
+ */
+@Configuration
+public class ScoringConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor scoringExecutor(ScoringEngineProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getDispatchThreads());
+        executor.setMaxPoolSize(properties.getDispatchThreads());
+        executor.setThreadNamePrefix("scoring-dispatch-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler scoringScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("scoring-timeout-");
+        return scheduler;
+    }
+}
@@ -1,19 +1,478 @@
 package com.example.lms.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Configuration;
 
-@Configuration
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "scoring.engine")
 public class ScoringEngineProperties {
-    
+
     private String url;
-    
+
+    /**
+     * How long a loan waits for the scoring callback before the timeout policy applies
+     */
+    private Duration callbackTimeout = Duration.ofSeconds(60);
+
+    /**
+     * What to do with a loan whose callback did not arrive in time
+     */
+    private TimeoutPolicy timeoutPolicy = TimeoutPolicy.MANUAL_REVIEW;
+
+    /**
+     * Number of re-dispatches allowed under the RETRY policy before the loan expires
+     */
+    private int maxRetries = 2;
+
+    /**
+     * Delay before the first re-dispatch under the RETRY policy; it doubles on each further one
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+    /**
+     * Threads used to dispatch scoring requests off the request thread
+     */
+    private int dispatchThreads = 4;
+
+    private final Http http = new Http();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final Bulkhead bulkhead = new Bulkhead();
+
+    private final Dispatch dispatch = new Dispatch();
+
+    private final CallbackDedup callbackDedup = new CallbackDedup();
+
+    private final Latency latency = new Latency();
+
     public String getUrl() {
         return url;
     }
-    
+
     public void setUrl(String url) {
         this.url = url;
     }
+
+    public Duration getCallbackTimeout() {
+        return callbackTimeout;
+    }
+
+    public void setCallbackTimeout(Duration callbackTimeout) {
+        this.callbackTimeout = callbackTimeout;
+    }
+
+    public TimeoutPolicy getTimeoutPolicy() {
+        return timeoutPolicy;
+    }
+
+    public void setTimeoutPolicy(TimeoutPolicy timeoutPolicy) {
+        this.timeoutPolicy = timeoutPolicy;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Duration getMaxRetryBackoff() {
+        return maxRetryBackoff;
+    }
+
+    public void setMaxRetryBackoff(Duration maxRetryBackoff) {
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public Dispatch getDispatch() {
+        return dispatch;
+    }
+
+    public CallbackDedup getCallbackDedup() {
+        return callbackDedup;
+    }
+
+    public Latency getLatency() {
+        return latency;
+    }
+
+    public enum TimeoutPolicy {
+        /** Mark the loan EXPIRED */
+        EXPIRE,
+        /** Dispatch the scoring request again, expiring once retries run out */
+        RETRY,
+        /** Park the loan in MANUAL_REVIEW for an underwriter */
+        MANUAL_REVIEW
+    }
+
+    /**
+     * Transport settings for the Feign client that talks to the Scoring Engine
+     */
+    public static class Http {
+
+        /**
+         * HTTP_1_1 uses the pooled Apache client; HTTP_2 uses the JDK client, which negotiates
+         * h2 over TLS and falls back to HTTP/1.1 when the peer does not offer it
+         */
+        private Version version = Version.HTTP_1_1;
+
+        private int maxConnections = 50;
+
+        private int maxConnectionsPerRoute = 20;
+
+        /**
+         * Upper bound on the lifetime of a pooled connection, so DNS changes are picked up
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /**
+         * Pooled connections idle for longer than this are closed by the eviction thread
+         */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Maximum wait for response data once the request has been sent
+         */
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Maximum wait to lease a connection from the pool
+         */
+        private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+
+        /**
+         * Deadline for the whole call, covering pool lease, connect and read
+         */
+        private Duration totalTimeout = Duration.ofSeconds(8);
+
+        public Version getVersion() {
+            return version;
+        }
+
+        public void setVersion(Version version) {
+            this.version = version;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getPoolAcquireTimeout() {
+            return poolAcquireTimeout;
+        }
+
+        public void setPoolAcquireTimeout(Duration poolAcquireTimeout) {
+            this.poolAcquireTimeout = poolAcquireTimeout;
+        }
+
+        public Duration getTotalTimeout() {
+            return totalTimeout;
+        }
+
+        public void setTotalTimeout(Duration totalTimeout) {
+            this.totalTimeout = totalTimeout;
+        }
+
+        public enum Version {
+            HTTP_1_1,
+            HTTP_2
+        }
+    }
+
+    /**
+     * Circuit breaker in front of the Scoring Engine, evaluated over the last N calls
+     */
+    public static class CircuitBreaker {
+
+        /**
+         * Failure percentage at or above which the circuit opens
+         */
+        private int failureRateThreshold = 50;
+
+        private int slidingWindowSize = 20;
+
+        /**
+         * Calls needed in the window before the failure rate is evaluated
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * How long the circuit stays open before letting probe calls through
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Probe calls allowed while half-open; all must succeed to close the circuit
+         */
+        private int halfOpenProbes = 3;
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    /**
+     * Cap on concurrent Scoring Engine calls so a slow engine cannot absorb every thread
+     */
+    public static class Bulkhead {
+
+        private int maxConcurrentCalls = 8;
+
+        /**
+         * How long a caller may wait for a free slot; zero rejects immediately
+         */
+        private Duration maxWait = Duration.ZERO;
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    /**
+     * Rate limit and queueing for requests waiting to be sent to the Scoring Engine
+     */
+    public static class Dispatch {
+
+        /**
+         * Sustained request rate allowed by the Scoring Engine contract
+         */
+        private double ratePerSecond = 20;
+
+        /**
+         * Requests that may be sent back to back after an idle period
+         */
+        private int burst = 20;
+
+        /**
+         * Maximum requests waiting across all priority classes
+         */
+        private int queueCapacity = 500;
+
+        /**
+         * Queued requests older than this are dropped instead of sent
+         */
+        private Duration maxQueueWait = Duration.ofSeconds(10);
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getMaxQueueWait() {
+            return maxQueueWait;
+        }
+
+        public void setMaxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+        }
+    }
+
+    /**
+     * Memory of recently processed callbacks, used to answer redeliveries without touching the database
+     */
+    public static class CallbackDedup {
+
+        /**
+         * How long a processed callback token is remembered
+         */
+        private Duration window = Duration.ofMinutes(15);
+
+        /**
+         * Upper bound on remembered tokens; the oldest are forgotten first
+         */
+        private int maxEntries = 10_000;
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * End-to-end scoring latency tracking
+     */
+    public static class Latency {
+
+        /**
+         * Scoring SLA; completed scorings slower than this are kept as outliers
+         */
+        private Duration sla = Duration.ofSeconds(30);
+
+        /**
+         * How many outliers and lost callbacks are kept for the admin endpoint
+         */
+        private int maxRetained = 200;
+
+        public Duration getSla() {
+            return sla;
+        }
+
+        public void setSla(Duration sla) {
+            this.sla = sla;
+        }
+
+        public int getMaxRetained() {
+            return maxRetained;
+        }
+
+        public void setMaxRetained(int maxRetained) {
+            this.maxRetained = maxRetained;
+        }
+    }
 }
@@ -0,0 +1,101 @@
+package com.example.lms.config;
+
+import feign.Client;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport for the Scoring Engine Feign client. Replaces Feign's default
+ * {@code HttpURLConnection} client, which neither pools connections nor exposes metrics.
+ * Request latency is recorded by feign-micrometer; pool utilisation by the binder below.
+ */
+@Configuration
+public class ScoringEngineTransportConfig {
+
+    @Bean
+    public Request.Options scoringEngineRequestOptions(ScoringEngineProperties properties) {
+        ScoringEngineProperties.Http http = properties.getHttp();
+        return new Request.Options(
+                http.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                http.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS,
+                true);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scoring.engine.http", name = "version", havingValue = "HTTP_1_1", matchIfMissing = true)
+    static class PooledTransport {
+
+        @Bean(destroyMethod = "close")
+        public PoolingHttpClientConnectionManager scoringEngineConnectionManager(ScoringEngineProperties properties) {
+            ScoringEngineProperties.Http http = properties.getHttp();
+            return PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(http.getMaxConnections())
+                    .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                            .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                            .setTimeToLive(TimeValue.of(http.getTimeToLive()))
+                            .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                            .build())
+                    .build();
+        }
+
+        @Bean(destroyMethod = "close")
+        public CloseableHttpClient scoringEngineHttpClient(PoolingHttpClientConnectionManager scoringEngineConnectionManager,
+                                                           ScoringEngineProperties properties) {
+            ScoringEngineProperties.Http http = properties.getHttp();
+            return HttpClients.custom()
+                    .setConnectionManager(scoringEngineConnectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.of(http.getPoolAcquireTimeout()))
+                            .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                            .build())
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.of(http.getIdleTimeout()))
+                    .build();
+        }
+
+        @Bean
+        public Client scoringEngineFeignClient(CloseableHttpClient scoringEngineHttpClient) {
+            return new ApacheHttp5Client(scoringEngineHttpClient);
+        }
+
+        @Bean
+        public MeterBinder scoringEnginePoolMetrics(PoolingHttpClientConnectionManager scoringEngineConnectionManager) {
+            return new PoolingHttpClientConnectionManagerMetricsBinder(scoringEngineConnectionManager, "scoring-engine");
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "scoring.engine.http", name = "version", havingValue = "HTTP_2")
+    static class Http2Transport {
+
+        @Bean
+        public Client scoringEngineFeignClient(ScoringEngineProperties properties) {
+            // The JDK client keeps its own keep-alive pool and multiplexes calls over one h2 connection
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(properties.getHttp().getConnectTimeout())
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+            return new Http2Client(httpClient);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.lms.controller;
 
+import com.example.lms.client.CbsUnavailableException;
 import com.example.lms.dto.ErrorResponse;
 import com.example.lms.dto.LoanRequest;
 import com.example.lms.dto.LoanResponse;
@@ -20,6 +21,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/loans")
@@ -36,19 +39,23 @@ public class LoanController {
             @ApiResponse(responseCode = "201", description = "Loan application created successfully",
                     content = @Content(schema = @Schema(implementation = LoanResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "The customer's KYC data is still being fetched from the CBS",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> applyForLoan(@Valid @RequestBody LoanRequest request) {
+    public CompletableFuture<ResponseEntity<?>> applyForLoan(@Valid @RequestBody LoanRequest request) {
+        // The servlet thread is released while a deferred KYC fetch is awaited; the response is written when it completes
         try {
-            Loan loan = loanService.createLoanApplication(request.getCustomerNumber(), request.getAmount());
-            scoringService.scoreLoan(loan);
-            return ResponseEntity
-                    .status(HttpStatus.CREATED)
-                    .body(new LoanResponse(loan.getLoanId(), loan.getStatus()));
+            return loanService.createLoanApplication(request.getCustomerNumber(), request.getAmount())
+                    .<ResponseEntity<?>>thenApply(loan -> {
+                        scoringService.scoreLoan(loan);
+                        return ResponseEntity
+                                .status(HttpStatus.CREATED)
+                                .body(new LoanResponse(loan.getLoanId(), loan.getStatus()));
+                    })
+                    .exceptionally(this::errorResponse);
         } catch (Exception e) {
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body(new ErrorResponse(e.getMessage()));
+            return CompletableFuture.completedFuture(errorResponse(e));
         }
     }
 
@@ -78,4 +85,14 @@ public class LoanController {
                 .body(new ErrorResponse("Loan not found"));
         }
     }
+
+    private ResponseEntity<?> errorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CbsUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(cause.getMessage()));
+        }
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(cause.getMessage()));
+    }
 }
@@ -0,0 +1,47 @@
+package com.example.lms.controller;
+
+import com.example.lms.dto.ScoringTraceResponse;
+import com.example.lms.service.ScoringLatencyTracker;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/scoring")
+@RequiredArgsConstructor
+@Tag(name = "Scoring Admin", description = "Scoring latency diagnostics")
+public class ScoringAdminController {
+
+    private final ScoringLatencyTracker scoringLatencyTracker;
+
+    @GetMapping("/outliers")
+    @Operation(summary = "List slow scorings", description = "Recent scorings whose end-to-end latency exceeded the SLA, most recent first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Outliers retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = ScoringTraceResponse.class))))
+    })
+    public ResponseEntity<List<ScoringTraceResponse>> getOutliers() {
+        return ResponseEntity.ok(scoringLatencyTracker.getOutliers());
+    }
+
+    @GetMapping("/lost-callbacks")
+    @Operation(summary = "List lost callbacks", description = "Recent scorings whose callback never arrived or could not be applied, most recent first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lost callbacks retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = ScoringTraceResponse.class))))
+    })
+    public ResponseEntity<List<ScoringTraceResponse>> getLostCallbacks() {
+        return ResponseEntity.ok(scoringLatencyTracker.getLostCallbacks());
+    }
+}
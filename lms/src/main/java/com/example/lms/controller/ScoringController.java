@@ -1,5 +1,6 @@
 package com.example.lms.controller;
 
+import com.example.lms.client.ScoringEngineUnavailableException;
 import com.example.lms.dto.ErrorResponse;
 import com.example.lms.dto.ScoreQueryRequest;
 import com.example.lms.dto.ScoreQueryResponse;
@@ -12,12 +13,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/scores")
 @RequiredArgsConstructor
@@ -32,14 +37,26 @@ public class ScoringController {
             @ApiResponse(responseCode = "200", description = "Score query initiated successfully",
                     content = @Content(schema = @Schema(implementation = ScoreQueryResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "Scoring Engine temporarily unavailable",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> initiateScoreQuery(@Valid @RequestBody ScoreQueryRequest request) {
+    public CompletableFuture<ResponseEntity<?>> initiateScoreQuery(@Valid @RequestBody ScoreQueryRequest request) {
+        // The servlet thread is released while the request waits in the dispatch queue; the response is written when it completes
         try {
-            String token = scoringService.initiateScoreQuery(request.getCustomerNumber());
-            return ResponseEntity.ok(new ScoreQueryResponse(token));
+            return scoringService.initiateScoreQuery(request.getCustomerNumber())
+                    .<ResponseEntity<?>>thenApply(token -> ResponseEntity.ok(new ScoreQueryResponse(token)))
+                    .exceptionally(this::errorResponse);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+            return CompletableFuture.completedFuture(errorResponse(e));
+        }
+    }
+
+    private ResponseEntity<?> errorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ScoringEngineUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(cause.getMessage()));
         }
+        return ResponseEntity.badRequest().body(new ErrorResponse(cause.getMessage()));
     }
 }
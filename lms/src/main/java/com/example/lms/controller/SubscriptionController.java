@@ -1,5 +1,9 @@
 package com.example.lms.controller;
 
+import com.example.lms.client.CbsUnavailableException;
+import com.example.lms.dto.BatchSubscriptionRequest;
+import com.example.lms.dto.BatchSubscriptionResponse;
+import com.example.lms.dto.BatchSubscriptionResponse.Status;
 import com.example.lms.dto.ErrorResponse;
 import com.example.lms.dto.SubscriptionRequest;
 import com.example.lms.dto.SubscriptionResponse;
@@ -21,6 +25,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/subscriptions")
 @RequiredArgsConstructor
@@ -30,23 +38,80 @@ public class SubscriptionController {
     private final CustomerService customerService;
 
     @PostMapping
-    @Operation(summary = "Subscribe a customer", description = "Subscribes a customer to the LMS")
+    @Operation(summary = "Subscribe a customer",
+            description = "Subscribes a customer to the LMS. With deferKyc the customer is created at once as PENDING_KYC "
+                    + "and the KYC data is fetched from the CBS in the background.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Customer subscribed successfully",
                     content = @Content(schema = @Schema(implementation = SubscriptionResponse.class))),
+            @ApiResponse(responseCode = "202", description = "Customer subscribed, KYC data is being fetched",
+                    content = @Content(schema = @Schema(implementation = SubscriptionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request, the customer is already subscribed, or another node is still subscribing them",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "CBS is busy or did not reply in time",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public CompletableFuture<ResponseEntity<?>> subscribeCustomer(@Valid @RequestBody SubscriptionRequest request) {
+        if (request.isDeferKyc()) {
+            try {
+                Customer customer = customerService.subscribeCustomerDeferred(request.getCustomerNumber());
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(new SubscriptionResponse(customer.getCustomerId(), customer.getKycStatus())));
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(errorResponse(e));
+            }
+        }
+
+        // The servlet thread is released while the CBS call is in flight; the response is written when it completes
+        try {
+            return customerService.subscribeCustomer(request.getCustomerNumber())
+                    .<ResponseEntity<?>>thenApply(customer -> ResponseEntity.ok(
+                            new SubscriptionResponse(customer.getCustomerId(), customer.getKycStatus())))
+                    .exceptionally(this::errorResponse);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(errorResponse(e));
+        }
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Subscribe customers in bulk",
+            description = "Subscribes many customers at once, fetching their KYC data from the CBS in parallel. "
+                    + "Duplicates are subscribed once and existing customers are skipped; each customer gets its own outcome. "
+                    + "A customer another node is still subscribing is reported as FAILED and can be retried.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-customer outcomes",
+                    content = @Content(schema = @Schema(implementation = BatchSubscriptionResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    public ResponseEntity<?> subscribeCustomer(@Valid @RequestBody SubscriptionRequest request) {
+    public CompletableFuture<ResponseEntity<?>> subscribeCustomers(@Valid @RequestBody BatchSubscriptionRequest request) {
         try {
-            Customer customer = customerService.subscribeCustomer(request.getCustomerNumber());
-            return ResponseEntity.ok(new SubscriptionResponse(customer.getCustomerId()));
-        } catch (JAXBException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Error processing CBS response"));
+            return customerService.subscribeCustomers(request.getCustomerNumbers())
+                    .<ResponseEntity<?>>thenApply(outcomes -> ResponseEntity.ok(new BatchSubscriptionResponse(
+                            count(outcomes, Status.SUBSCRIBED),
+                            count(outcomes, Status.ALREADY_SUBSCRIBED),
+                            count(outcomes, Status.FAILED),
+                            outcomes)))
+                    .exceptionally(this::errorResponse);
         } catch (Exception e) {
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body(new ErrorResponse(e.getMessage()));
+            return CompletableFuture.completedFuture(errorResponse(e));
+        }
+    }
+
+    private static int count(List<BatchSubscriptionResponse.Outcome> outcomes, Status status) {
+        return (int) outcomes.stream().filter(outcome -> outcome.getStatus() == status).count();
+    }
+
+    private ResponseEntity<?> errorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof JAXBException) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Error processing CBS response"));
+        }
+        if (cause instanceof CbsUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(cause.getMessage()));
         }
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(cause.getMessage()));
     }
 }
@@ -0,0 +1,22 @@
+package com.example.lms.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSubscriptionRequest {
+
+    @Schema(description = "Customer numbers to subscribe; duplicates are subscribed once", example = "[\"234774784\", \"318411216\"]")
+    @NotEmpty(message = "At least one customer number is required")
+    @Size(max = 5000, message = "At most 5000 customer numbers per batch")
+    private List<@NotBlank(message = "Customer number is required") String> customerNumbers;
+}
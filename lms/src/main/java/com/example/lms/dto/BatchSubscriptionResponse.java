@@ -0,0 +1,51 @@
+package com.example.lms.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSubscriptionResponse {
+
+    @Schema(description = "Number of customers subscribed by this batch", example = "2")
+    private int subscribed;
+
+    @Schema(description = "Number of customers that were already subscribed", example = "0")
+    private int alreadySubscribed;
+
+    @Schema(description = "Number of customers that could not be subscribed", example = "0")
+    private int failed;
+
+    @Schema(description = "One outcome per distinct customer number, in request order")
+    private List<Outcome> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Outcome {
+
+        @Schema(description = "Customer number", example = "234774784")
+        private String customerNumber;
+
+        @Schema(description = "What happened to this customer", example = "SUBSCRIBED")
+        private Status status;
+
+        @Schema(description = "Customer ID, absent when the subscription failed", example = "550e8400-e29b-41d4-a716-446655440000")
+        private UUID customerId;
+
+        @Schema(description = "Why the subscription failed", example = "CBS did not reply within PT5S")
+        private String error;
+    }
+
+    public enum Status {
+        SUBSCRIBED,
+        ALREADY_SUBSCRIBED,
+        FAILED
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.lms.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoringTraceResponse {
+
+    @Schema(description = "Scoring token", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String token;
+
+    @Schema(description = "Customer number", example = "234774784")
+    private String customerNumber;
+
+    @Schema(description = "Loan ID, absent for ad-hoc score queries", example = "550e8400-e29b-41d4-a716-446655440000")
+    private UUID loanId;
+
+    @Schema(description = "When the score query was initiated")
+    private Instant initiatedAt;
+
+    @Schema(description = "When the Scoring Engine accepted the request")
+    private Instant engineAcceptedAt;
+
+    @Schema(description = "When the scoring callback arrived")
+    private Instant callbackReceivedAt;
+
+    @Schema(description = "When the loan decision was persisted")
+    private Instant decisionPersistedAt;
+
+    @Schema(description = "Initiation to decision, in milliseconds", example = "42000")
+    private Long endToEndMs;
+
+    @Schema(description = "Why the scoring was lost, absent for outliers", example = "Callback not received within PT1M")
+    private String reason;
+}
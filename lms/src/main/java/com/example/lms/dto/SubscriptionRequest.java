@@ -12,4 +12,7 @@ public class SubscriptionRequest {
     
     @NotBlank(message = "Customer number is required")
     private String customerNumber;
+
+    // Subscribe at once as PENDING_KYC and fetch the KYC data in the background
+    private boolean deferKyc;
 }
@@ -11,4 +11,5 @@ import java.util.UUID;
 @AllArgsConstructor
 public class SubscriptionResponse {
     private UUID customerId;
+    private String kycStatus;
 }
@@ -1,20 +1,32 @@
 package com.example.lms.entity;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.UUID;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_monthly_income", columnList = "monthly_income"),
+        @Index(name = "idx_customers_kyc_name", columnList = "kyc_last_name, kyc_first_name"),
+        @Index(name = "idx_customers_cbs_created_at", columnList = "cbs_created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Customer {
 
+    private static final ObjectMapper KYC_MAPPER = new ObjectMapper();
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "customer_id")
@@ -23,9 +35,38 @@ public class Customer {
     @Column(name = "customer_number", unique = true, nullable = false)
     private String customerNumber;
 
-    @Column(name = "kyc_data", columnDefinition = "TEXT")
+    // jsonb on PostgreSQL, the native JSON type on H2
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "kyc_data")
     private String kycData;
 
+    // Copied out of kycData on every write so they can be indexed and queried directly
+    @Column(name = "kyc_first_name")
+    private String kycFirstName;
+
+    @Column(name = "kyc_last_name")
+    private String kycLastName;
+
+    @Column(name = "monthly_income")
+    private Double monthlyIncome;
+
+    @Column(name = "cbs_created_at")
+    private OffsetDateTime cbsCreatedAt;
+
+    // When kycData was last fetched from the CBS; drives the KYC read cache
+    @Column(name = "kyc_fetched_at")
+    private OffsetDateTime kycFetchedAt;
+
+    // A KycStatus name: CLAIMED while a subscription waits for the CBS, PENDING_KYC until a deferred
+    // subscription's KYC data arrives, ENRICHED once it has, FAILED if the background worker gave up.
+    // Null for customers subscribed before the status existed
+    @Column(name = "kyc_status")
+    private String kycStatus;
+
+    // When a CLAIMED row was claimed; a claim that outlives the CBS reply timeout was abandoned and is swept
+    @Column(name = "claimed_at")
+    private OffsetDateTime claimedAt;
+
     @Column(name = "created_at")
     private OffsetDateTime createdAt;
 
@@ -36,10 +77,34 @@ public class Customer {
     protected void onCreate() {
         createdAt = OffsetDateTime.now();
         updatedAt = OffsetDateTime.now();
+        syncKycColumns();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = OffsetDateTime.now();
+        syncKycColumns();
+    }
+
+    /**
+     * Refreshes the extracted KYC columns from the KYC document, so the two never disagree.
+     */
+    protected void syncKycColumns() {
+        if (kycData == null) {
+            kycFirstName = null;
+            kycLastName = null;
+            monthlyIncome = null;
+            cbsCreatedAt = null;
+            return;
+        }
+        try {
+            JsonNode kyc = KYC_MAPPER.readTree(kycData);
+            kycFirstName = kyc.hasNonNull("firstName") ? kyc.get("firstName").asText() : null;
+            kycLastName = kyc.hasNonNull("lastName") ? kyc.get("lastName").asText() : null;
+            monthlyIncome = kyc.hasNonNull("monthlyIncome") ? kyc.get("monthlyIncome").asDouble() : null;
+            cbsCreatedAt = kyc.hasNonNull("createdAt") ? OffsetDateTime.parse(kyc.get("createdAt").asText()) : null;
+        } catch (JsonProcessingException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid KYC data for customer " + customerNumber, e);
+        }
     }
 }
@@ -0,0 +1,8 @@
+package com.example.lms.entity;
+
+public enum KycStatus {
+    CLAIMED,
+    PENDING_KYC,
+    ENRICHED,
+    FAILED
+}
@@ -5,5 +5,7 @@ public enum LoanStatus {
     APPROVED,
     REJECTED,
     ACTIVE,
-    COMPLETED
+    COMPLETED,
+    MANUAL_REVIEW,
+    EXPIRED
 }
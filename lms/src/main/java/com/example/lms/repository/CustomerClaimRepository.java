@@ -0,0 +1,18 @@
+package com.example.lms.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface CustomerClaimRepository {
+
+    /**
+     * Claims many customer numbers at once with CLAIMED rows, the bulk form of
+     * {@link CustomerRepository#insertIfAbsent}: numbers that are already taken are skipped.
+     *
+     * @param customerIds the customer ID to give each number's claim
+     * @return the customer numbers this call claimed
+     */
+    Set<String> claimAll(Map<String, UUID> customerIds, OffsetDateTime now);
+}
@@ -0,0 +1,58 @@
+package com.example.lms.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+class CustomerClaimRepositoryImpl implements CustomerClaimRepository {
+
+    // Keeps each statement well under the bind parameter limits of PostgreSQL and H2
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Set<String> claimAll(Map<String, UUID> customerIds, OffsetDateTime now) {
+        List<Map.Entry<String, UUID>> rows = new ArrayList<>(customerIds.entrySet());
+        Set<String> claimed = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Map.Entry<String, UUID>> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+
+            // One multi-row insert per chunk; H2 accepts the PostgreSQL syntax in MODE=PostgreSQL
+            StringBuilder sql = new StringBuilder(
+                    "insert into customers (customer_id, customer_number, kyc_status, claimed_at, created_at, updated_at) values ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(:id").append(i).append(", :number").append(i)
+                        .append(", 'CLAIMED', :now, :now, :now)");
+            }
+            sql.append(" on conflict do nothing");
+            Query insert = entityManager.createNativeQuery(sql.toString()).setParameter("now", now);
+            List<UUID> ids = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                insert.setParameter("id" + i, chunk.get(i).getValue());
+                insert.setParameter("number" + i, chunk.get(i).getKey());
+                ids.add(chunk.get(i).getValue());
+            }
+            insert.executeUpdate();
+
+            // H2 has no RETURNING, so the claimed rows are read back instead: only the rows this call
+            // inserted carry the IDs it generated
+            claimed.addAll(entityManager
+                    .createQuery("select c.customerNumber from Customer c where c.customerId in :ids", String.class)
+                    .setParameter("ids", ids)
+                    .getResultList());
+        }
+        return claimed;
+    }
+}
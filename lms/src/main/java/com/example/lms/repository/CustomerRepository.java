@@ -1,11 +1,67 @@
 package com.example.lms.repository;
 
 import com.example.lms.entity.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+public interface CustomerRepository extends JpaRepository<Customer, UUID>, CustomerClaimRepository {
     Optional<Customer> findByCustomerNumber(String customerNumber);
+
+    List<Customer> findByCustomerNumberIn(Collection<String> customerNumbers);
+
+    /**
+     * Claims a customer number with a CLAIMED row, atomically: returns 1 if the row was inserted and 0 if
+     * the number was already taken. H2 accepts the PostgreSQL syntax in MODE=PostgreSQL.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into customers (customer_id, customer_number, kyc_status, claimed_at, created_at, updated_at) "
+            + "values (:customerId, :customerNumber, 'CLAIMED', :now, :now, :now) on conflict do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("customerId") UUID customerId, @Param("customerNumber") String customerNumber,
+                       @Param("now") OffsetDateTime now);
+
+    /**
+     * Subscribes a customer without KYC data, for the background worker to enrich. Same contract as
+     * {@link #insertIfAbsent}, but the row is marked PENDING_KYC for the worker instead of CLAIMED.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into customers (customer_id, customer_number, kyc_status, created_at, updated_at) "
+            + "values (:customerId, :customerNumber, 'PENDING_KYC', :now, :now) on conflict do nothing", nativeQuery = true)
+    int insertPendingIfAbsent(@Param("customerId") UUID customerId, @Param("customerNumber") String customerNumber,
+                              @Param("now") OffsetDateTime now);
+
+    // Keyset page of customers in a KYC status, for walking them in customer number order
+    List<Customer> findByKycStatusAndCustomerNumberGreaterThan(String kycStatus, String customerNumber, Pageable pageable);
+
+    // Gives up a claim whose KYC data never arrived, so the customer can subscribe again
+    @Transactional
+    @Modifying
+    @Query("delete from Customer c where c.customerNumber = :customerNumber and c.kycStatus = 'CLAIMED'")
+    int deleteUnfinishedClaim(@Param("customerNumber") String customerNumber);
+
+    // Bulk form of deleteUnfinishedClaim, for the customers of a batch whose KYC data never arrived
+    @Transactional
+    @Modifying
+    @Query("delete from Customer c where c.customerNumber in :customerNumbers and c.kycStatus = 'CLAIMED'")
+    int deleteUnfinishedClaims(@Param("customerNumbers") Collection<String> customerNumbers);
+
+    /**
+     * Deletes claims abandoned before {@code cutoff} by a node that stopped between claiming and saving.
+     * Only CLAIMED rows are touched; customers without a status were subscribed before it existed.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Customer c where c.kycStatus = 'CLAIMED' and c.claimedAt < :cutoff")
+    int deleteClaimsOlderThan(@Param("cutoff") OffsetDateTime cutoff);
 }
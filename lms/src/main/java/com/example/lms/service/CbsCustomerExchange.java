@@ -0,0 +1,106 @@
+package com.example.lms.service;
+
+import com.example.lms.client.CbsGateway;
+import com.example.lms.config.CbsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.xml.transform.StringResult;
+import org.springframework.xml.transform.StringSource;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes {@code cbsRequestChannel} and answers each request on its own reply channel, where its
+ * {@link CbsGateway} call is waiting for the CustomerResponse XML. The mocked CBS answers at once; the live
+ * CBS is called with one SOAP request per customer on {@code cbsExecutor}.
+ */
+@Component
+public class CbsCustomerExchange {
+
+    private static final Logger logger = LoggerFactory.getLogger(CbsCustomerExchange.class);
+
+    private final WebServiceTemplate webServiceTemplate;
+    private final CbsProperties cbsProperties;
+    private final TaskExecutor cbsExecutor;
+
+    private final Timer latency;
+
+    public CbsCustomerExchange(WebServiceTemplate webServiceTemplate, CbsProperties cbsProperties,
+                               TaskExecutor cbsExecutor, MeterRegistry meterRegistry) {
+        this.webServiceTemplate = webServiceTemplate;
+        this.cbsProperties = cbsProperties;
+        this.cbsExecutor = cbsExecutor;
+        this.latency = Timer.builder("cbs.kyc.latency")
+                .description("Time from a KYC request entering the CBS flow until its reply")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Answers a mocked request at once, or sends it to the live CBS on {@code cbsExecutor} and answers it
+     * with the rejection when the executor is full
+     */
+    @ServiceActivator(inputChannel = "cbsRequestChannel")
+    public void send(Message<?> request) {
+        if (cbsProperties.isMock()) {
+            logger.debug("CBS is mocked, answering KYC request for customer {}", customerNumber(request));
+            reply(request, CbsCustomerXml.mockResponse(customerNumber(request)));
+            return;
+        }
+        try {
+            cbsExecutor.execute(() -> exchangeSingle(request));
+        } catch (RejectedExecutionException e) {
+            replyError(request, e);
+        }
+    }
+
+    private void exchangeSingle(Message<?> request) {
+        String customerNumber = customerNumber(request);
+        logger.debug("Requesting KYC data for customer {} from CBS", customerNumber);
+        try {
+            StringResult response = new StringResult();
+            webServiceTemplate.sendSourceAndReceiveToResult(new StringSource((String) request.getPayload()), response);
+            reply(request, response.toString());
+        } catch (RuntimeException e) {
+            replyError(request, e);
+        }
+    }
+
+    private void reply(Message<?> request, String customerResponse) {
+        latency.record(sinceReceived(request), TimeUnit.MILLISECONDS);
+        replyChannel(request).send(MessageBuilder.withPayload(customerResponse)
+                .copyHeaders(request.getHeaders())
+                .build());
+    }
+
+    private void replyError(Message<?> request, Exception e) {
+        replyChannel(request).send(new ErrorMessage(
+                new MessageHandlingException(request, "CBS request failed for customer " + customerNumber(request), e)));
+    }
+
+    private static MessageChannel replyChannel(Message<?> request) {
+        // The gateway's temporary reply channel; it drops replies that arrive after the caller gave up
+        return (MessageChannel) request.getHeaders().getReplyChannel();
+    }
+
+    private static String customerNumber(Message<?> request) {
+        return request.getHeaders().get(CbsGateway.CUSTOMER_NUMBER_HEADER, String.class);
+    }
+
+    private static long sinceReceived(Message<?> request) {
+        Long timestamp = request.getHeaders().getTimestamp();
+        return timestamp == null ? 0 : Math.max(0, System.currentTimeMillis() - timestamp);
+    }
+}
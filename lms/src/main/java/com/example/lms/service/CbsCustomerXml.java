@@ -0,0 +1,226 @@
+package com.example.lms.service;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * JAXB mapping for the CBS customer SOAP payloads.
+ * <p>
+ * Building a {@link JAXBContext} means reflecting over the bound classes and is by far the most
+ * expensive JAXB call, so the request context is created once and shared; contexts are thread-safe.
+ * Marshallers are not, so each thread keeps its own.
+ * <p>
+ * Responses are not unmarshalled: {@link #responseToKycJson(String)} streams them through a StAX reader
+ * and writes the KYC JSON as it goes, without building an object tree first.
+ */
+final class CbsCustomerXml {
+
+    private static final String NAMESPACE = "http://credable.io/cbs/customer";
+
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+    private static final JAXBContext REQUEST_CONTEXT = newContext(CustomerRequest.class);
+
+    private static final ThreadLocal<Marshaller> REQUEST_MARSHALLER = ThreadLocal.withInitial(() -> {
+        try {
+            return REQUEST_CONTEXT.createMarshaller();
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Failed to create CustomerRequest marshaller", e);
+        }
+    });
+
+    private CbsCustomerXml() {
+    }
+
+    static String marshalRequest(String customerNumber) throws JAXBException {
+        CustomerRequest request = new CustomerRequest();
+        request.setCustomerNumber(customerNumber);
+
+        StringWriter sw = new StringWriter();
+        REQUEST_MARSHALLER.get().marshal(request, sw);
+
+        return sw.toString();
+    }
+
+    /**
+     * The canned CustomerResponse returned for any customer while the CBS is mocked.
+     */
+    static String mockResponse(String customerNumber) {
+        return "<CustomerResponse xmlns=\"" + NAMESPACE + "\">\n" +
+                "    <customer>\n" +
+                "      <createdAt>2024-01-26T12:00:00+00:00</createdAt>\n" +
+                "      <customerNumber>" + customerNumber + "</customerNumber>\n" +
+                "      <firstName>John</firstName>\n" +
+                "      <lastName>Doe</lastName>\n" +
+                "      <monthlyIncome>5000.0</monthlyIncome>\n" +
+                "    </customer>\n" +
+                "  </CustomerResponse>";
+    }
+
+    /**
+     * Converts a CBS CustomerResponse into the KYC JSON stored on the customer. Fields are written
+     * in document order and unknown elements are skipped, as the JAXB mapping did.
+     */
+    static String responseToKycJson(String xml) throws JAXBException {
+        StringBuilder json = new StringBuilder(256).append('{');
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+            boolean inCustomer = false;
+            boolean first = true;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && inCustomer && "customer".equals(reader.getLocalName())) {
+                    break;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (!inCustomer) {
+                    inCustomer = "customer".equals(name) && NAMESPACE.equals(reader.getNamespaceURI());
+                    continue;
+                }
+                if (!NAMESPACE.equals(reader.getNamespaceURI())) {
+                    skipElement(reader);
+                    continue;
+                }
+                switch (name) {
+                    case "customerNumber", "firstName", "lastName", "createdAt" -> {
+                        appendKey(json, name, first).append('"');
+                        appendEscapedText(json, reader);
+                        json.append('"');
+                        first = false;
+                    }
+                    case "monthlyIncome" -> {
+                        double monthlyIncome = Double.parseDouble(reader.getElementText().trim());
+                        if (!Double.isFinite(monthlyIncome)) {
+                            // NaN and Infinity parse, but are not valid JSON numbers
+                            throw new JAXBException("CBS customer response has a non-finite monthlyIncome");
+                        }
+                        appendKey(json, name, first).append(monthlyIncome);
+                        first = false;
+                    }
+                    default -> skipElement(reader);
+                }
+            }
+            if (!inCustomer) {
+                throw new JAXBException("CBS customer response has no customer element");
+            }
+            return json.append('}').toString();
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new JAXBException("Malformed CBS customer response", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing is held open for an in-memory reader
+                }
+            }
+        }
+    }
+
+    private static StringBuilder appendKey(StringBuilder json, String name, boolean first) {
+        if (!first) {
+            json.append(',');
+        }
+        return json.append('"').append(name).append("\":");
+    }
+
+    /**
+     * Copies the element's text straight from the parser buffer into the JSON, escaping as it goes,
+     * and leaves the reader on the element's end tag.
+     */
+    private static void appendEscapedText(StringBuilder json, XMLStreamReader reader) throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("Unexpected element inside text field", reader.getLocation());
+            }
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                char[] text = reader.getTextCharacters();
+                int end = reader.getTextStart() + reader.getTextLength();
+                for (int i = reader.getTextStart(); i < end; i++) {
+                    appendEscaped(json, text[i]);
+                }
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder json, char c) {
+        switch (c) {
+            case '"' -> json.append("\\\"");
+            case '\\' -> json.append("\\\\");
+            case '\n' -> json.append("\\n");
+            case '\r' -> json.append("\\r");
+            case '\t' -> json.append("\\t");
+            default -> {
+                if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // CBS payloads never carry a DTD; refusing one also rules out external entity expansion
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    private static JAXBContext newContext(Class<?> type) {
+        try {
+            return JAXBContext.newInstance(type);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Failed to create JAXB context for " + type.getSimpleName(), e);
+        }
+    }
+
+    // JAXB class for XML marshalling
+
+    @XmlRootElement(name = "CustomerRequest", namespace = "http://credable.io/cbs/customer")
+    static class CustomerRequest {
+        private String customerNumber;
+
+        public String getCustomerNumber() {
+            return customerNumber;
+        }
+
+        @XmlElement(namespace = "http://credable.io/cbs/customer")
+        public void setCustomerNumber(String customerNumber) {
+            this.customerNumber = customerNumber;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.lms.service;
+
+/**
+ * Thrown when a customer number is already subscribed.
+ */
+public class CustomerAlreadySubscribedException extends RuntimeException {
+
+    public CustomerAlreadySubscribedException() {
+        super("Customer already subscribed");
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.lms.service;
 
+import com.example.lms.dto.BatchSubscriptionResponse;
 import com.example.lms.entity.Customer;
 
 import jakarta.xml.bind.JAXBException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface CustomerService {
-    Customer subscribeCustomer(String customerNumber) throws JAXBException;
+    // Completes once the CBS has answered and the customer is saved; the caller's thread is not held meanwhile
+    CompletableFuture<Customer> subscribeCustomer(String customerNumber) throws JAXBException;
+    // Subscribes the customer at once as PENDING_KYC and leaves the CBS call to the background enrichment worker
+    Customer subscribeCustomerDeferred(String customerNumber);
+    // Completes once the customer has KYC data: at once for most customers, after enrichment for a PENDING_KYC one
+    CompletableFuture<Customer> awaitKyc(Customer customer);
+    // Subscribes many customers at once; one outcome per distinct customer number, in request order
+    CompletableFuture<List<BatchSubscriptionResponse.Outcome>> subscribeCustomers(List<String> customerNumbers);
     Optional<Customer> findByCustomerNumber(String customerNumber);
     // This method would normally call the CBS to get KYC data
     String getCustomerKycData(String customerNumber) throws JAXBException;
@@ -1,207 +1,514 @@
 package com.example.lms.service;
 
+import com.example.lms.client.CbsGateway;
+import com.example.lms.client.CbsUnavailableException;
+import com.example.lms.config.CbsProperties;
+import com.example.lms.dto.BatchSubscriptionResponse.Outcome;
+import com.example.lms.dto.BatchSubscriptionResponse.Status;
 import com.example.lms.entity.Customer;
+import com.example.lms.entity.KycStatus;
 import com.example.lms.repository.CustomerRepository;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import jakarta.xml.bind.Unmarshaller;
-import jakarta.xml.bind.annotation.XmlElement;
-import jakarta.xml.bind.annotation.XmlRootElement;
 import lombok.RequiredArgsConstructor;
-import org.springframework.integration.support.MessageBuilder;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.MessageChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.integration.MessageTimeoutException;
 import org.springframework.stereotype.Service;
 
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 @Service
 @RequiredArgsConstructor
 public class CustomerServiceImpl implements CustomerService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomerServiceImpl.class);
+
+    private static final int PENDING_KYC_PAGE_SIZE = 100;
+
     private final CustomerRepository customerRepository;
-    private final MessageChannel cbsRequestChannel;
+    private final CbsGateway cbsGateway;
+    private final CbsProperties cbsProperties;
+    private final KycCache kycCache;
+    private final KycEnrichmentWorker kycEnrichmentWorker;
+
+    // Subscriptions waiting on the CBS, keyed by customer number
+    private final Map<String, CompletableFuture<Customer>> subscriptionsInFlight = new ConcurrentHashMap<>();
 
     @Override
-    public Customer subscribeCustomer(String customerNumber) throws JAXBException {
-        // Check if customer already exists
-        Optional<Customer> existingCustomer = customerRepository.findByCustomerNumber(customerNumber);
-        if (existingCustomer.isPresent()) {
-            throw new RuntimeException("Customer already subscribed");
+    public CompletableFuture<Customer> subscribeCustomer(String customerNumber) throws JAXBException {
+        // Concurrent requests for the same customer share one subscription, and so one CBS call. The copy
+        // keeps a caller from completing the shared future for everyone else
+        CompletableFuture<Customer> subscription = new CompletableFuture<>();
+        CompletableFuture<Customer> inFlight = subscriptionsInFlight.putIfAbsent(customerNumber, subscription);
+        if (inFlight != null) {
+            return inFlight.copy();
         }
+        subscription.whenComplete((customer, error) -> subscriptionsInFlight.remove(customerNumber, subscription));
+
+        try {
+            subscribe(customerNumber).whenComplete((customer, error) -> {
+                if (error != null) {
+                    subscription.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    subscription.complete(customer);
+                }
+            });
+        } catch (JAXBException | RuntimeException e) {
+            subscription.completeExceptionally(e);
+            throw e;
+        }
+        return subscription;
+    }
 
-        // Call CBS to get KYC data (using Spring Integration)
-        String soapRequest = generateCustomerRequest(customerNumber);
-        Message<String> message = MessageBuilder.withPayload(soapRequest).build();
-        cbsRequestChannel.send(message);
-
-        // Assuming the response is handled by a separate service activator and transformer
-        // For now, let's mock the response
-        CustomerResponse kycData = parseCustomerResponse("<CustomerResponse xmlns=\"http://credable.io/cbs/customer\">\n" +
-                "    <customer>\n" +
-                "      <createdAt>2024-01-26T12:00:00+00:00</createdAt>\n" +
-                "      <customerNumber>"+customerNumber+"</customerNumber>\n" +
-                "      <firstName>John</firstName>\n" +
-                "      <lastName>Doe</lastName>\n" +
-                "      <monthlyIncome>5000.0</monthlyIncome>\n" +
-                "    </customer>\n" +
-                "  </CustomerResponse>");
-
-        // Create and save new customer
-        Customer customer = new Customer();
-        customer.setCustomerNumber(customerNumber);
-        customer.setKycData(convertObjectToJSON(kycData)); // Store KYC data as JSON
-        customer.setCreatedAt(OffsetDateTime.now());
-        customer.setUpdatedAt(OffsetDateTime.now());
+    private CompletableFuture<Customer> subscribe(String customerNumber) throws JAXBException {
+        // Claiming the number is the existence check: a duplicate costs this one statement,
+        // and another node subscribing the same customer cannot get past it either. The claim is
+        // marked CLAIMED, so it reads as not subscribed until the KYC data is saved, and a claim
+        // left behind by a node that stopped meanwhile is swept by SubscriptionClaimSweeper
+        OffsetDateTime claimedAt = OffsetDateTime.now();
+        UUID customerId = UUID.randomUUID();
+        if (customerRepository.insertIfAbsent(customerId, customerNumber, claimedAt) == 0) {
+            throw notClaimed(customerNumber);
+        }
+
+        // Call CBS to get KYC data, then complete the claimed customer once it answers
+        CompletableFuture<String> kyc;
+        try {
+            kyc = fetchKycData(customerNumber);
+        } catch (JAXBException | RuntimeException e) {
+            releaseClaim(customerNumber);
+            throw e;
+        }
+        return kyc.handle((kycData, error) -> {
+            if (error != null) {
+                releaseClaim(customerNumber);
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }
+            Customer customer = new Customer();
+            customer.setCustomerId(customerId);
+            customer.setCustomerNumber(customerNumber);
+            customer.setKycData(kycData); // Store KYC data as JSON
+            customer.setKycFetchedAt(OffsetDateTime.now());
+            customer.setKycStatus(KycStatus.ENRICHED.name());
+            customer.setCreatedAt(claimedAt);
+            customer.setUpdatedAt(OffsetDateTime.now());
+
+            return customerRepository.save(customer);
+        });
+    }
 
-        return customerRepository.save(customer);
+    /**
+     * Explains a lost claim: the customer is only reported as subscribed once their row is committed, and
+     * a claim another node still holds may yet be released
+     */
+    private RuntimeException notClaimed(String customerNumber) {
+        boolean subscribed = customerRepository.findByCustomerNumber(customerNumber)
+                .filter(customer -> !isClaim(customer))
+                .isPresent();
+        return subscribed ? new CustomerAlreadySubscribedException() : new CustomerSubscriptionInProgressException();
     }
 
-    @Override
-    public Optional<Customer> findByCustomerNumber(String customerNumber) {
-        return customerRepository.findByCustomerNumber(customerNumber);
+    private void releaseClaim(String customerNumber) {
+        try {
+            customerRepository.deleteUnfinishedClaim(customerNumber);
+        } catch (RuntimeException e) {
+            logger.error("Could not release the subscription claim for customer {}", customerNumber, e);
+        }
     }
 
     @Override
-    public String getCustomerKycData(String customerNumber) throws JAXBException {
-        // This would normally call the CBS via SOAP to get KYC data
-        // For now, we'll return a mock JSON string
-        String soapRequest = generateCustomerRequest(customerNumber);
-        Message<String> message = MessageBuilder.withPayload(soapRequest).build();
-        cbsRequestChannel.send(message);
-
-        // Mock response parsing
-        CustomerResponse kycData = parseCustomerResponse("<CustomerResponse xmlns=\"http://credable.io/cbs/customer\">\n" +
-                "    <customer>\n" +
-                "      <createdAt>2024-01-26T12:00:00+00:00</createdAt>\n" +
-                "      <customerNumber>"+customerNumber+"</customerNumber>\n" +
-                "      <firstName>John</firstName>\n" +
-                "      <lastName>Doe</lastName>\n" +
-                "      <monthlyIncome>5000.0</monthlyIncome>\n" +
-                "    </customer>\n" +
-                "  </CustomerResponse>");
+    public Customer subscribeCustomerDeferred(String customerNumber) {
+        OffsetDateTime now = OffsetDateTime.now();
+        UUID customerId = UUID.randomUUID();
+        if (customerRepository.insertPendingIfAbsent(customerId, customerNumber, now) == 0) {
+            throw notClaimed(customerNumber);
+        }
+        enrichKyc(customerNumber);
 
-        return convertObjectToJSON(kycData);
+        Customer customer = new Customer();
+        customer.setCustomerId(customerId);
+        customer.setCustomerNumber(customerNumber);
+        customer.setKycStatus(KycStatus.PENDING_KYC.name());
+        customer.setCreatedAt(now);
+        customer.setUpdatedAt(now);
+        return customer;
     }
 
-    private String generateCustomerRequest(String customerNumber) throws JAXBException {
-        CustomerRequest request = new CustomerRequest();
-        request.setCustomerNumber(customerNumber);
+    @Override
+    public CompletableFuture<Customer> awaitKyc(Customer customer) {
+        String kycStatus = customer.getKycStatus();
+        if (KycStatus.CLAIMED.name().equals(kycStatus)) {
+            return CompletableFuture.failedFuture(new RuntimeException("Customer not subscribed"));
+        }
+        if (!KycStatus.PENDING_KYC.name().equals(kycStatus) && !KycStatus.FAILED.name().equals(kycStatus)) {
+            return CompletableFuture.completedFuture(customer);
+        }
 
-        JAXBContext jaxbContext = JAXBContext.newInstance(CustomerRequest.class);
-        Marshaller marshaller = jaxbContext.createMarshaller();
+        // Joins the enrichment still running, or starts a new one for a customer the worker gave up on
+        // or that was left pending by a restart. The copy keeps the timeout from failing the shared future
+        Duration loanWait = cbsProperties.getEnrichment().getLoanWait();
+        return enrichKyc(customer.getCustomerNumber()).copy()
+                .orTimeout(loanWait.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        throw new CbsUnavailableException("KYC data for customer " + customer.getCustomerNumber()
+                                + " is still being fetched from the CBS", cause);
+                    }
+                    throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                });
+    }
 
-        StringWriter sw = new StringWriter();
-        marshaller.marshal(request, sw);
+    /**
+     * Re-queues the customers still waiting for deferred KYC data when the application starts, since the
+     * worker's queue does not survive a restart. Pages by customer number rather than offset, so customers
+     * whose enrichment finishes during the walk do not shift the pages.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingEnrichments() {
+        String after = "";
+        int resumed = 0;
+        List<Customer> page;
+        do {
+            page = customerRepository.findByKycStatusAndCustomerNumberGreaterThan(KycStatus.PENDING_KYC.name(), after,
+                    PageRequest.of(0, PENDING_KYC_PAGE_SIZE, Sort.by("customerNumber")));
+            for (Customer customer : page) {
+                enrichKyc(customer.getCustomerNumber());
+                after = customer.getCustomerNumber();
+                resumed++;
+            }
+        } while (page.size() == PENDING_KYC_PAGE_SIZE);
+        if (resumed > 0) {
+            logger.info("Resumed deferred KYC enrichment for {} customers", resumed);
+        }
+    }
 
-        return sw.toString();
+    private CompletableFuture<Customer> enrichKyc(String customerNumber) {
+        return kycEnrichmentWorker.enqueue(customerNumber, () -> fetchKycDataAsync(customerNumber));
     }
 
-    private CustomerResponse parseCustomerResponse(String xml) throws JAXBException {
-        JAXBContext jaxbContext = JAXBContext.newInstance(CustomerResponse.class);
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+    @Override
+    public CompletableFuture<List<Outcome>> subscribeCustomers(List<String> customerNumbers) {
+        // De-duplicate while keeping the caller's order, then skip everyone already subscribed in one query
+        Set<String> distinct = new LinkedHashSet<>(customerNumbers);
+        Map<String, Customer> existing = new ConcurrentHashMap<>();
+        for (Customer customer : customerRepository.findByCustomerNumberIn(distinct)) {
+            if (!isClaim(customer)) {
+                existing.put(customer.getCustomerNumber(), customer);
+            }
+        }
 
-        StringReader reader = new StringReader(xml);
+        // Customers this node is already subscribing share that subscription; the rest are claimed in one
+        // statement, the bulk form of the claim a single subscription takes
+        Map<String, CompletableFuture<Customer>> joined = new LinkedHashMap<>();
+        Map<String, UUID> customerIds = new LinkedHashMap<>();
+        for (String customerNumber : distinct) {
+            if (existing.containsKey(customerNumber)) {
+                continue;
+            }
+            CompletableFuture<Customer> inFlight = subscriptionsInFlight.get(customerNumber);
+            if (inFlight != null) {
+                joined.put(customerNumber, inFlight.copy());
+            } else {
+                customerIds.put(customerNumber, UUID.randomUUID());
+            }
+        }
+        OffsetDateTime claimedAt = OffsetDateTime.now();
+        Set<String> claimed = customerIds.isEmpty() ? Set.of() : customerRepository.claimAll(customerIds, claimedAt);
+
+        Map<String, Customer> subscribed = new ConcurrentHashMap<>();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        List<String> lost = customerIds.keySet().stream().filter(customerNumber -> !claimed.contains(customerNumber)).toList();
+        recordLostClaims(lost, existing, failures);
+
+        // Announce the claimed customers, so single subscriptions for them join this batch
+        Map<String, CompletableFuture<Customer>> batchSubscriptions = new LinkedHashMap<>();
+        for (String customerNumber : customerIds.keySet()) {
+            if (claimed.contains(customerNumber)) {
+                CompletableFuture<Customer> subscription = new CompletableFuture<>();
+                if (subscriptionsInFlight.putIfAbsent(customerNumber, subscription) == null) {
+                    subscription.whenComplete((customer, error) -> subscriptionsInFlight.remove(customerNumber, subscription));
+                }
+                batchSubscriptions.put(customerNumber, subscription);
+            }
+        }
 
-        return (CustomerResponse) unmarshaller.unmarshal(reader);
+        Map<String, String> kycData = new ConcurrentHashMap<>();
+        CompletableFuture<Void> fetched = fetchAll(List.copyOf(batchSubscriptions.keySet()), kycData, failures)
+                .thenRun(() -> saveClaimed(batchSubscriptions, customerIds, claimedAt, kycData, subscribed, failures));
+
+        List<CompletableFuture<?>> waits = new ArrayList<>();
+        waits.add(fetched);
+        joined.forEach((customerNumber, subscription) -> waits.add(subscription.handle((customer, error) -> {
+            if (error == null) {
+                subscribed.put(customerNumber, customer);
+            } else {
+                recordFailure(customerNumber, error, existing, failures);
+            }
+            return null;
+        })));
+
+        return CompletableFuture.allOf(waits.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<Outcome> outcomes = new ArrayList<>(distinct.size());
+            for (String customerNumber : distinct) {
+                if (subscribed.containsKey(customerNumber)) {
+                    outcomes.add(new Outcome(customerNumber, Status.SUBSCRIBED, subscribed.get(customerNumber).getCustomerId(), null));
+                } else if (existing.containsKey(customerNumber)) {
+                    outcomes.add(new Outcome(customerNumber, Status.ALREADY_SUBSCRIBED, existing.get(customerNumber).getCustomerId(), null));
+                } else {
+                    outcomes.add(new Outcome(customerNumber, Status.FAILED, null, failureMessage(failures.get(customerNumber))));
+                }
+            }
+            return outcomes;
+        });
     }
 
-    private String convertObjectToJSON(CustomerResponse customerResponse) {
-        // Implement your own logic to convert the CustomerResponse to JSON
-        // For simplicity, we'll return a hardcoded JSON string
-        return "{"
-                + "\"firstName\": \"" + customerResponse.getCustomer().getFirstName() + "\","
-                + "\"lastName\": \"" + customerResponse.getCustomer().getLastName() + "\","
-                + "\"monthlyIncome\": " + customerResponse.getCustomer().getMonthlyIncome() + ","
-                + "\"customerNumber\": \"" + customerResponse.getCustomer().getCustomerNumber() + "\","
-                + "\"createdAt\": \"" + customerResponse.getCustomer().getCreatedAt() + "\""
-                + "}";
+    /**
+     * Fetches the KYC data of every customer, with at most {@code cbs.batch-concurrency} of them waiting
+     * on the CBS at once. Each lane starts the next request when its previous one completes, so no thread
+     * waits on the CBS.
+     */
+    private CompletableFuture<Void> fetchAll(List<String> customerNumbers, Map<String, String> kycData,
+                                             Map<String, Throwable> failures) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (customerNumbers.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(customerNumbers.size());
+        int lanes = Math.min(Math.max(1, cbsProperties.getBatchConcurrency()), customerNumbers.size());
+        for (int i = 0; i < lanes; i++) {
+            fetchNext(customerNumbers, next, remaining, kycData, failures, done);
+        }
+        return done;
     }
 
-    // JAXB Classes for XML marshalling/unmarshalling
-
-    @XmlRootElement(name = "CustomerRequest", namespace = "http://credable.io/cbs/customer")
-    static class CustomerRequest {
-        private String customerNumber;
+    private void fetchNext(List<String> customerNumbers, AtomicInteger next, AtomicInteger remaining,
+                           Map<String, String> kycData, Map<String, Throwable> failures, CompletableFuture<Void> done) {
+        // Requests that fail straight away, such as a full in-flight limit, are handled in this loop rather
+        // than by recursion, so a CBS refusing every request cannot overflow the stack
+        int index;
+        while ((index = next.getAndIncrement()) < customerNumbers.size()) {
+            String customerNumber = customerNumbers.get(index);
+            CompletableFuture<String> kyc;
+            try {
+                kyc = fetchKycData(customerNumber);
+            } catch (JAXBException | RuntimeException e) {
+                kyc = CompletableFuture.failedFuture(e);
+            }
+            BiConsumer<String, Throwable> record = (data, error) -> {
+                if (error == null) {
+                    kycData.put(customerNumber, data);
+                } else {
+                    failures.put(customerNumber, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            };
+            if (!kyc.isDone()) {
+                kyc.whenComplete((data, error) -> {
+                    record.accept(data, error);
+                    fetchNext(customerNumbers, next, remaining, kycData, failures, done);
+                });
+                return;
+            }
+            kyc.whenComplete(record);
+        }
+    }
 
-        public String getCustomerNumber() {
-            return customerNumber;
+    /**
+     * Saves the KYC data of the claimed customers in one {@code saveAll}, releases the claims of those
+     * whose data never arrived, and completes the subscriptions single requests may have joined.
+     */
+    private void saveClaimed(Map<String, CompletableFuture<Customer>> batchSubscriptions, Map<String, UUID> customerIds,
+                             OffsetDateTime claimedAt, Map<String, String> kycData, Map<String, Customer> subscribed,
+                             Map<String, Throwable> failures) {
+        List<Customer> customers = new ArrayList<>();
+        for (String customerNumber : batchSubscriptions.keySet()) {
+            String data = kycData.get(customerNumber);
+            if (data != null) {
+                Customer customer = new Customer();
+                customer.setCustomerId(customerIds.get(customerNumber));
+                customer.setCustomerNumber(customerNumber);
+                customer.setKycData(data); // Store KYC data as JSON
+                customer.setKycFetchedAt(OffsetDateTime.now());
+                customer.setKycStatus(KycStatus.ENRICHED.name());
+                customer.setCreatedAt(claimedAt);
+                customer.setUpdatedAt(OffsetDateTime.now());
+                customers.add(customer);
+            }
+        }
+        if (!customers.isEmpty()) {
+            try {
+                for (Customer customer : customerRepository.saveAll(customers)) {
+                    subscribed.put(customer.getCustomerNumber(), customer);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Could not save {} batch subscriptions", customers.size(), e);
+                customers.forEach(customer -> failures.put(customer.getCustomerNumber(), e));
+            }
         }
 
-        @XmlElement(namespace = "http://credable.io/cbs/customer")
-        public void setCustomerNumber(String customerNumber) {
-            this.customerNumber = customerNumber;
+        List<String> unfinished = batchSubscriptions.keySet().stream()
+                .filter(customerNumber -> !subscribed.containsKey(customerNumber))
+                .toList();
+        if (!unfinished.isEmpty()) {
+            try {
+                customerRepository.deleteUnfinishedClaims(unfinished);
+            } catch (RuntimeException e) {
+                logger.error("Could not release the subscription claims for customers {}", unfinished, e);
+            }
         }
-    }
 
-    @XmlRootElement(name = "CustomerResponse", namespace = "http://credable.io/cbs/customer")
-    static class CustomerResponse {
-        private Customer customer;
+        batchSubscriptions.forEach((customerNumber, subscription) -> {
+            Customer customer = subscribed.get(customerNumber);
+            if (customer != null) {
+                subscription.complete(customer);
+            } else {
+                subscription.completeExceptionally(failures.get(customerNumber));
+            }
+        });
+    }
 
-        public Customer getCustomer() {
-            return customer;
+    /**
+     * Sorts out the customers whose claim another node holds, with one query: subscribed since the
+     * existence check, or still being subscribed there.
+     */
+    private void recordLostClaims(List<String> customerNumbers, Map<String, Customer> existing,
+                                  Map<String, Throwable> failures) {
+        if (customerNumbers.isEmpty()) {
+            return;
         }
-
-        @XmlElement(namespace = "http://credable.io/cbs/customer")
-        public void setCustomer(Customer customer) {
-            this.customer = customer;
+        try {
+            for (Customer customer : customerRepository.findByCustomerNumberIn(customerNumbers)) {
+                if (!isClaim(customer)) {
+                    existing.put(customer.getCustomerNumber(), customer);
+                }
+            }
+        } catch (RuntimeException e) {
+            customerNumbers.forEach(customerNumber -> failures.put(customerNumber, e));
+            return;
+        }
+        for (String customerNumber : customerNumbers) {
+            if (!existing.containsKey(customerNumber)) {
+                failures.put(customerNumber, new CustomerSubscriptionInProgressException());
+            }
         }
+    }
 
-        static class Customer {
-            private String customerNumber;
-            private String firstName;
-            private String lastName;
-            private double monthlyIncome;
-            private String createdAt;
+    private void recordFailure(String customerNumber, Throwable error, Map<String, Customer> existing,
+                               Map<String, Throwable> failures) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof CustomerAlreadySubscribedException)) {
+            failures.put(customerNumber, cause);
+            return;
+        }
+        // Subscribed by someone else since the existence check
+        try {
+            customerRepository.findByCustomerNumber(customerNumber).filter(customer -> !isClaim(customer)).ifPresentOrElse(
+                    current -> existing.put(customerNumber, current),
+                    () -> failures.put(customerNumber, cause));
+        } catch (RuntimeException e) {
+            failures.put(customerNumber, e);
+        }
+    }
 
-            public String getCustomerNumber() {
-                return customerNumber;
-            }
+    private static String failureMessage(Throwable failure) {
+        return failure instanceof JAXBException ? "Error processing CBS response" : String.valueOf(failure.getMessage());
+    }
 
-            @XmlElement(namespace = "http://credable.io/cbs/customer")
-            public void setCustomerNumber(String customerNumber) {
-                this.customerNumber = customerNumber;
-            }
+    @Override
+    public Optional<Customer> findByCustomerNumber(String customerNumber) {
+        // A claimed customer is not subscribed until its KYC data is saved
+        return customerRepository.findByCustomerNumber(customerNumber).filter(customer -> !isClaim(customer));
+    }
 
-            public String getFirstName() {
-                return firstName;
+    @Override
+    public String getCustomerKycData(String customerNumber) throws JAXBException {
+        // Subscribed customers are answered from their stored copy while it is fresh enough
+        Optional<Customer> customer = findByCustomerNumber(customerNumber);
+        try {
+            if (customer.isPresent()) {
+                return kycCache.read(customer.get(), () -> fetchKycDataAsync(customerNumber)).join();
             }
-
-            @XmlElement(namespace = "http://credable.io/cbs/customer")
-            public void setFirstName(String firstName) {
-                this.firstName = firstName;
+            return fetchKycData(customerNumber).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JAXBException jaxbException) {
+                throw jaxbException;
             }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
 
-            public String getLastName() {
-                return lastName;
-            }
+    private static boolean isClaim(Customer customer) {
+        return KycStatus.CLAIMED.name().equals(customer.getKycStatus());
+    }
 
-            @XmlElement(namespace = "http://credable.io/cbs/customer")
-            public void setLastName(String lastName) {
-                this.lastName = lastName;
-            }
+    private CompletableFuture<String> fetchKycDataAsync(String customerNumber) {
+        try {
+            return fetchKycData(customerNumber);
+        } catch (JAXBException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-            public double getMonthlyIncome() {
-                return monthlyIncome;
-            }
+    /**
+     * Asks the CBS for the customer's KYC data through the gateway and converts the reply to JSON.
+     * A full in-flight limit or a missing reply fails with {@link CbsUnavailableException}.
+     */
+    private CompletableFuture<String> fetchKycData(String customerNumber) throws JAXBException {
+        String soapRequest = generateCustomerRequest(customerNumber);
+        CompletableFuture<String> reply;
+        try {
+            reply = cbsGateway.fetchCustomer(soapRequest, customerNumber, cbsProperties.getReplyTimeout().toMillis());
+        } catch (RejectedExecutionException e) {
+            throw new CbsUnavailableException("CBS is busy, too many requests in flight", e);
+        }
 
-            @XmlElement(namespace = "http://credable.io/cbs/customer")
-            public void setMonthlyIncome(double monthlyIncome) {
-                this.monthlyIncome = monthlyIncome;
+        return reply.handle((xml, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof MessageTimeoutException) {
+                    throw new CbsUnavailableException("CBS did not reply within " + cbsProperties.getReplyTimeout(), cause);
+                }
+                if (cause.getCause() instanceof RejectedExecutionException) {
+                    // The SOAP pool is still busy with requests whose callers already gave up
+                    throw new CbsUnavailableException("CBS is busy, too many requests in flight", cause);
+                }
+                throw new CompletionException(cause);
             }
-
-            public String getCreatedAt() {
-                return createdAt;
+            try {
+                return CbsCustomerXml.responseToKycJson(xml);
+            } catch (JAXBException e) {
+                throw new CompletionException(e);
             }
+        });
+    }
 
-            @XmlElement(namespace = "http://credable.io/cbs/customer")
-            public void setCreatedAt(String createdAt) {
-                this.createdAt = createdAt;
-            }
-        }
+    private String generateCustomerRequest(String customerNumber) throws JAXBException {
+        return CbsCustomerXml.marshalRequest(customerNumber);
     }
 }
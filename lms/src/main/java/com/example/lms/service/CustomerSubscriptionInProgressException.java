@@ -0,0 +1,12 @@
+package com.example.lms.service;
+
+/**
+ * Thrown when a customer number is claimed by a subscription that is still waiting for the CBS on another node.
+ * Unlike {@link CustomerAlreadySubscribedException} the customer is not subscribed yet, so the request can be retried.
+ */
+public class CustomerSubscriptionInProgressException extends RuntimeException {
+
+    public CustomerSubscriptionInProgressException() {
+        super("Customer subscription already in progress");
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.lms.service;
+
+import com.example.lms.config.CbsProperties;
+import com.example.lms.entity.Customer;
+import com.example.lms.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Refresh-ahead cache over the KYC data stored on each customer.
+ * <p>
+ * Data younger than {@code refreshAfter} is served as-is. Older data is still served, but also triggers
+ * a background CBS fetch, so a customer read regularly never has to wait for the CBS. Only data older
+ * than {@code maxStaleness} is fetched while the caller waits. Background refreshes are limited to
+ * {@code maxConcurrentRefreshes} at a time and one per customer; reads that find no free slot simply
+ * serve the stored data.
+ */
+@Component
+public class KycCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycCache.class);
+
+    private final CustomerRepository customerRepository;
+    private final CbsProperties.KycCache config;
+    private final Clock clock;
+
+    private final Semaphore refreshPermits;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter freshReads;
+    private final Counter staleReads;
+    private final Counter expiredReads;
+    private final Counter cbsCallsAvoided;
+    private final Counter refreshSucceeded;
+    private final Counter refreshFailed;
+    private final Counter refreshSkipped;
+
+    @Autowired
+    public KycCache(CustomerRepository customerRepository, CbsProperties cbsProperties, MeterRegistry meterRegistry) {
+        this(customerRepository, cbsProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    KycCache(CustomerRepository customerRepository, CbsProperties cbsProperties, MeterRegistry meterRegistry, Clock clock) {
+        this.customerRepository = customerRepository;
+        this.config = cbsProperties.getKycCache();
+        this.clock = clock;
+        this.refreshPermits = new Semaphore(Math.max(1, config.getMaxConcurrentRefreshes()));
+
+        this.freshReads = readCounter(meterRegistry, "fresh");
+        this.staleReads = readCounter(meterRegistry, "stale");
+        this.expiredReads = readCounter(meterRegistry, "expired");
+        this.cbsCallsAvoided = Counter.builder("kyc.cache.cbs.calls.avoided")
+                .description("KYC reads answered from stored data instead of waiting for the CBS")
+                .register(meterRegistry);
+        this.refreshSucceeded = refreshCounter(meterRegistry, "success");
+        this.refreshFailed = refreshCounter(meterRegistry, "failure");
+        this.refreshSkipped = refreshCounter(meterRegistry, "skipped");
+        Gauge.builder("kyc.cache.refreshes.in.flight", refreshing, Set::size)
+                .description("Background KYC refreshes currently waiting on the CBS")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the customer's KYC data, calling {@code fetch} for a CBS copy when the stored one has aged.
+     * The returned future is already complete unless the stored data is past the staleness budget.
+     */
+    public CompletableFuture<String> read(Customer customer, Supplier<CompletableFuture<String>> fetch) {
+        Duration age = age(customer);
+
+        if (age != null && age.compareTo(config.getMaxStaleness()) < 0) {
+            cbsCallsAvoided.increment();
+            if (age.compareTo(config.getRefreshAfter()) < 0) {
+                freshReads.increment();
+            } else {
+                staleReads.increment();
+                refreshAhead(customer.getCustomerNumber(), fetch);
+            }
+            return CompletableFuture.completedFuture(customer.getKycData());
+        }
+
+        expiredReads.increment();
+        return fetch.get().thenApply(kycData -> {
+            store(customer.getCustomerNumber(), kycData);
+            return kycData;
+        });
+    }
+
+    private void refreshAhead(String customerNumber, Supplier<CompletableFuture<String>> fetch) {
+        if (!refreshing.add(customerNumber)) {
+            // Already being refreshed by an earlier read
+            return;
+        }
+        if (!refreshPermits.tryAcquire()) {
+            refreshing.remove(customerNumber);
+            refreshSkipped.increment();
+            return;
+        }
+
+        CompletableFuture<String> refresh;
+        try {
+            refresh = fetch.get();
+        } catch (RuntimeException e) {
+            refresh = CompletableFuture.failedFuture(e);
+        }
+        refresh.thenAccept(kycData -> store(customerNumber, kycData))
+                .whenComplete((ignored, error) -> {
+                    refreshPermits.release();
+                    refreshing.remove(customerNumber);
+                    if (error == null) {
+                        refreshSucceeded.increment();
+                    } else {
+                        refreshFailed.increment();
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        logger.warn("Background KYC refresh failed for customer {}: {}", customerNumber, cause.toString());
+                    }
+                });
+    }
+
+    private void store(String customerNumber, String kycData) {
+        customerRepository.findByCustomerNumber(customerNumber).ifPresent(customer -> {
+            customer.setKycData(kycData);
+            customer.setKycFetchedAt(OffsetDateTime.now(clock));
+            customerRepository.save(customer);
+        });
+    }
+
+    private Duration age(Customer customer) {
+        if (customer.getKycData() == null) {
+            return null;
+        }
+        // Customers subscribed before kyc_fetched_at existed were fetched when last written
+        OffsetDateTime fetchedAt = customer.getKycFetchedAt() != null ? customer.getKycFetchedAt() : customer.getUpdatedAt();
+        return fetchedAt == null ? null : Duration.between(fetchedAt.toInstant(), clock.instant());
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("kyc.cache.reads")
+                .description("KYC reads by the age of the stored data")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("kyc.cache.refreshes")
+                .description("Background KYC refreshes by outcome; skipped means no refresh slot was free")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
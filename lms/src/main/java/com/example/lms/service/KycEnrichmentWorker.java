@@ -0,0 +1,192 @@
+package com.example.lms.service;
+
+import com.example.lms.config.CbsProperties;
+import com.example.lms.entity.Customer;
+import com.example.lms.entity.KycStatus;
+import com.example.lms.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Background queue that fills in the KYC data of customers subscribed with deferred KYC.
+ * <p>
+ * At most {@code concurrency} CBS fetches are in flight; the rest wait in the queue. A failed fetch is
+ * retried after an exponential backoff, and after {@code maxAttempts} the customer is marked FAILED.
+ * Each customer is enriched at most once at a time, so a loan application waiting for the data joins
+ * the enrichment already running instead of starting another. Fetch results are stored on
+ * {@code kycEnrichmentExecutor}, never on the CBS thread that completed the fetch.
+ */
+@Component
+public class KycEnrichmentWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycEnrichmentWorker.class);
+
+    private final CustomerRepository customerRepository;
+    private final CbsProperties.Enrichment config;
+    private final TaskScheduler kycEnrichmentScheduler;
+    private final Executor kycEnrichmentExecutor;
+    private final Clock clock;
+
+    private final Queue<Job> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore slots;
+    private final Map<String, CompletableFuture<Customer>> enrichments = new ConcurrentHashMap<>();
+
+    private final Counter enriched;
+    private final Counter retried;
+    private final Counter failed;
+
+    @Autowired
+    public KycEnrichmentWorker(CustomerRepository customerRepository, CbsProperties cbsProperties,
+                               TaskScheduler kycEnrichmentScheduler, Executor kycEnrichmentExecutor,
+                               MeterRegistry meterRegistry) {
+        this(customerRepository, cbsProperties, kycEnrichmentScheduler, kycEnrichmentExecutor, meterRegistry,
+                Clock.systemUTC());
+    }
+
+    KycEnrichmentWorker(CustomerRepository customerRepository, CbsProperties cbsProperties,
+                        TaskScheduler kycEnrichmentScheduler, Executor kycEnrichmentExecutor,
+                        MeterRegistry meterRegistry, Clock clock) {
+        this.customerRepository = customerRepository;
+        this.config = cbsProperties.getEnrichment();
+        this.kycEnrichmentScheduler = kycEnrichmentScheduler;
+        this.kycEnrichmentExecutor = kycEnrichmentExecutor;
+        this.clock = clock;
+        this.slots = new Semaphore(Math.max(1, config.getConcurrency()));
+
+        this.enriched = attemptCounter(meterRegistry, "success");
+        this.retried = attemptCounter(meterRegistry, "retry");
+        this.failed = attemptCounter(meterRegistry, "failed");
+        Gauge.builder("kyc.enrichment.pending", enrichments, Map::size)
+                .description("Customers whose deferred KYC enrichment has not finished")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the customer for enrichment with KYC data from {@code fetch}, or joins the enrichment already
+     * queued for them. The returned future completes with the enriched customer, or fails once every
+     * attempt has failed.
+     */
+    public CompletableFuture<Customer> enqueue(String customerNumber, Supplier<CompletableFuture<String>> fetch) {
+        CompletableFuture<Customer> enrichment = new CompletableFuture<>();
+        CompletableFuture<Customer> inFlight = enrichments.putIfAbsent(customerNumber, enrichment);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        enrichment.whenComplete((customer, error) -> enrichments.remove(customerNumber, enrichment));
+
+        queue.add(new Job(customerNumber, fetch, enrichment, 1));
+        drain();
+        return enrichment;
+    }
+
+    private void drain() {
+        // Re-checks the queue after giving a slot back, so a job queued meanwhile is never left behind
+        while (!queue.isEmpty() && slots.tryAcquire()) {
+            Job job = queue.poll();
+            if (job == null) {
+                slots.release();
+                continue;
+            }
+            attempt(job);
+        }
+    }
+
+    private void attempt(Job job) {
+        CompletableFuture<String> fetch;
+        try {
+            fetch = job.fetch().get();
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        // The fetch completes on a CBS thread; the JPA work below must not hold it
+        fetch.whenCompleteAsync((kycData, error) -> {
+            slots.release();
+            if (error == null) {
+                complete(job, kycData);
+            } else {
+                retryOrFail(job, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+            drain();
+        }, kycEnrichmentExecutor);
+    }
+
+    private void complete(Job job, String kycData) {
+        try {
+            Customer customer = customerRepository.findByCustomerNumber(job.customerNumber())
+                    .orElseThrow(() -> new RuntimeException("Customer not found"));
+            customer.setKycData(kycData);
+            customer.setKycFetchedAt(OffsetDateTime.now(clock));
+            customer.setKycStatus(KycStatus.ENRICHED.name());
+            Customer saved = customerRepository.save(customer);
+            enriched.increment();
+            job.enrichment().complete(saved);
+        } catch (RuntimeException e) {
+            logger.error("Could not store KYC data for customer {}", job.customerNumber(), e);
+            job.enrichment().completeExceptionally(e);
+        }
+    }
+
+    private void retryOrFail(Job job, Throwable cause) {
+        if (job.attempt() < config.getMaxAttempts()) {
+            Duration backoff = backoff(job.attempt());
+            retried.increment();
+            logger.warn("KYC enrichment attempt {} failed for customer {}, retrying in {}: {}",
+                    job.attempt(), job.customerNumber(), backoff, cause.toString());
+            Job next = new Job(job.customerNumber(), job.fetch(), job.enrichment(), job.attempt() + 1);
+            kycEnrichmentScheduler.schedule(() -> {
+                queue.add(next);
+                drain();
+            }, clock.instant().plus(backoff));
+            return;
+        }
+
+        failed.increment();
+        logger.error("KYC enrichment gave up on customer {} after {} attempts: {}",
+                job.customerNumber(), job.attempt(), cause.toString());
+        try {
+            customerRepository.findByCustomerNumber(job.customerNumber()).ifPresent(customer -> {
+                customer.setKycStatus(KycStatus.FAILED.name());
+                customerRepository.save(customer);
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not mark KYC enrichment failed for customer {}", job.customerNumber(), e);
+        }
+        job.enrichment().completeExceptionally(cause);
+    }
+
+    private Duration backoff(int attempt) {
+        // Doubles per attempt; the shift is capped so a large max-attempts cannot overflow it
+        Duration backoff = config.getInitialBackoff().multipliedBy(1L << Math.min(attempt - 1, 20));
+        return backoff.compareTo(config.getMaxBackoff()) > 0 ? config.getMaxBackoff() : backoff;
+    }
+
+    private static Counter attemptCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("kyc.enrichment.attempts")
+                .description("Deferred KYC fetch attempts by outcome; failed means the customer was given up on")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Job(String customerNumber, Supplier<CompletableFuture<String>> fetch,
+                       CompletableFuture<Customer> enrichment, int attempt) {
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.lms.service;
 
 import com.example.lms.entity.Loan;
+import com.example.lms.entity.LoanStatus;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface LoanService {
-    Loan createLoanApplication(String customerNumber, Double amount);
+    // Completes once a customer still waiting for deferred KYC data has it, without holding the caller's thread
+    CompletableFuture<Loan> createLoanApplication(String customerNumber, Double amount);
     Optional<Loan> getLoanStatus(UUID loanId);
     // This method would normally call the Scoring Engine to get score and limit
     void updateLoanWithScoreAndLimit(Loan loan, Double score, Double limit);
+    // Moves a loan to a terminal or review status without a score, e.g. when scoring times out
+    void updateLoanStatus(Loan loan, LoanStatus status, String reason);
 }
@@ -11,6 +11,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -20,11 +21,17 @@ public class LoanServiceImpl implements LoanService {
     private final CustomerService customerService;
 
     @Override
-    public Loan createLoanApplication(String customerNumber, Double amount) {
+    public CompletableFuture<Loan> createLoanApplication(String customerNumber, Double amount) {
         // Find customer or throw exception
         Customer customer = customerService.findByCustomerNumber(customerNumber)
                 .orElseThrow(() -> new RuntimeException("Customer not subscribed"));
 
+        // A customer subscribed with deferred KYC may still be waiting for it; only then does the application wait,
+        // and it waits on the enrichment rather than on a thread
+        return customerService.awaitKyc(customer).thenApply(enriched -> createLoan(enriched, amount));
+    }
+
+    private Loan createLoan(Customer customer, Double amount) {
         // Check if customer has existing loan applications in progress
         List<String> activeStatuses = Arrays.asList(
                 LoanStatus.PENDING.name(),
@@ -70,4 +77,12 @@ public class LoanServiceImpl implements LoanService {
 
         loanRepository.save(loan);
     }
+
+    @Override
+    public void updateLoanStatus(Loan loan, LoanStatus status, String reason) {
+        loan.setStatus(status.name());
+        loan.setRejectionReason(reason);
+
+        loanRepository.save(loan);
+    }
 }
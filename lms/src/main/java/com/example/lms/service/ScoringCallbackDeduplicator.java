@@ -0,0 +1,115 @@
+package com.example.lms.service;
+
+import com.example.lms.config.ScoringEngineProperties;
+import com.example.lms.entity.Loan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the outcome of recently processed scoring callbacks by token, so a redelivered callback
+ * is answered with the original result instead of repeating the token lookup and database work.
+ * <p>
+ * Entries are kept in arrival order and dropped once older than the window or when the map is full.
+ * A bounded map is used rather than a Bloom filter because a duplicate has to be answered with the
+ * original loan, and a false positive would silently drop a first delivery.
+ */
+@Component
+public class ScoringCallbackDeduplicator {
+
+    private final long windowNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<String, Seen> seen;
+    private final Counter firstDeliveries;
+    private final Counter duplicateDeliveries;
+
+    @Autowired
+    public ScoringCallbackDeduplicator(ScoringEngineProperties scoringEngineProperties, MeterRegistry meterRegistry) {
+        this(scoringEngineProperties, meterRegistry, System::nanoTime);
+    }
+
+    ScoringCallbackDeduplicator(ScoringEngineProperties scoringEngineProperties, MeterRegistry meterRegistry,
+                                LongSupplier clock) {
+        ScoringEngineProperties.CallbackDedup config = scoringEngineProperties.getCallbackDedup();
+        this.windowNanos = config.getWindow().toNanos();
+        this.maxEntries = config.getMaxEntries();
+        this.clock = clock;
+        this.seen = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Seen> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.firstDeliveries = deliveryCounter(meterRegistry, "first");
+        this.duplicateDeliveries = deliveryCounter(meterRegistry, "duplicate");
+        Gauge.builder("scoring.callback.seen.size", this, ScoringCallbackDeduplicator::size)
+                .description("Callback tokens currently remembered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims a token for processing.
+     *
+     * @return {@code null} if this is the first delivery and the caller should process it and settle
+     *         {@code attempt}; otherwise the outcome of the earlier delivery, which may still be in progress
+     */
+    public synchronized CompletableFuture<Loan> claim(String token, CompletableFuture<Loan> attempt) {
+        long now = clock.getAsLong();
+        expire(now);
+        Seen earlier = seen.get(token);
+        if (earlier != null) {
+            duplicateDeliveries.increment();
+            return earlier.outcome;
+        }
+        seen.put(token, new Seen(attempt, now));
+        firstDeliveries.increment();
+        return null;
+    }
+
+    /**
+     * Forgets a delivery that failed, so a later delivery of the same token is processed again.
+     */
+    public synchronized void release(String token, CompletableFuture<Loan> attempt) {
+        Seen current = seen.get(token);
+        if (current != null && current.outcome == attempt) {
+            seen.remove(token);
+        }
+    }
+
+    synchronized int size() {
+        return seen.size();
+    }
+
+    private void expire(long now) {
+        Iterator<Seen> oldestFirst = seen.values().iterator();
+        while (oldestFirst.hasNext() && now - oldestFirst.next().seenAt > windowNanos) {
+            oldestFirst.remove();
+        }
+    }
+
+    private static Counter deliveryCounter(MeterRegistry meterRegistry, String delivery) {
+        return Counter.builder("scoring.callback.deliveries")
+                .description("Scoring callbacks received, split into first deliveries and duplicates")
+                .tag("delivery", delivery)
+                .register(meterRegistry);
+    }
+
+    private static final class Seen {
+        private final CompletableFuture<Loan> outcome;
+        private final long seenAt;
+
+        private Seen(CompletableFuture<Loan> outcome, long seenAt) {
+            this.outcome = outcome;
+            this.seenAt = seenAt;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.lms.service;
+
+import com.example.lms.config.ScoringEngineProperties;
+import com.example.lms.dto.ScoringTraceResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records when each scoring token passes through the flow and turns the gaps into histograms:
+ * <ul>
+ *     <li>{@code dispatch}: initiation to the Scoring Engine accepting the request</li>
+ *     <li>{@code engine}: engine acceptance to the callback arriving</li>
+ *     <li>{@code decision}: callback arrival to the loan decision being persisted</li>
+ *     <li>{@code end_to_end}: initiation to the decision being persisted</li>
+ * </ul>
+ * The slowest completed scorings and those whose callback never came are kept for the admin endpoint.
+ */
+@Component
+public class ScoringLatencyTracker {
+
+    private final ScoringEngineProperties scoringEngineProperties;
+    private final Clock clock;
+
+    private final Map<String, Trace> inFlight = new ConcurrentHashMap<>();
+    private final Deque<ScoringTraceResponse> outliers = new ArrayDeque<>();
+    private final Deque<ScoringTraceResponse> lost = new ArrayDeque<>();
+    private volatile Instant lastSweep;
+
+    private final Timer dispatchLatency;
+    private final Timer engineLatency;
+    private final Timer decisionLatency;
+    private final Timer endToEndLatency;
+    private final Counter lostCallbacks;
+
+    @Autowired
+    public ScoringLatencyTracker(ScoringEngineProperties scoringEngineProperties, MeterRegistry meterRegistry) {
+        this(scoringEngineProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    ScoringLatencyTracker(ScoringEngineProperties scoringEngineProperties, MeterRegistry meterRegistry, Clock clock) {
+        this.scoringEngineProperties = scoringEngineProperties;
+        this.clock = clock;
+        this.lastSweep = clock.instant();
+        this.dispatchLatency = stageTimer(meterRegistry, "dispatch");
+        this.engineLatency = stageTimer(meterRegistry, "engine");
+        this.decisionLatency = stageTimer(meterRegistry, "decision");
+        this.endToEndLatency = stageTimer(meterRegistry, "end_to_end");
+        this.lostCallbacks = Counter.builder("scoring.callbacks.lost")
+                .description("Scorings that never produced a decision")
+                .register(meterRegistry);
+    }
+
+    public void initiated(String token, String customerNumber, UUID loanId) {
+        Instant now = clock.instant();
+        inFlight.put(token, new Trace(token, customerNumber, loanId, now));
+        // Ad-hoc score queries have no deadline of their own, so overdue tokens are swept up here
+        if (Duration.between(lastSweep, now).compareTo(scoringEngineProperties.getCallbackTimeout()) > 0) {
+            sweep(now);
+        }
+    }
+
+    public void engineAccepted(String token) {
+        Trace trace = inFlight.get(token);
+        if (trace != null && trace.engineAcceptedAt == null) {
+            trace.engineAcceptedAt = clock.instant();
+        }
+    }
+
+    public void callbackReceived(String token) {
+        Trace trace = inFlight.get(token);
+        if (trace != null) {
+            trace.callbackReceivedAt = clock.instant();
+        }
+    }
+
+    public void decisionPersisted(String token) {
+        Trace trace = inFlight.remove(token);
+        if (trace == null) {
+            return;
+        }
+        trace.decisionPersistedAt = clock.instant();
+
+        // The engine can call back before its response to the request itself has been seen
+        if (trace.engineAcceptedAt != null) {
+            dispatchLatency.record(Duration.between(trace.initiatedAt, trace.engineAcceptedAt));
+            if (trace.callbackReceivedAt != null) {
+                engineLatency.record(Duration.between(trace.engineAcceptedAt, trace.callbackReceivedAt));
+            }
+        }
+        if (trace.callbackReceivedAt != null) {
+            decisionLatency.record(Duration.between(trace.callbackReceivedAt, trace.decisionPersistedAt));
+        }
+        Duration endToEnd = Duration.between(trace.initiatedAt, trace.decisionPersistedAt);
+        endToEndLatency.record(endToEnd);
+
+        if (endToEnd.compareTo(scoringEngineProperties.getLatency().getSla()) > 0) {
+            retain(outliers, trace.toResponse(null));
+        }
+    }
+
+    public void lost(String token, String reason) {
+        Trace trace = inFlight.remove(token);
+        if (trace != null) {
+            lostCallbacks.increment();
+            retain(lost, trace.toResponse(reason));
+        }
+    }
+
+    /**
+     * Completed scorings that took longer than the SLA, most recent first.
+     */
+    public List<ScoringTraceResponse> getOutliers() {
+        return snapshot(outliers);
+    }
+
+    /**
+     * Scorings whose callback never arrived or could not be applied, most recent first.
+     */
+    public List<ScoringTraceResponse> getLostCallbacks() {
+        sweep(clock.instant());
+        return snapshot(lost);
+    }
+
+    private void sweep(Instant now) {
+        lastSweep = now;
+        Duration timeout = scoringEngineProperties.getCallbackTimeout();
+        Instant cutoff = now.minus(timeout);
+        inFlight.values().stream()
+                .filter(trace -> trace.callbackReceivedAt == null && trace.initiatedAt.isBefore(cutoff))
+                .map(trace -> trace.token)
+                .toList()
+                .forEach(token -> lost(token, "Callback not received within " + timeout));
+    }
+
+    private void retain(Deque<ScoringTraceResponse> traces, ScoringTraceResponse trace) {
+        synchronized (traces) {
+            traces.addFirst(trace);
+            while (traces.size() > scoringEngineProperties.getLatency().getMaxRetained()) {
+                traces.removeLast();
+            }
+        }
+    }
+
+    private static List<ScoringTraceResponse> snapshot(Deque<ScoringTraceResponse> traces) {
+        synchronized (traces) {
+            return new ArrayList<>(traces);
+        }
+    }
+
+    private Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        // The SLA is added as a bucket boundary so the share of scorings within it can be read off directly
+        return Timer.builder("scoring.latency")
+                .description("Time spent in each stage of the scoring flow")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(scoringEngineProperties.getLatency().getSla())
+                .register(meterRegistry);
+    }
+
+    private static final class Trace {
+        private final String token;
+        private final String customerNumber;
+        private final UUID loanId;
+        private final Instant initiatedAt;
+        private volatile Instant engineAcceptedAt;
+        private volatile Instant callbackReceivedAt;
+        private volatile Instant decisionPersistedAt;
+
+        private Trace(String token, String customerNumber, UUID loanId, Instant initiatedAt) {
+            this.token = token;
+            this.customerNumber = customerNumber;
+            this.loanId = loanId;
+            this.initiatedAt = initiatedAt;
+        }
+
+        private ScoringTraceResponse toResponse(String reason) {
+            Long endToEndMs = decisionPersistedAt != null
+                    ? Duration.between(initiatedAt, decisionPersistedAt).toMillis()
+                    : null;
+            return new ScoringTraceResponse(token, customerNumber, loanId, initiatedAt, engineAcceptedAt,
+                    callbackReceivedAt, decisionPersistedAt, endToEndMs, reason);
+        }
+    }
+}
@@ -2,15 +2,16 @@ package com.example.lms.service;
 
 import com.example.lms.entity.Loan;
 
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface ScoringService {
     /**
      * Initiates a score query for a customer
      * @param customerNumber The customer number
-     * @return A token to track the score query
+     * @return A future completed with a token to track the score query once the Scoring Engine has
+     *         accepted it, without holding the calling thread while the request is queued
      */
-    String initiateScoreQuery(String customerNumber);
+    CompletableFuture<String> initiateScoreQuery(String customerNumber);
     
     /**
      * Processes a scoring callback from the Scoring Engine
@@ -22,8 +23,10 @@ public interface ScoringService {
     Loan processScoreCallback(String token, Double score, Double limit);
     
     /**
-     * Initiates the scoring process for a loan
+     * Initiates the scoring process for a loan without waiting for the result
      * @param loan The loan to score
+     * @return A future completed with the updated loan once the callback arrives,
+     *         or once the callback deadline passes and the timeout policy has been applied
      */
-    void scoreLoan(Loan loan);
+    CompletableFuture<Loan> scoreLoan(Loan loan);
 }
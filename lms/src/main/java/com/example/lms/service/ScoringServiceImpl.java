@@ -1,99 +1,261 @@
 package com.example.lms.service;
 
-import com.example.lms.client.ScoringEngineClient;
+import com.example.lms.client.ScoringDispatchQueue;
+import com.example.lms.client.ScoringPriority;
+import com.example.lms.client.ScoringEngineUnavailableException;
+import com.example.lms.config.ScoringEngineProperties;
+import com.example.lms.config.ScoringEngineProperties.TimeoutPolicy;
 import com.example.lms.entity.Loan;
 import com.example.lms.entity.LoanStatus;
 import com.example.lms.repository.LoanRepository;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 @Service
 @RequiredArgsConstructor
 public class ScoringServiceImpl implements ScoringService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ScoringServiceImpl.class);
+
     private final CustomerService customerService;
     private final LoanService loanService;
     private final LoanRepository loanRepository;
-    private final ScoringEngineClient scoringEngineClient;
-    
+    private final ScoringDispatchQueue scoringDispatchQueue;
+    private final ScoringEngineProperties scoringEngineProperties;
+    private final ScoringCallbackDeduplicator scoringCallbackDeduplicator;
+    private final ScoringLatencyTracker scoringLatencyTracker;
+    private final TaskScheduler scoringScheduler;
+
     // In-memory store to track scoring requests by token
     // In a production environment, this should be stored in a database
     private final Map<String, String> tokenToCustomerMap = new ConcurrentHashMap<>();
 
+    // Loans scored through scoreLoan that are still waiting for their callback, keyed by token
+    private final Map<String, PendingScore> pendingScores = new ConcurrentHashMap<>();
+
     @Override
-    public String initiateScoreQuery(String customerNumber) {
+    public CompletableFuture<String> initiateScoreQuery(String customerNumber) {
         // Validate customer exists
         customerService.findByCustomerNumber(customerNumber)
                 .orElseThrow(() -> new RuntimeException("Customer not found"));
-        
+
         // Generate a unique token
         String token = UUID.randomUUID().toString();
-        
+
         // Store the mapping of token to customer number
         tokenToCustomerMap.put(token, customerNumber);
-        
-        // Call the scoring engine to initiate scoring
-        Map<String, Object> request = new HashMap<>();
-        request.put("customerNumber", customerNumber);
-        request.put("token", token);
-        
-        try {
-            scoringEngineClient.getScore(request);
-            return token;
-        } catch (Exception e) {
-            tokenToCustomerMap.remove(token);
-            throw new RuntimeException("Failed to initiate score query: " + e.getMessage(), e);
-        }
+        scoringLatencyTracker.initiated(token, customerNumber, null);
+
+        // Call the scoring engine to initiate scoring; no thread waits while the request is queued or in flight
+        return scoringDispatchQueue.submit(ScoringPriority.RESCORE, createScoreRequest(customerNumber, token))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        scoringLatencyTracker.engineAccepted(token);
+                        return token;
+                    }
+                    tokenToCustomerMap.remove(token);
+                    Throwable cause = unwrap(error);
+                    scoringLatencyTracker.lost(token, "Dispatch failed: " + cause.getMessage());
+                    if (cause instanceof ScoringEngineUnavailableException unavailable) {
+                        throw unavailable;
+                    }
+                    throw new RuntimeException("Failed to initiate score query: " + cause.getMessage(), cause);
+                });
     }
 
     @Override
     public Loan processScoreCallback(String token, Double score, Double limit) {
+        // The engine sometimes redelivers a callback; only the first delivery does any work,
+        // later ones get the same answer from memory
+        CompletableFuture<Loan> attempt = new CompletableFuture<>();
+        CompletableFuture<Loan> earlier = scoringCallbackDeduplicator.claim(token, attempt);
+        if (earlier != null) {
+            try {
+                return earlier.join();
+            } catch (CompletionException e) {
+                throw unwrap(e) instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        scoringLatencyTracker.callbackReceived(token);
+        try {
+            Loan loan = applyScoreCallback(token, score, limit);
+            scoringLatencyTracker.decisionPersisted(token);
+            attempt.complete(loan);
+            return loan;
+        } catch (RuntimeException e) {
+            scoringLatencyTracker.lost(token, "Callback could not be applied: " + e.getMessage());
+            scoringCallbackDeduplicator.release(token, attempt);
+            attempt.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Loan applyScoreCallback(String token, Double score, Double limit) {
         // Validate token exists
         if (!tokenToCustomerMap.containsKey(token)) {
             throw new RuntimeException("Invalid token");
         }
-        
+
         // Get the customer number from the token
         String customerNumber = tokenToCustomerMap.get(token);
-        
-        // Find the customer's pending loan
-        Loan pendingLoan = loanRepository.findByCustomer(customerService.findByCustomerNumber(customerNumber)
-                .orElseThrow(() -> new RuntimeException("Customer not found"))).stream()
-                .filter(loan -> LoanStatus.PENDING.name().equals(loan.getStatus()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("No pending loan found for customer"));
-        
+
+        // A loan dispatched by scoreLoan is already known; otherwise find the customer's pending loan.
+        // Removing the pending entry first means a racing deadline cannot also settle this loan.
+        PendingScore pending = pendingScores.remove(token);
+        Loan pendingLoan;
+        if (pending != null) {
+            pending.cancelDeadline();
+            pendingLoan = pending.loan;
+        } else {
+            pendingLoan = loanRepository.findByCustomer(customerService.findByCustomerNumber(customerNumber)
+                    .orElseThrow(() -> new RuntimeException("Customer not found"))).stream()
+                    .filter(loan -> LoanStatus.PENDING.name().equals(loan.getStatus()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("No pending loan found for customer"));
+        }
+
         // Update the loan with score and limit
-        loanService.updateLoanWithScoreAndLimit(pendingLoan, score, limit);
-        
-        // Clean up the token mapping
-        tokenToCustomerMap.remove(token);
-        
+        try {
+            loanService.updateLoanWithScoreAndLimit(pendingLoan, score, limit);
+        } catch (RuntimeException e) {
+            if (pending != null) {
+                pending.future.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            // Clean up the token mapping
+            tokenToCustomerMap.remove(token);
+        }
+
+        if (pending != null) {
+            pending.future.complete(pendingLoan);
+        }
         return pendingLoan;
     }
-    
+
     @Override
-    public void scoreLoan(Loan loan) {
-        // This method initiates the scoring process for a loan
-        // In a real implementation, this would call the Scoring Engine asynchronously
-        // For now, we'll use mock values for demonstration purposes
-        
+    public CompletableFuture<Loan> scoreLoan(Loan loan) {
+        // The engine answers through the callback endpoint, so all this does is hand the
+        // request to the dispatch queue and arm a deadline; the calling thread returns at once.
+        PendingScore pending = new PendingScore(loan);
+        dispatch(pending);
+        return pending.future;
+    }
+
+    private void dispatch(PendingScore pending) {
+        String customerNumber = pending.loan.getCustomer().getCustomerNumber();
+        String token = UUID.randomUUID().toString();
+        pending.attempts++;
+
+        tokenToCustomerMap.put(token, customerNumber);
+        pendingScores.put(token, pending);
+        scoringLatencyTracker.initiated(token, customerNumber, pending.loan.getLoanId());
+        pending.deadline = scoringScheduler.schedule(() -> onDeadline(token),
+                Instant.now().plus(scoringEngineProperties.getCallbackTimeout()));
+
         try {
-            // In a real implementation, we would call initiateScoreQuery with the customer number
-            // and wait for a callback from the Scoring Engine
-            // For demonstration, we'll directly update the loan with mock values
-            double mockScore = 750.0; // Mock score
-            double mockLimit = 10000.0; // Mock limit
-            
-            // Update the loan with the mock score and limit
-            loanService.updateLoanWithScoreAndLimit(loan, mockScore, mockLimit);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to score loan: " + e.getMessage(), e);
+            scoringDispatchQueue.submit(ScoringPriority.NEW_APPLICATION, createScoreRequest(customerNumber, token))
+                    .whenComplete((response, error) -> {
+                        if (error != null) {
+                            logger.warn("Scoring dispatch failed for loan {}: {}", pending.loan.getLoanId(), unwrap(error).toString());
+                            scoringLatencyTracker.lost(token, "Dispatch failed: " + unwrap(error).getMessage());
+                            onDeadline(token);
+                        } else {
+                            scoringLatencyTracker.engineAccepted(token);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            logger.warn("Scoring dispatch rejected for loan {}: {}", pending.loan.getLoanId(), e.getMessage());
+            scoringLatencyTracker.lost(token, "Dispatch failed: " + e.getMessage());
+            onDeadline(token);
+        }
+    }
+
+    /**
+     * Applies the configured timeout policy to a loan whose callback did not arrive,
+     * either because the deadline passed or because the request never reached the engine.
+     */
+    private void onDeadline(String token) {
+        PendingScore pending = pendingScores.remove(token);
+        if (pending == null) {
+            // The callback got there first
+            return;
+        }
+        tokenToCustomerMap.remove(token);
+        pending.cancelDeadline();
+        scoringLatencyTracker.lost(token, "Callback not received within " + scoringEngineProperties.getCallbackTimeout());
+
+        TimeoutPolicy policy = scoringEngineProperties.getTimeoutPolicy();
+        if (policy == TimeoutPolicy.RETRY && pending.attempts <= scoringEngineProperties.getMaxRetries()) {
+            // Backs off instead of re-dispatching at once, so a failing engine is not hit again straight away
+            Duration backoff = retryBackoff(pending.attempts);
+            logger.info("Re-dispatching scoring for loan {} in {} (attempt {})", pending.loan.getLoanId(), backoff,
+                    pending.attempts + 1);
+            scoringScheduler.schedule(() -> dispatch(pending), Instant.now().plus(backoff));
+            return;
+        }
+
+        try {
+            if (policy == TimeoutPolicy.MANUAL_REVIEW) {
+                loanService.updateLoanStatus(pending.loan, LoanStatus.MANUAL_REVIEW,
+                        "Scoring result not received in time, referred for manual review");
+            } else {
+                loanService.updateLoanStatus(pending.loan, LoanStatus.EXPIRED,
+                        "Scoring result not received in time");
+            }
+            pending.future.complete(pending.loan);
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private Duration retryBackoff(int attempt) {
+        // Doubles per attempt; the shift is capped so a large max-retries cannot overflow it
+        Duration backoff = scoringEngineProperties.getRetryBackoff().multipliedBy(1L << Math.min(attempt - 1, 20));
+        Duration maxBackoff = scoringEngineProperties.getMaxRetryBackoff();
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private Map<String, Object> createScoreRequest(String customerNumber, String token) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("customerNumber", customerNumber);
+        request.put("token", token);
+        return request;
+    }
+
+    private static final class PendingScore {
+        private final Loan loan;
+        private final CompletableFuture<Loan> future = new CompletableFuture<>();
+        private int attempts;
+        private volatile ScheduledFuture<?> deadline;
+
+        private PendingScore(Loan loan) {
+            this.loan = loan;
+        }
+
+        private void cancelDeadline() {
+            ScheduledFuture<?> scheduled = deadline;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
         }
     }
 }
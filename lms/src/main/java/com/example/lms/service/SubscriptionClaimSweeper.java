@@ -0,0 +1,73 @@
+package com.example.lms.service;
+
+import com.example.lms.config.CbsProperties;
+import com.example.lms.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Deletes subscription claims that were never completed, so a customer number claimed by a node that
+ * crashed or was redeployed before the CBS answered can be subscribed again.
+ * <p>
+ * A live subscription saves or releases its claim within the CBS reply timeout. Claims are swept once
+ * they are twice that old, so a reply that arrived just in time still has room to be saved.
+ */
+@Component
+public class SubscriptionClaimSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionClaimSweeper.class);
+
+    private final CustomerRepository customerRepository;
+    private final CbsProperties cbsProperties;
+    private final TaskScheduler kycEnrichmentScheduler;
+    private final Clock clock;
+
+    @Autowired
+    public SubscriptionClaimSweeper(CustomerRepository customerRepository, CbsProperties cbsProperties,
+                                    TaskScheduler kycEnrichmentScheduler) {
+        this(customerRepository, cbsProperties, kycEnrichmentScheduler, Clock.systemUTC());
+    }
+
+    SubscriptionClaimSweeper(CustomerRepository customerRepository, CbsProperties cbsProperties,
+                             TaskScheduler kycEnrichmentScheduler, Clock clock) {
+        this.customerRepository = customerRepository;
+        this.cbsProperties = cbsProperties;
+        this.kycEnrichmentScheduler = kycEnrichmentScheduler;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        kycEnrichmentScheduler.scheduleWithFixedDelay(this::sweep, claimExpiry());
+    }
+
+    /**
+     * Deletes the claims older than the expiry and returns how many there were
+     */
+    int sweep() {
+        try {
+            int swept = customerRepository.deleteClaimsOlderThan(OffsetDateTime.now(clock).minus(claimExpiry()));
+            if (swept > 0) {
+                logger.warn("Released {} abandoned subscription claims", swept);
+            }
+            return swept;
+        } catch (RuntimeException e) {
+            // Tried again on the next run
+            logger.error("Could not sweep abandoned subscription claims", e);
+            return 0;
+        }
+    }
+
+    private Duration claimExpiry() {
+        return cbsProperties.getReplyTimeout().multipliedBy(2);
+    }
+}
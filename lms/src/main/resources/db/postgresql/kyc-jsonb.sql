@@ -0,0 +1,55 @@
+-- Brings customers tables created before KYC was mapped as JSON up to date. Hibernate's
+-- ddl-auto=update adds the new columns and indexes but never changes an existing column's type.
+-- Safe to run on every start.
+
+-- A single stored document that is not valid JSON would abort the type change and with it the start, so such
+-- documents are first copied to customers_kyc_quarantine and cleared; a customer without KYC data has it
+-- fetched from the CBS again on the next read.
+DO $$
+DECLARE
+    customer record;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'customers' AND column_name = 'kyc_data' AND data_type = 'text') THEN
+        CREATE TABLE IF NOT EXISTS customers_kyc_quarantine (
+            customer_id uuid PRIMARY KEY,
+            kyc_data text NOT NULL,
+            quarantined_at timestamptz NOT NULL DEFAULT now()
+        );
+        FOR customer IN SELECT customer_id, kyc_data FROM customers WHERE kyc_data IS NOT NULL LOOP
+            BEGIN
+                PERFORM customer.kyc_data::jsonb;
+            EXCEPTION WHEN others THEN
+                INSERT INTO customers_kyc_quarantine (customer_id, kyc_data)
+                VALUES (customer.customer_id, customer.kyc_data)
+                ON CONFLICT (customer_id) DO UPDATE SET kyc_data = EXCLUDED.kyc_data, quarantined_at = now();
+                UPDATE customers SET kyc_data = NULL, kyc_fetched_at = NULL WHERE customer_id = customer.customer_id;
+                RAISE WARNING 'Quarantined invalid KYC data of customer %', customer.customer_id;
+            END;
+        END LOOP;
+        ALTER TABLE customers ALTER COLUMN kyc_data TYPE jsonb USING kyc_data::jsonb;
+    END IF;
+END $$^;
+
+-- Backfills row by row, so a document whose createdAt is not a timestamp only leaves that customer's
+-- columns empty
+DO $$
+DECLARE
+    customer record;
+BEGIN
+    FOR customer IN SELECT customer_id, kyc_data FROM customers
+                    WHERE kyc_data IS NOT NULL
+                      AND monthly_income IS NULL
+                      AND jsonb_typeof(kyc_data -> 'monthlyIncome') = 'number' LOOP
+        BEGIN
+            UPDATE customers
+            SET kyc_first_name = customer.kyc_data ->> 'firstName',
+                kyc_last_name = customer.kyc_data ->> 'lastName',
+                monthly_income = (customer.kyc_data ->> 'monthlyIncome')::double precision,
+                cbs_created_at = (customer.kyc_data ->> 'createdAt')::timestamptz
+            WHERE customer_id = customer.customer_id;
+        EXCEPTION WHEN others THEN
+            RAISE WARNING 'Could not backfill the KYC columns of customer %: %', customer.customer_id, SQLERRM;
+        END;
+    END LOOP;
+END $$^;
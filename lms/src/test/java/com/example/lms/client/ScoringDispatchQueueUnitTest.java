@@ -0,0 +1,177 @@
+package com.example.lms.client;
+
+import com.example.lms.config.ScoringEngineProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ScoringDispatchQueueUnitTest {
+
+    @Mock
+    private ScoringEngineGateway scoringEngineGateway;
+
+    private final ScoringEngineProperties properties = new ScoringEngineProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    private ScoringDispatchQueue dispatchQueue;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getDispatch().setRatePerSecond(1);
+        properties.getDispatch().setBurst(1);
+        properties.getDispatch().setQueueCapacity(2);
+        properties.getDispatch().setMaxQueueWait(Duration.ofSeconds(10));
+        dispatchQueue = new ScoringDispatchQueue(scoringEngineGateway, properties, meterRegistry, clock::get);
+        lenient().when(scoringEngineGateway.hasFreeSlot()).thenReturn(true);
+    }
+
+    @Test
+    public void dispatchNext_sendsNewApplicationsFirst() {
+        // Arrange
+        Map<String, Object> rescore = request("rescore");
+        Map<String, Object> application = request("application");
+        Map<String, Object> response = new HashMap<>();
+        when(scoringEngineGateway.getScore(application)).thenReturn(CompletableFuture.completedFuture(response));
+
+        dispatchQueue.submit(ScoringPriority.RESCORE, rescore);
+        CompletableFuture<Map<String, Object>> result = dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, application);
+
+        // Act
+        long wait = dispatchQueue.dispatchNext();
+
+        // Assert
+        assertEquals(0, wait);
+        assertSame(response, result.join());
+        verify(scoringEngineGateway, never()).getScore(rescore);
+        assertEquals(1, dispatchQueue.depthOf(ScoringPriority.RESCORE));
+        assertEquals(1.0, meterRegistry.get("scoring.dispatch.queue.depth").tag("priority", "rescore").gauge().value());
+    }
+
+    @Test
+    public void dispatchNext_holdsRequestsToTheRateLimit() {
+        // Arrange
+        when(scoringEngineGateway.getScore(any(Map.class))).thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+        dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, request("first"));
+        dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, request("second"));
+        dispatchQueue.dispatchNext();
+
+        // Act - the single token was spent on the first request
+        long wait = dispatchQueue.dispatchNext();
+
+        // Assert
+        assertTrue(wait > 0);
+        verify(scoringEngineGateway, times(1)).getScore(any(Map.class));
+
+        // Act - a second later the bucket has refilled
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        wait = dispatchQueue.dispatchNext();
+
+        // Assert
+        assertEquals(0, wait);
+        verify(scoringEngineGateway, times(2)).getScore(any(Map.class));
+        assertEquals(-1, dispatchQueue.dispatchNext());
+    }
+
+    @Test
+    public void dispatchNext_fullBulkheadKeepsRequestQueued() {
+        // Arrange
+        when(scoringEngineGateway.hasFreeSlot()).thenReturn(false);
+        CompletableFuture<Map<String, Object>> result = dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, request("application"));
+
+        // Act
+        long wait = dispatchQueue.dispatchNext();
+
+        // Assert - nothing sent, no token spent, the request keeps its place
+        assertTrue(wait > 0);
+        assertFalse(result.isDone());
+        assertEquals(1, dispatchQueue.depthOf(ScoringPriority.NEW_APPLICATION));
+        verify(scoringEngineGateway, never()).getScore(any(Map.class));
+
+        // Act - a slot frees up and the same token is still there to send it
+        when(scoringEngineGateway.hasFreeSlot()).thenReturn(true);
+        when(scoringEngineGateway.getScore(any(Map.class))).thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+        wait = dispatchQueue.dispatchNext();
+
+        // Assert
+        assertEquals(0, wait);
+        assertTrue(result.isDone());
+        assertEquals(0, dispatchQueue.depthOf(ScoringPriority.NEW_APPLICATION));
+    }
+
+    @Test
+    public void submit_fullQueueEvictsLowerPriority() {
+        // Arrange
+        dispatchQueue.submit(ScoringPriority.RESCORE, request("rescore-1"));
+        CompletableFuture<Map<String, Object>> newest = dispatchQueue.submit(ScoringPriority.RESCORE, request("rescore-2"));
+
+        // Act
+        CompletableFuture<Map<String, Object>> application = dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, request("application"));
+
+        // Assert - the newest rescore makes room for the application
+        assertFalse(application.isDone());
+        CompletionException exception = assertThrows(CompletionException.class, newest::join);
+        assertInstanceOf(ScoringEngineUnavailableException.class, exception.getCause());
+        assertEquals(1, dispatchQueue.depthOf(ScoringPriority.RESCORE));
+        assertEquals(1, dispatchQueue.depthOf(ScoringPriority.NEW_APPLICATION));
+        assertEquals(1.0, meterRegistry.get("scoring.dispatch.shed")
+                .tag("priority", "rescore").tag("reason", "evicted").counter().count());
+    }
+
+    @Test
+    public void submit_fullQueueRejectsWhenNothingLowerToShed() {
+        // Arrange
+        dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, request("first"));
+        dispatchQueue.submit(ScoringPriority.NEW_APPLICATION, request("second"));
+
+        // Act
+        CompletableFuture<Map<String, Object>> result = dispatchQueue.submit(ScoringPriority.RESCORE, request("rescore"));
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(ScoringEngineUnavailableException.class, exception.getCause());
+        assertEquals(2, dispatchQueue.depthOf(ScoringPriority.NEW_APPLICATION));
+        assertEquals(1.0, meterRegistry.get("scoring.dispatch.shed")
+                .tag("priority", "rescore").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    public void dispatchNext_dropsExpiredRequests() {
+        // Arrange
+        CompletableFuture<Map<String, Object>> result = dispatchQueue.submit(ScoringPriority.RESCORE, request("rescore"));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        // Act
+        dispatchQueue.dispatchNext();
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(ScoringEngineUnavailableException.class, exception.getCause());
+        verify(scoringEngineGateway, never()).getScore(any(Map.class));
+        assertEquals(1, meterRegistry.get("scoring.dispatch.queue.wait").tag("priority", "rescore").timer().count());
+    }
+
+    private Map<String, Object> request(String token) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("customerNumber", "12345");
+        request.put("token", token);
+        return request;
+    }
+}
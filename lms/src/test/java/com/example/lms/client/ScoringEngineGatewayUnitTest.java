@@ -0,0 +1,136 @@
+package com.example.lms.client;
+
+import com.example.lms.config.ScoringEngineProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ScoringEngineGatewayUnitTest {
+
+    @Mock
+    private ScoringEngineClient scoringEngineClient;
+
+    private final ScoringEngineProperties properties = new ScoringEngineProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    private ScoringEngineGateway gateway;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setFailureRateThreshold(50);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofSeconds(30));
+        properties.getCircuitBreaker().setHalfOpenProbes(1);
+        gateway = new ScoringEngineGateway(scoringEngineClient, properties, new SyncTaskExecutor(), meterRegistry, clock::get);
+    }
+
+    @Test
+    public void getScore_success() {
+        // Arrange
+        Map<String, Object> response = new HashMap<>();
+        when(scoringEngineClient.getScore(any(Map.class))).thenReturn(response);
+
+        // Act
+        CompletableFuture<Map<String, Object>> result = gateway.getScore(new HashMap<>());
+
+        // Assert
+        assertSame(response, result.join());
+        assertEquals(ScoringEngineCircuitBreaker.State.CLOSED, gateway.getCircuitState());
+        assertEquals(8.0, meterRegistry.get("scoring.engine.bulkhead.available").gauge().value());
+    }
+
+    @Test
+    public void getScore_opensCircuitAndFailsFast() {
+        // Arrange
+        when(scoringEngineClient.getScore(any(Map.class))).thenThrow(new RuntimeException("Connection refused"));
+        for (int i = 0; i < 4; i++) {
+            gateway.getScore(new HashMap<>());
+        }
+
+        // Act
+        CompletableFuture<Map<String, Object>> result = gateway.getScore(new HashMap<>());
+
+        // Assert - the fifth call is refused without reaching the engine
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(ScoringEngineUnavailableException.class, exception.getCause());
+        assertEquals(ScoringEngineCircuitBreaker.State.OPEN, gateway.getCircuitState());
+        verify(scoringEngineClient, times(4)).getScore(any(Map.class));
+        assertEquals(1.0, meterRegistry.get("scoring.engine.calls.rejected").tag("reason", "circuit_open").counter().count());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.circuit.transitions")
+                .tag("from", "closed").tag("to", "open").counter().count());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.circuit.state").tag("state", "open").gauge().value());
+    }
+
+    @Test
+    public void getScore_halfOpenProbeClosesCircuit() {
+        // Arrange
+        when(scoringEngineClient.getScore(any(Map.class))).thenThrow(new RuntimeException("Connection refused"));
+        for (int i = 0; i < 4; i++) {
+            gateway.getScore(new HashMap<>());
+        }
+        reset(scoringEngineClient);
+        when(scoringEngineClient.getScore(any(Map.class))).thenReturn(new HashMap<>());
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // Act
+        gateway.getScore(new HashMap<>()).join();
+
+        // Assert
+        assertEquals(ScoringEngineCircuitBreaker.State.CLOSED, gateway.getCircuitState());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.circuit.transitions")
+                .tag("from", "half_open").tag("to", "closed").counter().count());
+    }
+
+    @Test
+    public void getScore_failedProbeReopensCircuit() {
+        // Arrange
+        when(scoringEngineClient.getScore(any(Map.class))).thenThrow(new RuntimeException("Connection refused"));
+        for (int i = 0; i < 4; i++) {
+            gateway.getScore(new HashMap<>());
+        }
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // Act
+        gateway.getScore(new HashMap<>());
+
+        // Assert
+        assertEquals(ScoringEngineCircuitBreaker.State.OPEN, gateway.getCircuitState());
+        verify(scoringEngineClient, times(5)).getScore(any(Map.class));
+    }
+
+    @Test
+    public void getScore_bulkheadFull() {
+        // Arrange - a single slot held by a call that never returns
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+        gateway = new ScoringEngineGateway(scoringEngineClient, properties, task -> { }, meterRegistry, clock::get);
+        gateway.getScore(new HashMap<>());
+
+        // Act
+        CompletableFuture<Map<String, Object>> result = gateway.getScore(new HashMap<>());
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(ScoringEngineUnavailableException.class, exception.getCause());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.calls.rejected").tag("reason", "bulkhead_full").counter().count());
+        verify(scoringEngineClient, never()).getScore(any(Map.class));
+    }
+}
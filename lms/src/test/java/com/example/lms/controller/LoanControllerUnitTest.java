@@ -1,5 +1,6 @@
 package com.example.lms.controller;
 
+import com.example.lms.client.CbsUnavailableException;
 import com.example.lms.dto.LoanRequest;
 import com.example.lms.entity.Customer;
 import com.example.lms.entity.Loan;
@@ -16,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -52,11 +54,11 @@ public class LoanControllerUnitTest {
         loan.setAmount(5000.0);
         loan.setStatus(LoanStatus.PENDING.name());
         
-        when(loanService.createLoanApplication(request.getCustomerNumber(), request.getAmount())).thenReturn(loan);
-        doNothing().when(scoringService).scoreLoan(loan);
+        when(loanService.createLoanApplication(request.getCustomerNumber(), request.getAmount())).thenReturn(CompletableFuture.completedFuture(loan));
+        when(scoringService.scoreLoan(loan)).thenReturn(new CompletableFuture<>());
 
         // Act
-        ResponseEntity<?> response = loanController.applyForLoan(request);
+        ResponseEntity<?> response = loanController.applyForLoan(request).join();
 
         // Assert
         assertNotNull(response);
@@ -77,7 +79,7 @@ public class LoanControllerUnitTest {
             .thenThrow(new RuntimeException("Test error"));
 
         // Act
-        ResponseEntity<?> response = loanController.applyForLoan(request);
+        ResponseEntity<?> response = loanController.applyForLoan(request).join();
 
         // Assert
         assertNotNull(response);
@@ -87,6 +89,24 @@ public class LoanControllerUnitTest {
         verify(scoringService, never()).scoreLoan(any());
     }
 
+    @Test
+    public void applyForLoan_kycStillBeingFetched_isUnavailable() {
+        // Arrange
+        LoanRequest request = new LoanRequest();
+        request.setCustomerNumber("12345");
+        request.setAmount(5000.0);
+
+        when(loanService.createLoanApplication(anyString(), anyDouble())).thenReturn(CompletableFuture.failedFuture(
+                new CbsUnavailableException("KYC data for customer 12345 is still being fetched from the CBS", null)));
+
+        // Act
+        ResponseEntity<?> response = loanController.applyForLoan(request).join();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verify(scoringService, never()).scoreLoan(any());
+    }
+
     @Test
     public void getLoanStatus_success() {
         // Arrange
@@ -0,0 +1,75 @@
+package com.example.lms.controller;
+
+import com.example.lms.client.ScoringEngineUnavailableException;
+import com.example.lms.dto.ErrorResponse;
+import com.example.lms.dto.ScoreQueryRequest;
+import com.example.lms.dto.ScoreQueryResponse;
+import com.example.lms.service.ScoringService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ScoringControllerUnitTest {
+
+    @Mock
+    private ScoringService scoringService;
+
+    @InjectMocks
+    private ScoringController scoringController;
+
+    @Test
+    public void initiateScoreQuery_success() {
+        // Arrange
+        ScoreQueryRequest request = new ScoreQueryRequest();
+        request.setCustomerNumber("12345");
+        when(scoringService.initiateScoreQuery("12345")).thenReturn(CompletableFuture.completedFuture("token-1"));
+
+        // Act
+        ResponseEntity<?> response = scoringController.initiateScoreQuery(request).join();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("token-1", ((ScoreQueryResponse) response.getBody()).getToken());
+    }
+
+    @Test
+    public void initiateScoreQuery_engineUnavailable() {
+        // Arrange
+        ScoreQueryRequest request = new ScoreQueryRequest();
+        request.setCustomerNumber("12345");
+        when(scoringService.initiateScoreQuery("12345")).thenReturn(CompletableFuture.failedFuture(
+                new ScoringEngineUnavailableException("Scoring engine unavailable: circuit is open")));
+
+        // Act
+        ResponseEntity<?> response = scoringController.initiateScoreQuery(request).join();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Scoring engine unavailable: circuit is open", ((ErrorResponse) response.getBody()).getError());
+    }
+
+    @Test
+    public void initiateScoreQuery_customerNotFound() {
+        // Arrange
+        ScoreQueryRequest request = new ScoreQueryRequest();
+        request.setCustomerNumber("12345");
+        when(scoringService.initiateScoreQuery("12345")).thenThrow(new RuntimeException("Customer not found"));
+
+        // Act
+        ResponseEntity<?> response = scoringController.initiateScoreQuery(request).join();
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Customer not found", ((ErrorResponse) response.getBody()).getError());
+    }
+}
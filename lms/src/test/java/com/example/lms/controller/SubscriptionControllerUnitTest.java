@@ -1,7 +1,14 @@
 package com.example.lms.controller;
 
+import com.example.lms.client.CbsUnavailableException;
+import com.example.lms.dto.BatchSubscriptionRequest;
+import com.example.lms.dto.BatchSubscriptionResponse;
+import com.example.lms.dto.BatchSubscriptionResponse.Outcome;
+import com.example.lms.dto.BatchSubscriptionResponse.Status;
 import com.example.lms.dto.SubscriptionRequest;
+import com.example.lms.dto.SubscriptionResponse;
 import com.example.lms.entity.Customer;
+import com.example.lms.entity.KycStatus;
 import com.example.lms.service.CustomerService;
 import jakarta.xml.bind.JAXBException;
 import org.junit.jupiter.api.Test;
@@ -12,7 +19,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -37,10 +46,10 @@ public class SubscriptionControllerUnitTest {
         customer.setCustomerId(UUID.randomUUID());
         customer.setCustomerNumber("12345");
         
-        when(customerService.subscribeCustomer(request.getCustomerNumber())).thenReturn(customer);
+        when(customerService.subscribeCustomer(request.getCustomerNumber())).thenReturn(CompletableFuture.completedFuture(customer));
 
         // Act
-        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request);
+        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request).join();
 
         // Assert
         assertNotNull(response);
@@ -58,7 +67,7 @@ public class SubscriptionControllerUnitTest {
         when(customerService.subscribeCustomer(anyString())).thenThrow(new JAXBException("JAXB parsing error"));
 
         // Act
-        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request);
+        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request).join();
 
         // Assert
         assertNotNull(response);
@@ -76,7 +85,7 @@ public class SubscriptionControllerUnitTest {
         when(customerService.subscribeCustomer(anyString())).thenThrow(new RuntimeException("Test error"));
 
         // Act
-        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request);
+        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request).join();
 
         // Assert
         assertNotNull(response);
@@ -84,4 +93,73 @@ public class SubscriptionControllerUnitTest {
         assertNotNull(response.getBody());
         verify(customerService, times(1)).subscribeCustomer(request.getCustomerNumber());
     }
+
+    @Test
+    public void subscribeCustomer_deferredKyc_acceptedWithoutWaitingForCbs() throws JAXBException {
+        // Arrange
+        SubscriptionRequest request = new SubscriptionRequest();
+        request.setCustomerNumber("12345");
+        request.setDeferKyc(true);
+
+        Customer customer = new Customer();
+        customer.setCustomerId(UUID.randomUUID());
+        customer.setCustomerNumber("12345");
+        customer.setKycStatus(KycStatus.PENDING_KYC.name());
+
+        when(customerService.subscribeCustomerDeferred("12345")).thenReturn(customer);
+
+        // Act
+        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request).join();
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        SubscriptionResponse body = (SubscriptionResponse) response.getBody();
+        assertEquals(customer.getCustomerId(), body.getCustomerId());
+        assertEquals(KycStatus.PENDING_KYC.name(), body.getKycStatus());
+        verify(customerService, never()).subscribeCustomer(anyString());
+    }
+
+    @Test
+    public void subscribeCustomer_cbsUnavailable() throws JAXBException {
+        // Arrange
+        SubscriptionRequest request = new SubscriptionRequest();
+        request.setCustomerNumber("12345");
+
+        when(customerService.subscribeCustomer(anyString())).thenReturn(CompletableFuture.failedFuture(
+                new CbsUnavailableException("CBS did not reply within PT5S", null)));
+
+        // Act
+        ResponseEntity<?> response = subscriptionController.subscribeCustomer(request).join();
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getBody());
+        verify(customerService, times(1)).subscribeCustomer(request.getCustomerNumber());
+    }
+
+    @Test
+    public void subscribeCustomers_countsOutcomes() {
+        // Arrange
+        BatchSubscriptionRequest request = new BatchSubscriptionRequest(List.of("111", "222", "333"));
+        List<Outcome> outcomes = List.of(
+                new Outcome("111", Status.SUBSCRIBED, UUID.randomUUID(), null),
+                new Outcome("222", Status.ALREADY_SUBSCRIBED, UUID.randomUUID(), null),
+                new Outcome("333", Status.FAILED, null, "CBS did not reply within PT5S"));
+
+        when(customerService.subscribeCustomers(request.getCustomerNumbers()))
+                .thenReturn(CompletableFuture.completedFuture(outcomes));
+
+        // Act
+        ResponseEntity<?> response = subscriptionController.subscribeCustomers(request).join();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        BatchSubscriptionResponse body = (BatchSubscriptionResponse) response.getBody();
+        assertNotNull(body);
+        assertEquals(1, body.getSubscribed());
+        assertEquals(1, body.getAlreadySubscribed());
+        assertEquals(1, body.getFailed());
+        assertEquals(outcomes, body.getResults());
+    }
 }
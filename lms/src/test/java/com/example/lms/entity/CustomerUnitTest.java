@@ -0,0 +1,71 @@
+package com.example.lms.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerUnitTest {
+
+    private static final String KYC = "{\"createdAt\":\"2024-01-26T12:00:00+00:00\",\"customerNumber\":\"12345\","
+            + "\"firstName\":\"John\",\"lastName\":\"Doe\",\"monthlyIncome\":5000.0}";
+
+    @Test
+    public void onCreate_extractsKycColumns() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setCustomerNumber("12345");
+        customer.setKycData(KYC);
+
+        // Act
+        customer.onCreate();
+
+        // Assert
+        assertEquals("John", customer.getKycFirstName());
+        assertEquals("Doe", customer.getKycLastName());
+        assertEquals(5000.0, customer.getMonthlyIncome());
+        assertEquals(OffsetDateTime.parse("2024-01-26T12:00:00+00:00"), customer.getCbsCreatedAt());
+    }
+
+    @Test
+    public void onUpdate_leavesKycStatusAlone() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setKycData(KYC);
+        customer.setKycStatus(KycStatus.FAILED.name());
+
+        // Act
+        customer.onUpdate();
+
+        // Assert
+        assertEquals(KycStatus.FAILED.name(), customer.getKycStatus());
+    }
+
+    @Test
+    public void onUpdate_keepsKycColumnsInSync() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setKycData(KYC);
+        customer.onCreate();
+
+        // Act
+        customer.setKycData("{\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"monthlyIncome\":7500.0}");
+        customer.onUpdate();
+
+        // Assert
+        assertEquals("Jane", customer.getKycFirstName());
+        assertEquals(7500.0, customer.getMonthlyIncome());
+        assertNull(customer.getCbsCreatedAt());
+    }
+
+    @Test
+    public void onCreate_rejectsInvalidKyc() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setKycData("not json");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, customer::onCreate);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.lms.service;
+
+import com.example.lms.client.CbsGateway;
+import com.example.lms.config.CbsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.xml.bind.JAXBException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.xml.transform.StringResult;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CbsCustomerExchangeUnitTest {
+
+    @Mock
+    private WebServiceTemplate webServiceTemplate;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void send_mocked_answersWithoutCallingCbs() throws JAXBException {
+        // Arrange
+        CbsProperties properties = new CbsProperties();
+        properties.setMock(true);
+        CbsCustomerExchange exchange = new CbsCustomerExchange(webServiceTemplate, properties, new SyncTaskExecutor(), meterRegistry);
+        QueueChannel reply = new QueueChannel();
+
+        // Act
+        exchange.send(request("12345", reply));
+
+        // Assert
+        assertTrue(CbsCustomerXml.responseToKycJson((String) reply.receive(0).getPayload()).contains("\"customerNumber\":\"12345\""));
+        verifyNoInteractions(webServiceTemplate);
+        assertEquals(1, meterRegistry.get("cbs.kyc.latency").timer().count());
+    }
+
+    @Test
+    public void send_live_sendsOneSoapCallPerRequest() {
+        // Arrange
+        CbsProperties properties = new CbsProperties();
+        properties.setMock(false);
+        CbsCustomerExchange exchange = new CbsCustomerExchange(webServiceTemplate, properties, new SyncTaskExecutor(), meterRegistry);
+        String cbsReply = CbsCustomerXml.mockResponse("67890");
+        doAnswer(invocation -> {
+            ((StringResult) invocation.getArgument(1)).getWriter().write(cbsReply);
+            return true;
+        }).when(webServiceTemplate).sendSourceAndReceiveToResult(any(Source.class), any(Result.class));
+        QueueChannel firstReply = new QueueChannel();
+        QueueChannel secondReply = new QueueChannel();
+
+        // Act
+        exchange.send(request("67890", firstReply));
+        exchange.send(request("67890", secondReply));
+
+        // Assert
+        assertEquals(cbsReply, firstReply.receive(0).getPayload());
+        assertEquals(cbsReply, secondReply.receive(0).getPayload());
+        verify(webServiceTemplate, times(2)).sendSourceAndReceiveToResult(any(Source.class), any(Result.class));
+        assertEquals(2, meterRegistry.get("cbs.kyc.latency").timer().count());
+    }
+
+    @Test
+    public void send_live_soapFailure_repliesWithError() {
+        // Arrange
+        CbsProperties properties = new CbsProperties();
+        properties.setMock(false);
+        CbsCustomerExchange exchange = new CbsCustomerExchange(webServiceTemplate, properties, new SyncTaskExecutor(), meterRegistry);
+        doThrow(new WebServiceIOException("Connection refused"))
+                .when(webServiceTemplate).sendSourceAndReceiveToResult(any(Source.class), any(Result.class));
+        QueueChannel reply = new QueueChannel();
+
+        // Act
+        exchange.send(request("12345", reply));
+
+        // Assert
+        Message<?> error = reply.receive(0);
+        assertInstanceOf(ErrorMessage.class, error);
+        assertInstanceOf(WebServiceIOException.class, ((ErrorMessage) error).getPayload().getCause());
+    }
+
+    @Test
+    public void send_live_executorFull_repliesWithRejection() {
+        // Arrange
+        CbsProperties properties = new CbsProperties();
+        properties.setMock(false);
+        TaskExecutor fullExecutor = task -> {
+            throw new RejectedExecutionException("full");
+        };
+        CbsCustomerExchange exchange = new CbsCustomerExchange(webServiceTemplate, properties, fullExecutor, meterRegistry);
+        QueueChannel reply = new QueueChannel();
+
+        // Act
+        exchange.send(request("12345", reply));
+
+        // Assert
+        Message<?> error = reply.receive(0);
+        assertInstanceOf(ErrorMessage.class, error);
+        assertInstanceOf(RejectedExecutionException.class, ((ErrorMessage) error).getPayload().getCause());
+        verifyNoInteractions(webServiceTemplate);
+    }
+
+    private static Message<?> request(String customerNumber, QueueChannel replyChannel) {
+        try {
+            return MessageBuilder.withPayload(CbsCustomerXml.marshalRequest(customerNumber))
+                    .setHeader(CbsGateway.CUSTOMER_NUMBER_HEADER, customerNumber)
+                    .setReplyChannel(replyChannel)
+                    .build();
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
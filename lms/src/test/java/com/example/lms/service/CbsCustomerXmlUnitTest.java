@@ -0,0 +1,104 @@
+package com.example.lms.service;
+
+import jakarta.xml.bind.JAXBException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CbsCustomerXmlUnitTest {
+
+    @Test
+    public void marshalRequest_writesCustomerNumber() throws JAXBException {
+        // Act
+        String xml = CbsCustomerXml.marshalRequest("12345");
+
+        // Assert
+        assertTrue(xml.contains("http://credable.io/cbs/customer"));
+        assertTrue(xml.contains(">12345<"));
+    }
+
+    @Test
+    public void marshalRequest_isSafeAcrossThreads() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < 200; i++) {
+                String customerNumber = String.valueOf(i);
+                results.add(executor.submit(() -> CbsCustomerXml.marshalRequest(customerNumber)));
+            }
+
+            // Assert
+            for (int i = 0; i < results.size(); i++) {
+                assertTrue(results.get(i).get().contains(">" + i + "<"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void responseToKycJson_writesKycFields() throws JAXBException {
+        // Act
+        String json = CbsCustomerXml.responseToKycJson(customerResponse("12345"));
+
+        // Assert
+        assertEquals("{\"createdAt\":\"2024-01-26T12:00:00+00:00\",\"customerNumber\":\"12345\","
+                + "\"firstName\":\"John\",\"lastName\":\"Doe\",\"monthlyIncome\":5000.0}", json);
+    }
+
+    @Test
+    public void responseToKycJson_escapesTextAndSkipsUnknownElements() throws JAXBException {
+        // Arrange
+        String xml = "<CustomerResponse xmlns=\"http://credable.io/cbs/customer\">" +
+                "<customer>" +
+                "<accounts><account><balance>10.0</balance></account></accounts>" +
+                "<customerNumber>12345</customerNumber>" +
+                "<firstName>Jo &quot;Jo&quot;</firstName>" +
+                "<lastName>O\\Brien</lastName>" +
+                "</customer>" +
+                "</CustomerResponse>";
+
+        // Act
+        String json = CbsCustomerXml.responseToKycJson(xml);
+
+        // Assert
+        assertEquals("{\"customerNumber\":\"12345\",\"firstName\":\"Jo \\\"Jo\\\"\",\"lastName\":\"O\\\\Brien\"}", json);
+    }
+
+    @Test
+    public void responseToKycJson_rejectsMalformedResponse() {
+        // Act & Assert
+        assertThrows(JAXBException.class, () -> CbsCustomerXml.responseToKycJson("<CustomerResponse>"));
+        assertThrows(JAXBException.class, () -> CbsCustomerXml.responseToKycJson("<Other/>"));
+    }
+
+    @Test
+    public void responseToKycJson_rejectsNonFiniteIncome() {
+        // Act & Assert
+        for (String income : new String[] {"NaN", "Infinity", "-Infinity"}) {
+            String xml = customerResponse("12345").replace(">5000.0<", ">" + income + "<");
+            assertThrows(JAXBException.class, () -> CbsCustomerXml.responseToKycJson(xml));
+        }
+    }
+
+    private static String customerResponse(String customerNumber) {
+        return "<CustomerResponse xmlns=\"http://credable.io/cbs/customer\">\n" +
+                "    <customer>\n" +
+                "      <createdAt>2024-01-26T12:00:00+00:00</createdAt>\n" +
+                "      <customerNumber>" + customerNumber + "</customerNumber>\n" +
+                "      <firstName>John</firstName>\n" +
+                "      <lastName>Doe</lastName>\n" +
+                "      <monthlyIncome>5000.0</monthlyIncome>\n" +
+                "    </customer>\n" +
+                "  </CustomerResponse>";
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.lms.service;
 
+import com.example.lms.client.CbsGateway;
 import com.example.lms.entity.Customer;
 import com.example.lms.repository.CustomerRepository;
 import jakarta.xml.bind.JAXBException;
@@ -7,14 +8,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.messaging.MessageChannel;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -28,7 +33,7 @@ public class CustomerServiceIntegrationTest {
     private CustomerRepository customerRepository;
     
     @MockBean
-    private MessageChannel cbsRequestChannel;
+    private CbsGateway cbsGateway;
 
     @Test
     public void subscribeCustomer_integration() throws JAXBException {
@@ -38,19 +43,20 @@ public class CustomerServiceIntegrationTest {
         savedCustomer.setCustomerId(UUID.randomUUID());
         savedCustomer.setCustomerNumber(customerNumber);
         
-        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.empty());
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
         when(customerRepository.save(any(Customer.class))).thenReturn(savedCustomer);
-        when(cbsRequestChannel.send(any())).thenReturn(true);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(CbsCustomerXml.mockResponse(customerNumber)));
 
         // Act
-        Customer result = customerService.subscribeCustomer(customerNumber);
+        Customer result = customerService.subscribeCustomer(customerNumber).join();
 
         // Assert
         assertNotNull(result);
         assertEquals(customerNumber, result.getCustomerNumber());
-        verify(customerRepository, times(1)).findByCustomerNumber(customerNumber);
+        verify(customerRepository, times(1)).insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class));
         verify(customerRepository, times(1)).save(any(Customer.class));
-        verify(cbsRequestChannel, times(1)).send(any());
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq(customerNumber), anyLong());
     }
 
     @Test
@@ -76,7 +82,8 @@ public class CustomerServiceIntegrationTest {
     public void getCustomerKycData_integration() throws JAXBException {
         // Arrange
         String customerNumber = "12345";
-        when(cbsRequestChannel.send(any())).thenReturn(true);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(CbsCustomerXml.mockResponse(customerNumber)));
 
         // Act
         String result = customerService.getCustomerKycData(customerNumber);
@@ -85,6 +92,6 @@ public class CustomerServiceIntegrationTest {
         assertNotNull(result);
         assertTrue(result.contains("firstName"));
         assertTrue(result.contains("lastName"));
-        verify(cbsRequestChannel, times(1)).send(any());
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq(customerNumber), anyLong());
     }
 }
@@ -1,19 +1,43 @@
 package com.example.lms.service;
 
+import com.example.lms.client.CbsGateway;
+import com.example.lms.client.CbsUnavailableException;
+import com.example.lms.config.CbsProperties;
+import com.example.lms.dto.BatchSubscriptionResponse.Outcome;
+import com.example.lms.dto.BatchSubscriptionResponse.Status;
 import com.example.lms.entity.Customer;
+import com.example.lms.entity.KycStatus;
 import com.example.lms.repository.CustomerRepository;
 import jakarta.xml.bind.JAXBException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.messaging.MessageChannel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.integration.MessageTimeoutException;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,7 +47,16 @@ public class CustomerServiceUnitTest {
     private CustomerRepository customerRepository;
     
     @Mock
-    private MessageChannel cbsRequestChannel;
+    private CbsGateway cbsGateway;
+
+    @Spy
+    private CbsProperties cbsProperties = new CbsProperties();
+
+    @Mock
+    private KycCache kycCache;
+
+    @Mock
+    private KycEnrichmentWorker kycEnrichmentWorker;
 
     @InjectMocks
     private CustomerServiceImpl customerService;
@@ -35,35 +68,370 @@ public class CustomerServiceUnitTest {
         Customer savedCustomer = new Customer();
         savedCustomer.setCustomerNumber(customerNumber);
         
-        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.empty());
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
         when(customerRepository.save(any(Customer.class))).thenReturn(savedCustomer);
-        when(cbsRequestChannel.send(any())).thenReturn(true);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(CbsCustomerXml.mockResponse(customerNumber)));
 
         // Act
-        Customer result = customerService.subscribeCustomer(customerNumber);
+        Customer result = customerService.subscribeCustomer(customerNumber).join();
 
         // Assert
         assertNotNull(result);
         assertEquals(customerNumber, result.getCustomerNumber());
-        verify(customerRepository, times(1)).findByCustomerNumber(customerNumber);
-        verify(customerRepository, times(1)).save(any(Customer.class));
-        verify(cbsRequestChannel, times(1)).send(any());
+        verify(customerRepository, times(1)).insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class));
+        verify(customerRepository, never()).findByCustomerNumber(customerNumber);
+        verify(customerRepository, times(1)).save(argThat(customer -> KycStatus.ENRICHED.name().equals(customer.getKycStatus())));
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq(customerNumber), eq(5000L));
     }
 
     @Test
     public void subscribeCustomer_customerAlreadyExists() throws JAXBException {
         // Arrange
         String customerNumber = "12345";
-        Customer existingCustomer = new Customer();
-        existingCustomer.setCustomerNumber(customerNumber);
-        
-        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(existingCustomer));
+        Customer subscribed = new Customer();
+        subscribed.setCustomerNumber(customerNumber);
+        subscribed.setKycStatus(KycStatus.ENRICHED.name());
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(0);
+        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(subscribed));
 
         // Act & Assert
-        assertThrows(RuntimeException.class, () -> customerService.subscribeCustomer(customerNumber));
-        verify(customerRepository, times(1)).findByCustomerNumber(customerNumber);
+        assertThrows(CustomerAlreadySubscribedException.class, () -> customerService.subscribeCustomer(customerNumber));
+        verify(customerRepository, times(1)).insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class));
+        verify(customerRepository, never()).save(any(Customer.class));
+        verify(cbsGateway, never()).fetchCustomer(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void subscribeCustomer_cbsReplyTimesOut() throws JAXBException {
+        // Arrange
+        String customerNumber = "12345";
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new MessageTimeoutException("No reply received")));
+
+        // Act
+        CompletableFuture<Customer> result = customerService.subscribeCustomer(customerNumber);
+
+        // Assert
+        CompletionException thrown = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(CbsUnavailableException.class, thrown.getCause());
+        verify(customerRepository, never()).save(any(Customer.class));
+        verify(customerRepository, times(1)).deleteUnfinishedClaim(customerNumber);
+    }
+
+    @Test
+    public void subscribeCustomer_inFlightLimitReached() {
+        // Arrange
+        String customerNumber = "12345";
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong()))
+                .thenThrow(new RejectedExecutionException("Pool exhausted"));
+
+        // Act & Assert
+        assertThrows(CbsUnavailableException.class, () -> customerService.subscribeCustomer(customerNumber));
         verify(customerRepository, never()).save(any(Customer.class));
-        verify(cbsRequestChannel, never()).send(any());
+        verify(customerRepository, times(1)).deleteUnfinishedClaim(customerNumber);
+    }
+
+    @Test
+    public void subscribeCustomer_claimHeldByAnotherNode_isInProgress() throws JAXBException {
+        // Arrange
+        String customerNumber = "12345";
+        Customer claim = new Customer();
+        claim.setCustomerNumber(customerNumber);
+        claim.setKycStatus(KycStatus.CLAIMED.name());
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(0);
+        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(claim));
+
+        // Act & Assert
+        assertThrows(CustomerSubscriptionInProgressException.class, () -> customerService.subscribeCustomer(customerNumber));
+        verify(cbsGateway, never()).fetchCustomer(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void subscribeCustomer_concurrentDuplicateSharesOneSubscription() throws JAXBException {
+        // Arrange
+        String customerNumber = "12345";
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong())).thenReturn(reply);
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompletableFuture<Customer> first = customerService.subscribeCustomer(customerNumber);
+        CompletableFuture<Customer> duplicate = customerService.subscribeCustomer(customerNumber);
+        reply.complete(CbsCustomerXml.mockResponse(customerNumber));
+
+        // Assert
+        assertEquals(customerNumber, first.join().getCustomerNumber());
+        assertSame(first.join(), duplicate.join());
+        verify(customerRepository, times(1)).insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class));
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq(customerNumber), anyLong());
+    }
+
+    @Test
+    public void subscribeCustomer_firstAttemptFails_duplicateFailsToo() throws JAXBException {
+        // Arrange
+        String customerNumber = "12345";
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong())).thenReturn(reply);
+
+        // Act - the duplicate is never told the customer is subscribed when nobody is
+        customerService.subscribeCustomer(customerNumber);
+        CompletableFuture<Customer> duplicate = customerService.subscribeCustomer(customerNumber);
+        reply.completeExceptionally(new MessageTimeoutException("No reply received"));
+
+        // Assert
+        CompletionException thrown = assertThrows(CompletionException.class, duplicate::join);
+        assertInstanceOf(CbsUnavailableException.class, thrown.getCause());
+        verify(customerRepository, times(1)).deleteUnfinishedClaim(customerNumber);
+    }
+
+    @Test
+    public void subscribeCustomerDeferred_returnsPendingCustomerWithoutWaitingForCbs() {
+        // Arrange
+        String customerNumber = "12345";
+        when(customerRepository.insertPendingIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(1);
+        when(kycEnrichmentWorker.enqueue(eq(customerNumber), any())).thenReturn(new CompletableFuture<>());
+
+        // Act
+        Customer result = customerService.subscribeCustomerDeferred(customerNumber);
+
+        // Assert
+        assertNotNull(result.getCustomerId());
+        assertEquals(KycStatus.PENDING_KYC.name(), result.getKycStatus());
+        assertNull(result.getKycData());
+        verify(kycEnrichmentWorker, times(1)).enqueue(eq(customerNumber), any());
+        verify(cbsGateway, never()).fetchCustomer(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void subscribeCustomerDeferred_customerAlreadyExists() {
+        // Arrange
+        String customerNumber = "12345";
+        Customer pending = new Customer();
+        pending.setCustomerNumber(customerNumber);
+        pending.setKycStatus(KycStatus.PENDING_KYC.name());
+        when(customerRepository.insertPendingIfAbsent(any(UUID.class), eq(customerNumber), any(OffsetDateTime.class))).thenReturn(0);
+        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(pending));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> customerService.subscribeCustomerDeferred(customerNumber));
+        assertEquals("Customer already subscribed", exception.getMessage());
+        verifyNoInteractions(kycEnrichmentWorker);
+    }
+
+    @Test
+    public void awaitKyc_enrichedCustomer_completesAtOnce() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setCustomerNumber("12345");
+        customer.setKycStatus(KycStatus.ENRICHED.name());
+
+        // Act
+        Customer result = customerService.awaitKyc(customer).join();
+
+        // Assert
+        assertSame(customer, result);
+        verifyNoInteractions(kycEnrichmentWorker);
+    }
+
+    @Test
+    public void awaitKyc_claimedCustomer_isNotSubscribed() {
+        // Arrange
+        Customer claimed = new Customer();
+        claimed.setCustomerNumber("12345");
+        claimed.setKycStatus(KycStatus.CLAIMED.name());
+
+        // Act
+        CompletionException exception = assertThrows(CompletionException.class, () -> customerService.awaitKyc(claimed).join());
+
+        // Assert
+        assertEquals("Customer not subscribed", exception.getCause().getMessage());
+        verifyNoInteractions(kycEnrichmentWorker);
+    }
+
+    @Test
+    public void awaitKyc_pendingCustomer_joinsEnrichment() {
+        // Arrange
+        Customer pending = new Customer();
+        pending.setCustomerNumber("12345");
+        pending.setKycStatus(KycStatus.PENDING_KYC.name());
+        Customer enriched = new Customer();
+        enriched.setCustomerNumber("12345");
+        enriched.setKycStatus(KycStatus.ENRICHED.name());
+        when(kycEnrichmentWorker.enqueue(eq("12345"), any())).thenReturn(CompletableFuture.completedFuture(enriched));
+
+        // Act
+        Customer result = customerService.awaitKyc(pending).join();
+
+        // Assert
+        assertSame(enriched, result);
+    }
+
+    @Test
+    public void awaitKyc_enrichmentTooSlow_failsWithoutCancellingIt() {
+        // Arrange
+        cbsProperties.getEnrichment().setLoanWait(Duration.ofMillis(10));
+        Customer pending = new Customer();
+        pending.setCustomerNumber("12345");
+        pending.setKycStatus(KycStatus.PENDING_KYC.name());
+        CompletableFuture<Customer> enrichment = new CompletableFuture<>();
+        when(kycEnrichmentWorker.enqueue(eq("12345"), any())).thenReturn(enrichment);
+
+        // Act
+        CompletionException exception = assertThrows(CompletionException.class, () -> customerService.awaitKyc(pending).join());
+
+        // Assert
+        assertInstanceOf(CbsUnavailableException.class, exception.getCause());
+        assertFalse(enrichment.isDone());
+    }
+
+    @Test
+    public void resumePendingEnrichments_requeuesPendingCustomersPageByPage() {
+        // Arrange - a full first page, then a short one that starts after its last customer number
+        List<Customer> firstPage = IntStream.range(0, 100)
+                .mapToObj(i -> pendingCustomer(String.format("1%04d", i)))
+                .toList();
+        List<Customer> lastPage = List.of(pendingCustomer("20000"));
+        when(customerRepository.findByKycStatusAndCustomerNumberGreaterThan(eq(KycStatus.PENDING_KYC.name()), eq(""), any(Pageable.class)))
+                .thenReturn(firstPage);
+        when(customerRepository.findByKycStatusAndCustomerNumberGreaterThan(eq(KycStatus.PENDING_KYC.name()), eq("10099"), any(Pageable.class)))
+                .thenReturn(lastPage);
+        when(kycEnrichmentWorker.enqueue(anyString(), any())).thenReturn(new CompletableFuture<>());
+
+        // Act
+        customerService.resumePendingEnrichments();
+
+        // Assert
+        verify(kycEnrichmentWorker, times(101)).enqueue(anyString(), any());
+        verify(kycEnrichmentWorker, times(1)).enqueue(eq("10000"), any());
+        verify(kycEnrichmentWorker, times(1)).enqueue(eq("20000"), any());
+        verify(customerRepository, times(2)).findByKycStatusAndCustomerNumberGreaterThan(anyString(), anyString(), any(Pageable.class));
+    }
+
+    @Test
+    public void subscribeCustomers_dedupesSkipsExistingAndClaimsRest() {
+        // Arrange
+        Customer existing = new Customer();
+        existing.setCustomerId(UUID.randomUUID());
+        existing.setCustomerNumber("111");
+        existing.setKycStatus(KycStatus.ENRICHED.name());
+
+        when(customerRepository.findByCustomerNumberIn(Set.of("111", "222", "333"))).thenReturn(List.of(existing));
+        when(customerRepository.claimAll(anyMap(), any(OffsetDateTime.class))).thenReturn(Set.of("222", "333"));
+        when(cbsGateway.fetchCustomer(anyString(), eq("222"), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(CbsCustomerXml.mockResponse("222")));
+        when(cbsGateway.fetchCustomer(anyString(), eq("333"), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new MessageTimeoutException("No reply received")));
+        when(customerRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<Outcome> outcomes = customerService.subscribeCustomers(List.of("222", "111", "222", "333")).join();
+
+        // Assert
+        assertEquals(List.of("222", "111", "333"), outcomes.stream().map(Outcome::getCustomerNumber).toList());
+        assertEquals(Status.SUBSCRIBED, outcomes.get(0).getStatus());
+        assertNotNull(outcomes.get(0).getCustomerId());
+        assertEquals(Status.ALREADY_SUBSCRIBED, outcomes.get(1).getStatus());
+        assertEquals(existing.getCustomerId(), outcomes.get(1).getCustomerId());
+        assertEquals(Status.FAILED, outcomes.get(2).getStatus());
+        assertNotNull(outcomes.get(2).getError());
+        verify(customerRepository, times(1)).claimAll(argThat(customerIds -> customerIds.keySet().equals(Set.of("222", "333"))),
+                any(OffsetDateTime.class));
+        verify(customerRepository, never()).insertIfAbsent(any(UUID.class), anyString(), any(OffsetDateTime.class));
+        verify(cbsGateway, never()).fetchCustomer(anyString(), eq("111"), anyLong());
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq("222"), anyLong());
+        verify(customerRepository, times(1)).saveAll(argThat((List<Customer> customers) -> customers.size() == 1
+                && KycStatus.ENRICHED.name().equals(customers.get(0).getKycStatus())));
+        verify(customerRepository, never()).save(any(Customer.class));
+        verify(customerRepository, times(1)).deleteUnfinishedClaims(List.of("333"));
+    }
+
+    @Test
+    public void subscribeCustomers_claimLostToAnotherNode_reportsAlreadySubscribed() {
+        // Arrange
+        Customer raced = new Customer();
+        raced.setCustomerId(UUID.randomUUID());
+        raced.setCustomerNumber("222");
+        raced.setKycStatus(KycStatus.ENRICHED.name());
+
+        when(customerRepository.findByCustomerNumberIn(anyCollection())).thenReturn(List.of(), List.of(raced));
+        when(customerRepository.claimAll(anyMap(), any(OffsetDateTime.class))).thenReturn(Set.of());
+
+        // Act
+        List<Outcome> outcomes = customerService.subscribeCustomers(List.of("222")).join();
+
+        // Assert
+        assertEquals(Status.ALREADY_SUBSCRIBED, outcomes.get(0).getStatus());
+        assertEquals(raced.getCustomerId(), outcomes.get(0).getCustomerId());
+        verify(cbsGateway, never()).fetchCustomer(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void subscribeCustomers_claimHeldByAnotherNode_reportsInProgress() {
+        // Arrange
+        Customer claim = new Customer();
+        claim.setCustomerNumber("222");
+        claim.setKycStatus(KycStatus.CLAIMED.name());
+
+        when(customerRepository.findByCustomerNumberIn(anyCollection())).thenReturn(List.of(claim));
+        when(customerRepository.claimAll(anyMap(), any(OffsetDateTime.class))).thenReturn(Set.of());
+
+        // Act
+        List<Outcome> outcomes = customerService.subscribeCustomers(List.of("222")).join();
+
+        // Assert
+        assertEquals(Status.FAILED, outcomes.get(0).getStatus());
+        assertEquals("Customer subscription already in progress", outcomes.get(0).getError());
+        verify(cbsGateway, never()).fetchCustomer(anyString(), anyString(), anyLong());
+        verify(customerRepository, never()).deleteUnfinishedClaims(anyCollection());
+    }
+
+    @Test
+    public void subscribeCustomers_saveFails_releasesClaims() {
+        // Arrange
+        when(customerRepository.findByCustomerNumberIn(anyCollection())).thenReturn(List.of());
+        when(customerRepository.claimAll(anyMap(), any(OffsetDateTime.class))).thenReturn(Set.of("222"));
+        when(cbsGateway.fetchCustomer(anyString(), eq("222"), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(CbsCustomerXml.mockResponse("222")));
+        when(customerRepository.saveAll(anyList())).thenThrow(new RuntimeException("Connection lost"));
+
+        // Act
+        List<Outcome> outcomes = customerService.subscribeCustomers(List.of("222")).join();
+
+        // Assert
+        assertEquals(Status.FAILED, outcomes.get(0).getStatus());
+        assertEquals("Connection lost", outcomes.get(0).getError());
+        verify(customerRepository, times(1)).deleteUnfinishedClaims(List.of("222"));
+    }
+
+    @Test
+    public void subscribeCustomers_customerBeingSubscribed_isNotClaimedTwice() throws JAXBException {
+        // Arrange
+        Customer claim = new Customer();
+        claim.setCustomerNumber("222");
+        claim.setKycStatus(KycStatus.CLAIMED.name());
+        CompletableFuture<String> reply = new CompletableFuture<>();
+
+        when(customerRepository.insertIfAbsent(any(UUID.class), eq("222"), any(OffsetDateTime.class))).thenReturn(1);
+        when(cbsGateway.fetchCustomer(anyString(), eq("222"), anyLong())).thenReturn(reply);
+        when(customerRepository.findByCustomerNumberIn(anyCollection())).thenReturn(List.of(claim));
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        customerService.subscribeCustomer("222");
+        CompletableFuture<List<Outcome>> batch = customerService.subscribeCustomers(List.of("222"));
+        reply.complete(CbsCustomerXml.mockResponse("222"));
+        List<Outcome> outcomes = batch.join();
+
+        // Assert
+        assertEquals(Status.SUBSCRIBED, outcomes.get(0).getStatus());
+        verify(customerRepository, times(1)).insertIfAbsent(any(UUID.class), eq("222"), any(OffsetDateTime.class));
+        verify(customerRepository, never()).claimAll(anyMap(), any(OffsetDateTime.class));
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq("222"), anyLong());
     }
 
     @Test
@@ -84,6 +452,22 @@ public class CustomerServiceUnitTest {
         verify(customerRepository, times(1)).findByCustomerNumber(customerNumber);
     }
 
+    @Test
+    public void findByCustomerNumber_claimedCustomer_notFound() {
+        // Arrange
+        String customerNumber = "12345";
+        Customer claim = new Customer();
+        claim.setCustomerNumber(customerNumber);
+        claim.setKycStatus(KycStatus.CLAIMED.name());
+        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(claim));
+
+        // Act
+        Optional<Customer> result = customerService.findByCustomerNumber(customerNumber);
+
+        // Assert
+        assertFalse(result.isPresent());
+    }
+
     @Test
     public void findByCustomerNumber_notFound() {
         // Arrange
@@ -102,7 +486,8 @@ public class CustomerServiceUnitTest {
     public void getCustomerKycData_returnsValidJson() throws JAXBException {
         // Arrange
         String customerNumber = "12345";
-        when(cbsRequestChannel.send(any())).thenReturn(true);
+        when(cbsGateway.fetchCustomer(anyString(), eq(customerNumber), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(CbsCustomerXml.mockResponse(customerNumber)));
 
         // Act
         String result = customerService.getCustomerKycData(customerNumber);
@@ -111,6 +496,32 @@ public class CustomerServiceUnitTest {
         assertNotNull(result);
         assertTrue(result.contains("firstName"));
         assertTrue(result.contains("lastName"));
-        verify(cbsRequestChannel, times(1)).send(any());
+        verify(cbsGateway, times(1)).fetchCustomer(anyString(), eq(customerNumber), eq(5000L));
+    }
+
+    @Test
+    public void getCustomerKycData_subscribedCustomer_readsThroughCache() throws JAXBException {
+        // Arrange
+        String customerNumber = "12345";
+        Customer customer = new Customer();
+        customer.setCustomerNumber(customerNumber);
+        customer.setKycData("{\"firstName\":\"John\",\"lastName\":\"Doe\"}");
+
+        when(customerRepository.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
+        when(kycCache.read(eq(customer), any())).thenReturn(CompletableFuture.completedFuture(customer.getKycData()));
+
+        // Act
+        String result = customerService.getCustomerKycData(customerNumber);
+
+        // Assert
+        assertEquals(customer.getKycData(), result);
+        verify(cbsGateway, never()).fetchCustomer(anyString(), anyString(), anyLong());
+    }
+
+    private static Customer pendingCustomer(String customerNumber) {
+        Customer customer = new Customer();
+        customer.setCustomerNumber(customerNumber);
+        customer.setKycStatus(KycStatus.PENDING_KYC.name());
+        return customer;
     }
 }
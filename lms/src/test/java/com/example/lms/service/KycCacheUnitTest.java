@@ -0,0 +1,144 @@
+package com.example.lms.service;
+
+import com.example.lms.config.CbsProperties;
+import com.example.lms.entity.Customer;
+import com.example.lms.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class KycCacheUnitTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-02T00:00:00Z");
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private final CbsProperties properties = new CbsProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KycCache kycCache;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getKycCache().setRefreshAfter(Duration.ofHours(12));
+        properties.getKycCache().setMaxStaleness(Duration.ofHours(24));
+        properties.getKycCache().setMaxConcurrentRefreshes(1);
+        kycCache = new KycCache(customerRepository, properties, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void read_fresh_servesStoredDataWithoutCallingCbs() {
+        // Arrange
+        Customer customer = customer("12345", Duration.ofHours(1));
+        AtomicInteger fetches = new AtomicInteger();
+
+        // Act
+        String result = kycCache.read(customer, () -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture("{\"firstName\":\"New\"}");
+        }).join();
+
+        // Assert
+        assertEquals(customer.getKycData(), result);
+        assertEquals(0, fetches.get());
+        assertEquals(1.0, meterRegistry.get("kyc.cache.cbs.calls.avoided").counter().count());
+        assertEquals(1.0, meterRegistry.get("kyc.cache.reads").tag("result", "fresh").counter().count());
+    }
+
+    @Test
+    public void read_stale_servesStoredDataAndRefreshesInBackground() {
+        // Arrange
+        Customer customer = customer("12345", Duration.ofHours(13));
+        Customer stored = customer("12345", Duration.ofHours(13));
+        CompletableFuture<String> refresh = new CompletableFuture<>();
+        AtomicInteger fetches = new AtomicInteger();
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.of(stored));
+
+        // Act
+        String first = kycCache.read(customer, () -> {
+            fetches.incrementAndGet();
+            return refresh;
+        }).join();
+        String second = kycCache.read(customer, () -> {
+            fetches.incrementAndGet();
+            return refresh;
+        }).join();
+        refresh.complete("{\"firstName\":\"New\"}");
+
+        // Assert
+        assertEquals(customer.getKycData(), first);
+        assertEquals(customer.getKycData(), second);
+        assertEquals(1, fetches.get());
+        assertEquals("{\"firstName\":\"New\"}", stored.getKycData());
+        assertEquals(NOW, stored.getKycFetchedAt().toInstant());
+        verify(customerRepository, times(1)).save(stored);
+        assertEquals(2.0, meterRegistry.get("kyc.cache.cbs.calls.avoided").counter().count());
+        assertEquals(1.0, meterRegistry.get("kyc.cache.refreshes").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    public void read_stale_skipsRefreshWhenNoSlotIsFree() {
+        // Arrange
+        Customer busy = customer("111", Duration.ofHours(13));
+        Customer other = customer("222", Duration.ofHours(13));
+        AtomicInteger fetches = new AtomicInteger();
+        kycCache.read(busy, () -> {
+            fetches.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        // Act
+        String result = kycCache.read(other, () -> {
+            fetches.incrementAndGet();
+            return new CompletableFuture<>();
+        }).join();
+
+        // Assert
+        assertEquals(other.getKycData(), result);
+        assertEquals(1, fetches.get());
+        assertEquals(1.0, meterRegistry.get("kyc.cache.refreshes").tag("outcome", "skipped").counter().count());
+    }
+
+    @Test
+    public void read_pastStalenessBudget_waitsForCbs() {
+        // Arrange
+        Customer customer = customer("12345", Duration.ofHours(25));
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.of(customer));
+
+        // Act
+        String result = kycCache.read(customer, () -> CompletableFuture.completedFuture("{\"firstName\":\"New\"}")).join();
+
+        // Assert
+        assertEquals("{\"firstName\":\"New\"}", result);
+        verify(customerRepository, times(1)).save(any(Customer.class));
+        assertEquals(0.0, meterRegistry.get("kyc.cache.cbs.calls.avoided").counter().count());
+        assertEquals(1.0, meterRegistry.get("kyc.cache.reads").tag("result", "expired").counter().count());
+    }
+
+    private static Customer customer(String customerNumber, Duration age) {
+        Customer customer = new Customer();
+        customer.setCustomerNumber(customerNumber);
+        customer.setKycData("{\"firstName\":\"John\"}");
+        customer.setKycFetchedAt(OffsetDateTime.ofInstant(NOW.minus(age), ZoneOffset.UTC));
+        return customer;
+    }
+}
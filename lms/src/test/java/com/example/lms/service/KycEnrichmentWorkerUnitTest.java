@@ -0,0 +1,197 @@
+package com.example.lms.service;
+
+import com.example.lms.config.CbsProperties;
+import com.example.lms.entity.Customer;
+import com.example.lms.entity.KycStatus;
+import com.example.lms.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class KycEnrichmentWorkerUnitTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-02T00:00:00Z");
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private TaskScheduler kycEnrichmentScheduler;
+
+    private final CbsProperties properties = new CbsProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Instant> retriesScheduledAt = new ArrayList<>();
+
+    private KycEnrichmentWorker worker;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getEnrichment().setConcurrency(1);
+        properties.getEnrichment().setMaxAttempts(3);
+        properties.getEnrichment().setInitialBackoff(Duration.ofSeconds(1));
+        properties.getEnrichment().setMaxBackoff(Duration.ofMinutes(1));
+        worker = new KycEnrichmentWorker(customerRepository, properties, kycEnrichmentScheduler, Runnable::run,
+                meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void enqueue_storesFetchedKycData() {
+        // Arrange
+        Customer customer = pendingCustomer("12345");
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.of(customer));
+        when(customerRepository.save(customer)).thenReturn(customer);
+
+        // Act
+        Customer result = worker.enqueue("12345", () -> CompletableFuture.completedFuture("{\"firstName\":\"John\"}")).join();
+
+        // Assert
+        assertEquals("{\"firstName\":\"John\"}", result.getKycData());
+        assertEquals(NOW, result.getKycFetchedAt().toInstant());
+        assertEquals(KycStatus.ENRICHED.name(), result.getKycStatus());
+        assertEquals(1.0, meterRegistry.get("kyc.enrichment.attempts").tag("outcome", "success").counter().count());
+        assertEquals(0.0, meterRegistry.get("kyc.enrichment.pending").gauge().value());
+    }
+
+    @Test
+    public void enqueue_failedFetch_isRetriedWithBackoff() {
+        // Arrange
+        runRetriesImmediately();
+        Customer customer = pendingCustomer("12345");
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.of(customer));
+        when(customerRepository.save(customer)).thenReturn(customer);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        Customer result = worker.enqueue("12345", () -> attempts.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(new RuntimeException("CBS down"))
+                : CompletableFuture.completedFuture("{\"firstName\":\"John\"}")).join();
+
+        // Assert
+        assertEquals("{\"firstName\":\"John\"}", result.getKycData());
+        assertEquals(3, attempts.get());
+        assertEquals(List.of(NOW.plusSeconds(1), NOW.plusSeconds(2)), retriesScheduledAt);
+        assertEquals(2.0, meterRegistry.get("kyc.enrichment.attempts").tag("outcome", "retry").counter().count());
+    }
+
+    @Test
+    public void enqueue_everyAttemptFails_marksCustomerFailed() {
+        // Arrange
+        runRetriesImmediately();
+        Customer customer = pendingCustomer("12345");
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.of(customer));
+
+        // Act
+        CompletableFuture<Customer> enrichment = worker.enqueue("12345",
+                () -> CompletableFuture.failedFuture(new RuntimeException("CBS down")));
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, enrichment::join);
+        assertEquals("CBS down", exception.getCause().getMessage());
+        assertEquals(KycStatus.FAILED.name(), customer.getKycStatus());
+        verify(customerRepository, times(1)).save(customer);
+        assertEquals(1.0, meterRegistry.get("kyc.enrichment.attempts").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    public void enqueue_sameCustomerTwice_sharesOneEnrichment() {
+        // Arrange
+        AtomicInteger fetches = new AtomicInteger();
+
+        // Act
+        CompletableFuture<Customer> first = worker.enqueue("12345", () -> {
+            fetches.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        CompletableFuture<Customer> second = worker.enqueue("12345", () -> {
+            fetches.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, fetches.get());
+        assertEquals(1.0, meterRegistry.get("kyc.enrichment.pending").gauge().value());
+    }
+
+    @Test
+    public void enqueue_waitsForAFreeSlot() {
+        // Arrange
+        Customer second = pendingCustomer("67890");
+        when(customerRepository.findByCustomerNumber("67890")).thenReturn(Optional.of(second));
+        when(customerRepository.save(second)).thenReturn(second);
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.empty());
+        CompletableFuture<String> firstFetch = new CompletableFuture<>();
+        AtomicInteger secondFetches = new AtomicInteger();
+
+        // Act
+        worker.enqueue("12345", () -> firstFetch);
+        CompletableFuture<Customer> queued = worker.enqueue("67890", () -> {
+            secondFetches.incrementAndGet();
+            return CompletableFuture.completedFuture("{\"firstName\":\"Jane\"}");
+        });
+        int fetchesWhileBusy = secondFetches.get();
+        firstFetch.complete("{\"firstName\":\"John\"}");
+
+        // Assert
+        assertEquals(0, fetchesWhileBusy);
+        assertEquals("{\"firstName\":\"Jane\"}", queued.join().getKycData());
+    }
+
+    @Test
+    public void enqueue_storesResultOnTheWorkerExecutor() {
+        // Arrange - an executor that holds the task, standing in for the kyc-enrichment-store pool
+        List<Runnable> handedOff = new ArrayList<>();
+        worker = new KycEnrichmentWorker(customerRepository, properties, kycEnrichmentScheduler, handedOff::add,
+                meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+        Customer customer = pendingCustomer("12345");
+        when(customerRepository.findByCustomerNumber("12345")).thenReturn(Optional.of(customer));
+        when(customerRepository.save(customer)).thenReturn(customer);
+        CompletableFuture<String> fetch = new CompletableFuture<>();
+
+        // Act - the thread completing the fetch does no database work
+        CompletableFuture<Customer> enrichment = worker.enqueue("12345", () -> fetch);
+        fetch.complete("{\"firstName\":\"John\"}");
+        verifyNoInteractions(customerRepository);
+        handedOff.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(1, handedOff.size());
+        assertEquals("{\"firstName\":\"John\"}", enrichment.join().getKycData());
+    }
+
+    private void runRetriesImmediately() {
+        when(kycEnrichmentScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            retriesScheduledAt.add(invocation.getArgument(1));
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+    }
+
+    private static Customer pendingCustomer(String customerNumber) {
+        Customer customer = new Customer();
+        customer.setCustomerNumber(customerNumber);
+        customer.setKycStatus(KycStatus.PENDING_KYC.name());
+        return customer;
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.test.context.ActiveProfiles;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -49,11 +50,12 @@ public class LoanServiceIntegrationTest {
         savedLoan.setStatus(LoanStatus.PENDING.name());
         
         when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
+        when(customerService.awaitKyc(customer)).thenReturn(CompletableFuture.completedFuture(customer));
         when(loanRepository.existsByCustomerAndStatusIn(eq(customer), any())).thenReturn(false);
         when(loanRepository.save(any(Loan.class))).thenReturn(savedLoan);
 
         // Act
-        Loan result = loanService.createLoanApplication(customerNumber, amount);
+        Loan result = loanService.createLoanApplication(customerNumber, amount).join();
 
         // Assert
         assertNotNull(result);
@@ -1,6 +1,8 @@
 package com.example.lms.service;
 
+import com.example.lms.client.CbsUnavailableException;
 import com.example.lms.entity.Customer;
+import com.example.lms.entity.KycStatus;
 import com.example.lms.entity.Loan;
 import com.example.lms.entity.LoanStatus;
 import com.example.lms.repository.LoanRepository;
@@ -14,6 +16,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -46,11 +50,12 @@ public class LoanServiceUnitTest {
         savedLoan.setStatus(LoanStatus.PENDING.name());
         
         when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
+        when(customerService.awaitKyc(customer)).thenReturn(CompletableFuture.completedFuture(customer));
         when(loanRepository.existsByCustomerAndStatusIn(eq(customer), any())).thenReturn(false);
         when(loanRepository.save(any(Loan.class))).thenReturn(savedLoan);
 
         // Act
-        Loan result = loanService.createLoanApplication(customerNumber, amount);
+        Loan result = loanService.createLoanApplication(customerNumber, amount).join();
 
         // Assert
         assertNotNull(result);
@@ -98,14 +103,15 @@ public class LoanServiceUnitTest {
         );
         
         when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
+        when(customerService.awaitKyc(customer)).thenReturn(CompletableFuture.completedFuture(customer));
         when(loanRepository.existsByCustomerAndStatusIn(eq(customer), eq(activeStatuses))).thenReturn(true);
 
         // Act & Assert
-        Exception exception = assertThrows(RuntimeException.class, () -> {
-            loanService.createLoanApplication(customerNumber, amount);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            loanService.createLoanApplication(customerNumber, amount).join();
         });
         
-        assertEquals("Customer has existing loan", exception.getMessage());
+        assertEquals("Customer has existing loan", exception.getCause().getMessage());
         verify(customerService, times(1)).findByCustomerNumber(customerNumber);
         verify(loanRepository, times(1)).existsByCustomerAndStatusIn(eq(customer), eq(activeStatuses));
         verify(loanRepository, never()).save(any(Loan.class));
@@ -205,4 +211,77 @@ public class LoanServiceUnitTest {
         assertEquals("Requested amount exceeds approved limit", loan.getRejectionReason());
         verify(loanRepository, times(1)).save(loan);
     }
+
+    @Test
+    public void createLoanApplication_pendingKyc_waitsForEnrichment() {
+        // Arrange
+        String customerNumber = "12345";
+        Double amount = 5000.0;
+
+        Customer pending = new Customer();
+        pending.setCustomerNumber(customerNumber);
+        pending.setKycStatus(KycStatus.PENDING_KYC.name());
+        Customer enriched = new Customer();
+        enriched.setCustomerNumber(customerNumber);
+        enriched.setKycStatus(KycStatus.ENRICHED.name());
+        enriched.setKycData("{\"firstName\":\"John\"}");
+
+        when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(pending));
+        when(customerService.awaitKyc(pending)).thenReturn(CompletableFuture.completedFuture(enriched));
+        when(loanRepository.existsByCustomerAndStatusIn(eq(enriched), any())).thenReturn(false);
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Loan result = loanService.createLoanApplication(customerNumber, amount).join();
+
+        // Assert
+        assertEquals(enriched, result.getCustomer());
+        verify(customerService, times(1)).awaitKyc(pending);
+    }
+
+    @Test
+    public void createLoanApplication_kycStillPending_fails() {
+        // Arrange
+        String customerNumber = "12345";
+        Customer pending = new Customer();
+        pending.setCustomerNumber(customerNumber);
+        pending.setKycStatus(KycStatus.PENDING_KYC.name());
+
+        when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(pending));
+        when(customerService.awaitKyc(pending)).thenReturn(CompletableFuture.failedFuture(
+                new CbsUnavailableException("KYC data for customer 12345 is still being fetched from the CBS", null)));
+
+        // Act & Assert
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            loanService.createLoanApplication(customerNumber, 5000.0).join();
+        });
+
+        assertInstanceOf(CbsUnavailableException.class, exception.getCause());
+        assertEquals("KYC data for customer 12345 is still being fetched from the CBS", exception.getCause().getMessage());
+        verify(loanRepository, never()).save(any(Loan.class));
+    }
+
+    @Test
+    public void createLoanApplication_pendingKyc_returnsBeforeEnrichmentCompletes() {
+        // Arrange
+        String customerNumber = "12345";
+        Customer pending = new Customer();
+        pending.setCustomerNumber(customerNumber);
+        pending.setKycStatus(KycStatus.PENDING_KYC.name());
+        CompletableFuture<Customer> enrichment = new CompletableFuture<>();
+
+        when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(pending));
+        when(customerService.awaitKyc(pending)).thenReturn(enrichment);
+        when(loanRepository.existsByCustomerAndStatusIn(eq(pending), any())).thenReturn(false);
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CompletableFuture<Loan> application = loanService.createLoanApplication(customerNumber, 5000.0);
+
+        // Assert
+        assertFalse(application.isDone());
+        verify(loanRepository, never()).save(any(Loan.class));
+        enrichment.complete(pending);
+        assertEquals(pending, application.join().getCustomer());
+    }
 }
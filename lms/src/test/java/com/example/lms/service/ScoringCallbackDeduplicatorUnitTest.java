@@ -0,0 +1,87 @@
+package com.example.lms.service;
+
+import com.example.lms.config.ScoringEngineProperties;
+import com.example.lms.entity.Loan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoringCallbackDeduplicatorUnitTest {
+
+    private final ScoringEngineProperties properties = new ScoringEngineProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    private ScoringCallbackDeduplicator deduplicator;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getCallbackDedup().setWindow(Duration.ofMinutes(15));
+        properties.getCallbackDedup().setMaxEntries(2);
+        deduplicator = new ScoringCallbackDeduplicator(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    public void claim_duplicateReturnsEarlierOutcome() {
+        // Arrange
+        CompletableFuture<Loan> first = new CompletableFuture<>();
+        assertNull(deduplicator.claim("token-1", first));
+
+        // Act
+        CompletableFuture<Loan> earlier = deduplicator.claim("token-1", new CompletableFuture<>());
+
+        // Assert
+        assertSame(first, earlier);
+        assertEquals(1.0, meterRegistry.get("scoring.callback.deliveries").tag("delivery", "first").counter().count());
+        assertEquals(1.0, meterRegistry.get("scoring.callback.deliveries").tag("delivery", "duplicate").counter().count());
+    }
+
+    @Test
+    public void claim_forgetsTokensOutsideTheWindow() {
+        // Arrange
+        deduplicator.claim("token-1", new CompletableFuture<>());
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(16));
+
+        // Act & Assert
+        assertNull(deduplicator.claim("token-1", new CompletableFuture<>()));
+        assertEquals(1, deduplicator.size());
+    }
+
+    @Test
+    public void claim_forgetsOldestTokenWhenFull() {
+        // Arrange
+        deduplicator.claim("token-1", new CompletableFuture<>());
+        deduplicator.claim("token-2", new CompletableFuture<>());
+
+        // Act
+        deduplicator.claim("token-3", new CompletableFuture<>());
+
+        // Assert
+        assertEquals(2, deduplicator.size());
+        assertNull(deduplicator.claim("token-1", new CompletableFuture<>()));
+    }
+
+    @Test
+    public void release_onlyForgetsTheFailedAttempt() {
+        // Arrange
+        CompletableFuture<Loan> first = new CompletableFuture<>();
+        deduplicator.claim("token-1", first);
+
+        // Act
+        deduplicator.release("token-1", new CompletableFuture<>());
+
+        // Assert - a stale release does not drop the live entry
+        assertSame(first, deduplicator.claim("token-1", new CompletableFuture<>()));
+
+        deduplicator.release("token-1", first);
+        assertEquals(0, deduplicator.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.lms.service;
+
+import com.example.lms.config.ScoringEngineProperties;
+import com.example.lms.dto.ScoringTraceResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoringLatencyTrackerUnitTest {
+
+    private final ScoringEngineProperties properties = new ScoringEngineProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+
+    private ScoringLatencyTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setCallbackTimeout(Duration.ofSeconds(60));
+        properties.getLatency().setSla(Duration.ofSeconds(30));
+        tracker = new ScoringLatencyTracker(properties, meterRegistry, clock);
+    }
+
+    @Test
+    public void decisionPersisted_recordsEachStage() {
+        // Arrange
+        UUID loanId = UUID.randomUUID();
+        tracker.initiated("token-1", "12345", loanId);
+        clock.advance(Duration.ofMillis(200));
+        tracker.engineAccepted("token-1");
+        clock.advance(Duration.ofSeconds(5));
+        tracker.callbackReceived("token-1");
+        clock.advance(Duration.ofMillis(50));
+
+        // Act
+        tracker.decisionPersisted("token-1");
+
+        // Assert
+        assertEquals(200, stageMillis("dispatch"));
+        assertEquals(5000, stageMillis("engine"));
+        assertEquals(50, stageMillis("decision"));
+        assertEquals(5250, stageMillis("end_to_end"));
+        assertTrue(tracker.getOutliers().isEmpty());
+    }
+
+    @Test
+    public void decisionPersisted_keepsScoringsOverTheSlaAsOutliers() {
+        // Arrange
+        tracker.initiated("token-1", "12345", null);
+        tracker.engineAccepted("token-1");
+        clock.advance(Duration.ofSeconds(45));
+        tracker.callbackReceived("token-1");
+
+        // Act
+        tracker.decisionPersisted("token-1");
+
+        // Assert
+        List<ScoringTraceResponse> outliers = tracker.getOutliers();
+        assertEquals(1, outliers.size());
+        assertEquals("token-1", outliers.get(0).getToken());
+        assertEquals(45000L, outliers.get(0).getEndToEndMs());
+        assertNull(outliers.get(0).getReason());
+    }
+
+    @Test
+    public void getLostCallbacks_includesOverdueScorings() {
+        // Arrange
+        tracker.initiated("token-1", "12345", null);
+        tracker.engineAccepted("token-1");
+        clock.advance(Duration.ofSeconds(61));
+
+        // Act
+        List<ScoringTraceResponse> lost = tracker.getLostCallbacks();
+
+        // Assert
+        assertEquals(1, lost.size());
+        assertEquals("token-1", lost.get(0).getToken());
+        assertNotNull(lost.get(0).getEngineAcceptedAt());
+        assertNull(lost.get(0).getCallbackReceivedAt());
+        assertEquals(1.0, meterRegistry.get("scoring.callbacks.lost").counter().count());
+    }
+
+    @Test
+    public void lost_ignoresSettledTokens() {
+        // Arrange
+        tracker.initiated("token-1", "12345", null);
+        tracker.decisionPersisted("token-1");
+
+        // Act
+        tracker.lost("token-1", "Callback not received within PT1M");
+
+        // Assert
+        assertTrue(tracker.getLostCallbacks().isEmpty());
+    }
+
+    private long stageMillis(String stage) {
+        return (long) meterRegistry.get("scoring.latency").tag("stage", stage).timer().totalTime(TimeUnit.MILLISECONDS);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
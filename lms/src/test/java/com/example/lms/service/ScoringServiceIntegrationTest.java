@@ -15,6 +15,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -48,10 +49,10 @@ public class ScoringServiceIntegrationTest {
         customer.setCustomerNumber(customerNumber);
         
         when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
-        doNothing().when(scoringEngineClient).getScore(any(Map.class));
+        when(scoringEngineClient.getScore(any(Map.class))).thenReturn(Collections.emptyMap());
 
         // Act
-        String token = scoringService.initiateScoreQuery(customerNumber);
+        String token = scoringService.initiateScoreQuery(customerNumber).join();
 
         // Assert
         assertNotNull(token);
@@ -72,13 +73,16 @@ public class ScoringServiceIntegrationTest {
         loan.setAmount(5000.0);
         loan.setStatus(LoanStatus.PENDING.name());
         
-        doNothing().when(loanService).updateLoanWithScoreAndLimit(any(Loan.class), anyDouble(), anyDouble());
+        when(scoringEngineClient.getScore(any(Map.class))).thenReturn(Collections.emptyMap());
 
         // Act
-        scoringService.scoreLoan(loan);
+        CompletableFuture<Loan> result = scoringService.scoreLoan(loan);
 
-        // Assert
-        verify(loanService, times(1)).updateLoanWithScoreAndLimit(eq(loan), anyDouble(), anyDouble());
+        // Assert - the request is dispatched off the calling thread and the loan stays pending
+        assertNotNull(result);
+        assertFalse(result.isDone());
+        verify(scoringEngineClient, timeout(1000).times(1)).getScore(any(Map.class));
+        verify(loanService, never()).updateLoanWithScoreAndLimit(any(Loan.class), anyDouble(), anyDouble());
     }
 
     // Note: processScoreCallback is difficult to test in integration due to the private token map
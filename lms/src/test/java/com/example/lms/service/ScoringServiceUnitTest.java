@@ -1,20 +1,31 @@
 package com.example.lms.service;
 
-import com.example.lms.client.ScoringEngineClient;
+import com.example.lms.client.ScoringDispatchQueue;
+import com.example.lms.client.ScoringPriority;
+import com.example.lms.client.ScoringEngineUnavailableException;
+import com.example.lms.config.ScoringEngineProperties;
 import com.example.lms.entity.Customer;
 import com.example.lms.entity.Loan;
 import com.example.lms.entity.LoanStatus;
 import com.example.lms.repository.LoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,7 +44,20 @@ public class ScoringServiceUnitTest {
     private LoanRepository loanRepository;
 
     @Mock
-    private ScoringEngineClient scoringEngineClient;
+    private ScoringDispatchQueue scoringDispatchQueue;
+
+    @Spy
+    private ScoringEngineProperties scoringEngineProperties = new ScoringEngineProperties();
+
+    @Spy
+    private ScoringCallbackDeduplicator scoringCallbackDeduplicator =
+            new ScoringCallbackDeduplicator(new ScoringEngineProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    private ScoringLatencyTracker scoringLatencyTracker;
+
+    @Mock
+    private TaskScheduler scoringScheduler;
 
     @InjectMocks
     private ScoringServiceImpl scoringService;
@@ -46,15 +70,15 @@ public class ScoringServiceUnitTest {
         customer.setCustomerNumber(customerNumber);
         
         when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
-        doNothing().when(scoringEngineClient).getScore(any(Map.class));
+        when(scoringDispatchQueue.submit(any(ScoringPriority.class), any(Map.class))).thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
 
         // Act
-        String token = scoringService.initiateScoreQuery(customerNumber);
+        String token = scoringService.initiateScoreQuery(customerNumber).join();
 
         // Assert
         assertNotNull(token);
         verify(customerService, times(1)).findByCustomerNumber(customerNumber);
-        verify(scoringEngineClient, times(1)).getScore(any(Map.class));
+        verify(scoringDispatchQueue, times(1)).submit(eq(ScoringPriority.RESCORE), any(Map.class));
     }
 
     @Test
@@ -70,7 +94,7 @@ public class ScoringServiceUnitTest {
         
         assertEquals("Customer not found", exception.getMessage());
         verify(customerService, times(1)).findByCustomerNumber(customerNumber);
-        verify(scoringEngineClient, never()).getScore(any(Map.class));
+        verify(scoringDispatchQueue, never()).submit(any(ScoringPriority.class), any(Map.class));
     }
 
     @Test
@@ -81,16 +105,37 @@ public class ScoringServiceUnitTest {
         customer.setCustomerNumber(customerNumber);
         
         when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
-        doThrow(new RuntimeException("Scoring engine error")).when(scoringEngineClient).getScore(any(Map.class));
+        when(scoringDispatchQueue.submit(any(ScoringPriority.class), any(Map.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Scoring engine error")));
 
         // Act & Assert
-        Exception exception = assertThrows(RuntimeException.class, () -> {
-            scoringService.initiateScoreQuery(customerNumber);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            scoringService.initiateScoreQuery(customerNumber).join();
         });
         
-        assertTrue(exception.getMessage().contains("Failed to initiate score query"));
+        assertTrue(exception.getCause().getMessage().contains("Failed to initiate score query"));
         verify(customerService, times(1)).findByCustomerNumber(customerNumber);
-        verify(scoringEngineClient, times(1)).getScore(any(Map.class));
+        verify(scoringDispatchQueue, times(1)).submit(any(ScoringPriority.class), any(Map.class));
+    }
+
+    @Test
+    public void initiateScoreQuery_scoringEngineUnavailable() {
+        // Arrange
+        String customerNumber = "12345";
+        Customer customer = new Customer();
+        customer.setCustomerNumber(customerNumber);
+
+        when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
+        when(scoringDispatchQueue.submit(any(ScoringPriority.class), any(Map.class))).thenReturn(CompletableFuture.failedFuture(
+                new ScoringEngineUnavailableException("Scoring engine unavailable: circuit is open")));
+
+        // Act & Assert - the refusal is passed through untouched so the controller can answer 503
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            scoringService.initiateScoreQuery(customerNumber).join();
+        });
+
+        assertInstanceOf(ScoringEngineUnavailableException.class, exception.getCause());
+        assertEquals("Scoring engine unavailable: circuit is open", exception.getCause().getMessage());
     }
 
     @Test
@@ -132,6 +177,47 @@ public class ScoringServiceUnitTest {
         assertFalse(tokenMap.containsKey(token));
     }
 
+    @Test
+    public void processScoreCallback_duplicateAnsweredFromMemory() throws Exception {
+        // Arrange
+        String token = UUID.randomUUID().toString();
+        String customerNumber = "12345";
+
+        Customer customer = new Customer();
+        customer.setCustomerNumber(customerNumber);
+
+        Loan pendingLoan = new Loan();
+        pendingLoan.setCustomer(customer);
+        pendingLoan.setStatus(LoanStatus.PENDING.name());
+
+        java.lang.reflect.Field field = ScoringServiceImpl.class.getDeclaredField("tokenToCustomerMap");
+        field.setAccessible(true);
+        Map<String, String> tokenMap = (Map<String, String>) field.get(scoringService);
+        tokenMap.put(token, customerNumber);
+
+        when(customerService.findByCustomerNumber(customerNumber)).thenReturn(Optional.of(customer));
+        when(loanRepository.findByCustomer(customer)).thenReturn(java.util.List.of(pendingLoan));
+        Loan first = scoringService.processScoreCallback(token, 750.0, 10000.0);
+
+        // Act
+        Loan duplicate = scoringService.processScoreCallback(token, 750.0, 10000.0);
+
+        // Assert - same answer, and no second lookup or update
+        assertSame(first, duplicate);
+        verify(customerService, times(1)).findByCustomerNumber(customerNumber);
+        verify(loanRepository, times(1)).findByCustomer(customer);
+        verify(loanService, times(1)).updateLoanWithScoreAndLimit(pendingLoan, 750.0, 10000.0);
+    }
+
+    @Test
+    public void processScoreCallback_invalidTokenIsNotRemembered() {
+        // Act & Assert - a failed delivery is forgotten, so a retry is processed again
+        assertThrows(RuntimeException.class, () -> scoringService.processScoreCallback("invalid-token", 750.0, 10000.0));
+        assertThrows(RuntimeException.class, () -> scoringService.processScoreCallback("invalid-token", 750.0, 10000.0));
+
+        verify(scoringCallbackDeduplicator, times(2)).release(eq("invalid-token"), any());
+    }
+
     @Test
     public void processScoreCallback_invalidToken() {
         // Arrange
@@ -153,15 +239,108 @@ public class ScoringServiceUnitTest {
     @Test
     public void scoreLoan_success() {
         // Arrange
-        Loan loan = new Loan();
-        loan.setStatus(LoanStatus.PENDING.name());
-        
-        doNothing().when(loanService).updateLoanWithScoreAndLimit(any(Loan.class), anyDouble(), anyDouble());
+        Loan loan = createPendingLoan();
+        when(scoringDispatchQueue.submit(any(ScoringPriority.class), any(Map.class))).thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+
+        // Act
+        CompletableFuture<Loan> result = scoringService.scoreLoan(loan);
+
+        // Assert - dispatched, deadline armed, nothing decided until the callback arrives
+        assertFalse(result.isDone());
+        verify(scoringDispatchQueue, times(1)).submit(eq(ScoringPriority.NEW_APPLICATION), any(Map.class));
+        verify(scoringScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        verify(loanService, never()).updateLoanWithScoreAndLimit(any(), any(), any());
+    }
+
+    @Test
+    public void scoreLoan_completesOnCallback() throws Exception {
+        // Arrange
+        Loan loan = createPendingLoan();
+        ArgumentCaptor<Map<String, Object>> requestCaptor = ArgumentCaptor.forClass(Map.class);
+        when(scoringDispatchQueue.submit(eq(ScoringPriority.NEW_APPLICATION), requestCaptor.capture())).thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+
+        CompletableFuture<Loan> result = scoringService.scoreLoan(loan);
+        String token = (String) requestCaptor.getValue().get("token");
 
         // Act
-        scoringService.scoreLoan(loan);
+        Loan callbackLoan = scoringService.processScoreCallback(token, 750.0, 10000.0);
+
+        // Assert - the dispatched loan is updated directly, without a customer lookup
+        assertSame(loan, callbackLoan);
+        assertTrue(result.isDone());
+        assertSame(loan, result.get());
+        verify(loanService, times(1)).updateLoanWithScoreAndLimit(loan, 750.0, 10000.0);
+        verify(loanRepository, never()).findByCustomer(any());
+        verify(scoringLatencyTracker).initiated(token, "12345", loan.getLoanId());
+        verify(scoringLatencyTracker).engineAccepted(token);
+        verify(scoringLatencyTracker).callbackReceived(token);
+        verify(scoringLatencyTracker).decisionPersisted(token);
+    }
+
+    @Test
+    public void scoreLoan_deadlineAppliesManualReview() throws Exception {
+        // Arrange
+        Loan loan = createPendingLoan();
+        ArgumentCaptor<Runnable> deadlineCaptor = ArgumentCaptor.forClass(Runnable.class);
+        when(scoringDispatchQueue.submit(any(ScoringPriority.class), any(Map.class))).thenReturn(CompletableFuture.completedFuture(new HashMap<>()));
+
+        CompletableFuture<Loan> result = scoringService.scoreLoan(loan);
+        verify(scoringScheduler).schedule(deadlineCaptor.capture(), any(Instant.class));
+
+        // Act
+        deadlineCaptor.getValue().run();
 
         // Assert
-        verify(loanService, times(1)).updateLoanWithScoreAndLimit(eq(loan), anyDouble(), anyDouble());
+        assertTrue(result.isDone());
+        assertSame(loan, result.get());
+        verify(loanService, times(1)).updateLoanStatus(eq(loan), eq(LoanStatus.MANUAL_REVIEW), anyString());
+        verify(scoringLatencyTracker).lost(anyString(), startsWith("Callback not received"));
+    }
+
+    @Test
+    public void scoreLoan_retryPolicyRedispatchesAfterBackoffThenExpires() throws Exception {
+        // Arrange
+        scoringEngineProperties.setTimeoutPolicy(ScoringEngineProperties.TimeoutPolicy.RETRY);
+        scoringEngineProperties.setMaxRetries(1);
+        scoringEngineProperties.setRetryBackoff(Duration.ofSeconds(2));
+        Loan loan = createPendingLoan();
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> timeCaptor = ArgumentCaptor.forClass(Instant.class);
+        when(scoringDispatchQueue.submit(any(ScoringPriority.class), any(Map.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Scoring engine error")));
+
+        // Act - the first dispatch fails straight away; its retry is only scheduled, not sent
+        Instant before = Instant.now();
+        CompletableFuture<Loan> result = scoringService.scoreLoan(loan);
+        Instant after = Instant.now();
+
+        // Assert
+        assertFalse(result.isDone());
+        verify(scoringDispatchQueue, times(1)).submit(any(ScoringPriority.class), any(Map.class));
+        verify(scoringScheduler, times(2)).schedule(taskCaptor.capture(), timeCaptor.capture());
+        Instant retryAt = timeCaptor.getAllValues().get(1);
+        assertFalse(retryAt.isBefore(before.plusSeconds(2)));
+        assertFalse(retryAt.isAfter(after.plusSeconds(2)));
+
+        // Act - the backoff passes and the retry fails too, which spends the retry budget
+        taskCaptor.getAllValues().get(1).run();
+
+        // Assert
+        assertTrue(result.isDone());
+        assertSame(loan, result.get());
+        verify(scoringDispatchQueue, times(2)).submit(any(ScoringPriority.class), any(Map.class));
+        verify(loanService, times(1)).updateLoanStatus(eq(loan), eq(LoanStatus.EXPIRED), anyString());
+    }
+
+    private Loan createPendingLoan() {
+        Customer customer = new Customer();
+        customer.setCustomerNumber("12345");
+
+        Loan loan = new Loan();
+        loan.setLoanId(UUID.randomUUID());
+        loan.setCustomer(customer);
+        loan.setAmount(5000.0);
+        loan.setStatus(LoanStatus.PENDING.name());
+        return loan;
     }
 }
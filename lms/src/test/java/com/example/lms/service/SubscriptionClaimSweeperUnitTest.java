@@ -0,0 +1,76 @@
+package com.example.lms.service;
+
+import com.example.lms.config.CbsProperties;
+import com.example.lms.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionClaimSweeperUnitTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-02T00:00:00Z");
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private TaskScheduler kycEnrichmentScheduler;
+
+    private final CbsProperties properties = new CbsProperties();
+
+    private SubscriptionClaimSweeper sweeper;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setReplyTimeout(Duration.ofSeconds(5));
+        sweeper = new SubscriptionClaimSweeper(customerRepository, properties, kycEnrichmentScheduler,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void sweep_deletesClaimsOlderThanTwiceTheReplyTimeout() {
+        // Arrange
+        when(customerRepository.deleteClaimsOlderThan(any(OffsetDateTime.class))).thenReturn(2);
+
+        // Act
+        int swept = sweeper.sweep();
+
+        // Assert
+        assertEquals(2, swept);
+        verify(customerRepository, times(1)).deleteClaimsOlderThan(OffsetDateTime.ofInstant(NOW.minusSeconds(10), ZoneOffset.UTC));
+    }
+
+    @Test
+    public void sweep_databaseError_isRetriedOnTheNextRun() {
+        // Arrange
+        when(customerRepository.deleteClaimsOlderThan(any(OffsetDateTime.class))).thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act & Assert
+        assertEquals(0, sweeper.sweep());
+    }
+
+    @Test
+    public void start_sweepsEveryClaimExpiry() {
+        // Act
+        sweeper.start();
+
+        // Assert
+        verify(kycEnrichmentScheduler, times(1)).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofSeconds(10)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.middleware.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One score request's payload handling: read the engine's JSON, copy it out of the cache, and write the
+ * response, through a {@code Map<String, Object>} as before against the {@link ScoreResponse} record.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per request;
+ * {@code -prof jfr} records where the allocations come from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScorePayloadBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private static final String ENGINE_JSON =
+            "{\"customerNumber\":\"234774784\",\"score\":712,\"limit\":2360.0,\"scoreDate\":\"2025-03-22\"}";
+
+    // Configured like the mapper Spring Boot gives the RestTemplate and MVC
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Benchmark
+    public byte[] map() throws IOException {
+        Map<String, Object> score = objectMapper.readValue(ENGINE_JSON, MAP_TYPE);
+        // The cache handed out a defensive copy of every map it served
+        Map<String, Object> served = new HashMap<>(score);
+        return objectMapper.writeValueAsBytes(served);
+    }
+
+    @Benchmark
+    public byte[] record() throws IOException {
+        ScoreResponse score = objectMapper.readValue(ENGINE_JSON, ScoreResponse.class);
+        return objectMapper.writeValueAsBytes(score);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.middleware.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Thread pool for the background dependency probes; one thread per dependency, so a probe stuck on a slow
+ * dependency never delays the others.
+ */
+@Configuration
+public class DependencyHealthConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler healthProbeScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(3);
+        scheduler.setThreadNamePrefix("health-probe-");
+        return scheduler;
+    }
+}
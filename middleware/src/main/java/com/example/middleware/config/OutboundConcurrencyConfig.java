@@ -0,0 +1,41 @@
+package com.example.middleware.config;
+
+import com.example.middleware.service.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One adaptive concurrency limiter per backend. The connection pools bound how high a limit can usefully
+ * go, so each {@code max-limit} defaults to its backend's per-route pool size.
+ */
+@Configuration
+public class OutboundConcurrencyConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter scoringEngineLimiter(MeterRegistry meterRegistry,
+            @Value("${scoring.engine.concurrency.initial-limit:10}") int initialLimit,
+            @Value("${scoring.engine.concurrency.min-limit:2}") int minLimit,
+            @Value("${scoring.engine.concurrency.max-limit:20}") int maxLimit,
+            @Value("${scoring.engine.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${scoring.engine.concurrency.slow-call-ms:3000}") long slowCallMs,
+            @Value("${scoring.engine.concurrency.max-queue:50}") int maxQueue,
+            @Value("${scoring.engine.concurrency.max-wait-ms:50}") long maxWaitMs) {
+        return new AdaptiveConcurrencyLimiter("scoring-engine", meterRegistry, initialLimit, minLimit, maxLimit,
+                backoffRatio, slowCallMs, maxQueue, maxWaitMs);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter cbsLimiter(MeterRegistry meterRegistry,
+            @Value("${cbs.concurrency.initial-limit:10}") int initialLimit,
+            @Value("${cbs.concurrency.min-limit:2}") int minLimit,
+            @Value("${cbs.concurrency.max-limit:20}") int maxLimit,
+            @Value("${cbs.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${cbs.concurrency.slow-call-ms:5000}") long slowCallMs,
+            @Value("${cbs.concurrency.max-queue:50}") int maxQueue,
+            @Value("${cbs.concurrency.max-wait-ms:50}") long maxWaitMs) {
+        return new AdaptiveConcurrencyLimiter("cbs", meterRegistry, initialLimit, minLimit, maxLimit,
+                backoffRatio, slowCallMs, maxQueue, maxWaitMs);
+    }
+}
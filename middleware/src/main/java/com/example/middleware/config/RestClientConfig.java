@@ -1,10 +1,24 @@
 package com.example.middleware.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * Configuration for REST clients used in the application.
  * Simplified configuration for Spring Boot 3.4.4.
@@ -12,10 +26,56 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestClientConfig {
 
+    /**
+     * Connection pool for the scoring engine calls, so connections are kept alive and reused, and a
+     * call waits at most {@code pool-acquire-timeout} for one when the pool is exhausted.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager restConnectionManager(
+            @Value("${scoring.engine.http.max-connections:50}") int maxConnections,
+            @Value("${scoring.engine.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${scoring.engine.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${scoring.engine.http.response-timeout:5s}") Duration responseTimeout,
+            @Value("${scoring.engine.http.time-to-live:5m}") Duration timeToLive) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(responseTimeout))
+                        .setTimeToLive(TimeValue.of(timeToLive))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient restHttpClient(
+            PoolingHttpClientConnectionManager restConnectionManager,
+            @Value("${scoring.engine.http.response-timeout:5s}") Duration responseTimeout,
+            @Value("${scoring.engine.http.pool-acquire-timeout:1s}") Duration poolAcquireTimeout,
+            @Value("${scoring.engine.http.idle-timeout:30s}") Duration idleTimeout) {
+        return HttpClients.custom()
+                .setConnectionManager(restConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(responseTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder restPoolMetrics(PoolingHttpClientConnectionManager restConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(restConnectionManager, "scoring-engine");
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(CloseableHttpClient restHttpClient) {
         return new RestTemplateBuilder()
                 .defaultHeader("User-Agent", "Middleware Client")
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(restHttpClient))
                 .build();
     }
 }
@@ -0,0 +1,37 @@
+package com.example.middleware.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Thread pools behind the asynchronous scoring engine calls. Request threads hand each call to
+ * {@code scoringEngineExecutor} and return; retries wait on {@code scoringRetryScheduler}, which
+ * holds no thread while a backoff runs.
+ */
+@Configuration
+public class ScoringEngineAsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor scoringEngineExecutor(
+            @Value("${scoring.engine.executor.threads:16}") int threads,
+            @Value("${scoring.engine.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // A full queue refuses the call at once instead of letting a brownout pile up work
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("scoring-engine-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler scoringRetryScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("scoring-retry-");
+        return scheduler;
+    }
+}
@@ -1,9 +1,23 @@
 package com.example.middleware.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.transport.http.HttpComponents5MessageSender;
+
+import java.time.Duration;
 
 @Configuration
 public class SoapClientConfig {
@@ -16,11 +30,59 @@ public class SoapClientConfig {
         return marshaller;
     }
 
+    /**
+     * Connection pool shared by every SOAP call to the CBS, so connections (and their TLS sessions)
+     * are kept alive and reused instead of opened per call.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager soapConnectionManager(
+            @Value("${cbs.http.max-connections:20}") int maxConnections,
+            @Value("${cbs.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${cbs.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${cbs.http.socket-timeout:10s}") Duration socketTimeout,
+            @Value("${cbs.http.time-to-live:5m}") Duration timeToLive) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(socketTimeout))
+                        .setTimeToLive(TimeValue.of(timeToLive))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient soapHttpClient(
+            PoolingHttpClientConnectionManager soapConnectionManager,
+            @Value("${cbs.http.socket-timeout:10s}") Duration socketTimeout,
+            @Value("${cbs.http.pool-acquire-timeout:1s}") Duration poolAcquireTimeout,
+            @Value("${cbs.http.idle-timeout:30s}") Duration idleTimeout) {
+        return HttpClients.custom()
+                .setConnectionManager(soapConnectionManager)
+                // Spring WS sets Content-Length and SOAPAction itself; without this the client rejects the request
+                .addRequestInterceptorFirst(new HttpComponents5MessageSender.RemoveSoapHeadersInterceptor())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(socketTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder soapPoolMetrics(PoolingHttpClientConnectionManager soapConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(soapConnectionManager, "cbs-soap");
+    }
+
     @Bean
-    public WebServiceTemplate webServiceTemplate(Jaxb2Marshaller marshaller) {
+    public WebServiceTemplate webServiceTemplate(Jaxb2Marshaller marshaller, CloseableHttpClient soapHttpClient) {
         WebServiceTemplate webServiceTemplate = new WebServiceTemplate();
         webServiceTemplate.setMarshaller(marshaller);
         webServiceTemplate.setUnmarshaller(marshaller);
+        webServiceTemplate.setMessageSender(new HttpComponents5MessageSender(soapHttpClient));
         return webServiceTemplate;
     }
 }
@@ -1,5 +1,7 @@
 package com.example.middleware.controller;
 
+import com.example.middleware.dto.DependencyStatus;
+import com.example.middleware.service.DependencyHealthMonitor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,15 +17,26 @@ import java.util.Map;
 @RequestMapping("/health")
 public class HealthController {
 
+    private final DependencyHealthMonitor dependencyHealthMonitor;
+
+    public HealthController(DependencyHealthMonitor dependencyHealthMonitor) {
+        this.dependencyHealthMonitor = dependencyHealthMonitor;
+    }
+
     /**
-     * Simple health check endpoint
-     * @return A response indicating the service is up
+     * Health check endpoint, answered from the latest background probes without calling any dependency
+     * @return UP when every dependency is up and DEGRADED otherwise, with the status of each dependency
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> healthCheck() {
+        Map<String, DependencyStatus> dependencies = dependencyHealthMonitor.snapshot();
+        boolean allUp = dependencies.values().stream().allMatch(DependencyStatus::isUp);
+
         Map<String, Object> response = new HashMap<>();
-        response.put("status", "UP");
+        // Always 200: the service itself is alive, and a platform restarting it would not fix a dependency
+        response.put("status", allUp ? "UP" : "DEGRADED");
         response.put("service", "middleware");
+        response.put("dependencies", dependencies);
         return ResponseEntity.ok(response);
     }
 }
@@ -1,11 +1,23 @@
 package com.example.middleware.controller;
 
+import com.example.middleware.dto.BatchScoreRequest;
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.dto.ScoreResponse;
+import com.example.middleware.dto.TransactionSummary;
+import com.example.middleware.service.BatchScoringService;
 import com.example.middleware.service.ScoringEngineService;
 import com.example.middleware.service.TransactionDataService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -13,34 +25,68 @@ public class MiddlewareController {
 
     private final TransactionDataService transactionDataService;
     private final ScoringEngineService scoringEngineService;
+    private final BatchScoringService batchScoringService;
+
+    @Value("${scoring.engine.batch.timeout-ms:600000}")
+    private long batchTimeoutMs;
 
     public MiddlewareController(TransactionDataService transactionDataService, 
-                               ScoringEngineService scoringEngineService) {
+                               ScoringEngineService scoringEngineService,
+                               BatchScoringService batchScoringService) {
         this.transactionDataService = transactionDataService;
         this.scoringEngineService = scoringEngineService;
+        this.batchScoringService = batchScoringService;
     }
 
     @GetMapping("/transactions/{customerNumber}")
-    public ResponseEntity<Map<String, Object>> getTransactionData(@PathVariable String customerNumber) {
-        Map<String, Object> response = transactionDataService.getTransactionData(customerNumber);
+    public ResponseEntity<TransactionSummary> getTransactionData(@PathVariable String customerNumber) {
+        TransactionSummary response = transactionDataService.getTransactionData(customerNumber);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/score/{customerNumber}")
-    public ResponseEntity<Map<String, Object>> getCustomerScore(@PathVariable String customerNumber) {
-        Map<String, Object> response = scoringEngineService.getCustomerScore(customerNumber);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<ScoreResponse>> getCustomerScore(@PathVariable String customerNumber) {
+        // The request thread is released while the scoring engine call and its retries run
+        return scoringEngineService.getCustomerScore(customerNumber).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Scores a batch of customers, streaming one JSON object per line (NDJSON) as each score arrives.
+     * A customer that could not be scored gets a line with an {@code error} instead of failing the batch.
+     */
+    @PostMapping(value = "/score/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter scoreBatch(@Valid @RequestBody BatchScoreRequest request) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs);
+        batchScoringService.scoreAll(request.customerNumbers(), result -> {
+            // Results arrive on several threads; each line must be written whole
+            synchronized (emitter) {
+                try {
+                    emitter.send(result, MediaType.APPLICATION_JSON);
+                    emitter.send("\n", MediaType.TEXT_PLAIN);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }).whenComplete((done, error) -> {
+            if (error == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(error);
+            }
+        });
+        return emitter;
     }
 
     @PostMapping("/client/register")
-    public ResponseEntity<Map<String, Object>> registerClient(@RequestBody Map<String, Object> clientData) {
-        Map<String, Object> response = scoringEngineService.registerClient(clientData);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<ClientRegistrationResponse>> registerClient(@RequestBody ClientRegistrationRequest clientData,
+                                                                                  @RequestParam(defaultValue = "false") boolean force) {
+        // An unchanged registration is answered locally unless force is set
+        return scoringEngineService.registerClient(clientData, force).thenApply(ResponseEntity::ok);
     }
     
     @PostMapping("/client/create")
-    public ResponseEntity<Map<String, Object>> createClient(@RequestBody Map<String, Object> clientData) {
-        Map<String, Object> response = scoringEngineService.createClient(clientData);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<ClientRegistrationResponse>> createClient(@RequestBody ClientRegistrationRequest clientData,
+                                                                                @RequestParam(defaultValue = "false") boolean force) {
+        return scoringEngineService.createClient(clientData, force).thenApply(ResponseEntity::ok);
     }
 }
@@ -1,5 +1,7 @@
 package com.example.middleware.controller;
 
+import com.example.middleware.dto.DependencyStatus;
+import com.example.middleware.service.DependencyHealthMonitor;
 import com.example.middleware.service.ScoringEngineService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,41 +20,45 @@ import java.util.Map;
 public class ScoringEngineTestController {
 
     private final ScoringEngineService scoringEngineService;
+    private final DependencyHealthMonitor dependencyHealthMonitor;
 
     @Autowired
-    public ScoringEngineTestController(ScoringEngineService scoringEngineService) {
+    public ScoringEngineTestController(ScoringEngineService scoringEngineService,
+                                       DependencyHealthMonitor dependencyHealthMonitor) {
         this.scoringEngineService = scoringEngineService;
+        this.dependencyHealthMonitor = dependencyHealthMonitor;
     }
 
     /**
-     * Test the connection to the scoring engine
+     * Report the connection to the scoring engine, as found by the latest background probe
      * @return A response indicating if the connection was successful
      */
     @GetMapping("/test-connection")
     public ResponseEntity<Map<String, Object>> testConnection() {
+        DependencyStatus status = dependencyHealthMonitor.status(DependencyHealthMonitor.SCORING_ENGINE);
+
         Map<String, Object> response = new HashMap<>();
-        
-        try {
-            // Test the connection by calling a simple method on the scoring engine
-            boolean connectionSuccessful = scoringEngineService.testConnection();
-            
-            if (connectionSuccessful) {
+        response.put("scoringEngineUrl", scoringEngineService.getScoringEngineUrl());
+        response.put("latencyMs", status.latencyMs());
+        response.put("checkedAt", status.checkedAt());
+
+        switch (status.status()) {
+            case UP -> {
                 response.put("status", "success");
                 response.put("message", "Successfully connected to the scoring engine");
-                response.put("scoringEngineUrl", scoringEngineService.getScoringEngineUrl());
                 return ResponseEntity.ok(response);
-            } else {
+            }
+            case UNKNOWN -> {
+                response.put("status", "unknown");
+                response.put("message", "The scoring engine has not been probed yet");
+                return ResponseEntity.status(503).body(response);
+            }
+            default -> {
                 response.put("status", "error");
                 response.put("message", "Failed to connect to the scoring engine");
-                response.put("scoringEngineUrl", scoringEngineService.getScoringEngineUrl());
+                response.put("errorDetails", status.detail());
                 return ResponseEntity.status(500).body(response);
             }
-        } catch (Exception e) {
-            response.put("status", "error");
-            response.put("message", "Error testing connection to scoring engine: " + e.getMessage());
-            response.put("scoringEngineUrl", scoringEngineService.getScoringEngineUrl());
-            response.put("errorDetails", e.toString());
-            return ResponseEntity.status(500).body(response);
         }
     }
 }
@@ -1,5 +1,6 @@
 package com.example.middleware.controller;
 
+import com.example.middleware.dto.TransactionSummary;
 import com.example.middleware.service.TransactionDataService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -8,8 +9,6 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
-
 @RestController
 @RequestMapping("/transactions")
 @RequiredArgsConstructor
@@ -18,8 +17,8 @@ public class TransactionDataController {
     private final TransactionDataService transactionDataService;
 
     @GetMapping("/{customerNumber}")
-    public ResponseEntity<Map<String, Object>> getTransactionData(@PathVariable String customerNumber) {
-        Map<String, Object> transactionData = transactionDataService.getTransactionData(customerNumber);
+    public ResponseEntity<TransactionSummary> getTransactionData(@PathVariable String customerNumber) {
+        TransactionSummary transactionData = transactionDataService.getTransactionData(customerNumber);
         return ResponseEntity.ok(transactionData);
     }
 }
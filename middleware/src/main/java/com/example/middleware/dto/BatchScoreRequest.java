@@ -0,0 +1,15 @@
+package com.example.middleware.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchScoreRequest(
+        @Schema(description = "Customers to score; duplicates are scored once", example = "[\"234774784\", \"318411216\"]")
+        @NotEmpty(message = "At least one customer number is required")
+        @Size(max = 10000, message = "At most 10000 customers can be scored in one batch")
+        List<@NotBlank String> customerNumbers) {
+}
@@ -0,0 +1,51 @@
+package com.example.middleware.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Client details sent to the Scoring Engine's register and createClient endpoints. Fields left null are not sent;
+ * createClient requires {@code url}, {@code name}, {@code username} and {@code password}.
+ * <p>
+ * Fields the record has no component for, such as {@code clientId}, {@code firstName} and {@code lastName}, are
+ * kept in {@code otherFields} and forwarded to the engine under the names the caller used.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ClientRegistrationRequest(
+        String customerNumber,
+        String name,
+        String email,
+        String url,
+        String username,
+        String password,
+        @JsonIgnore Map<String, Object> otherFields) {
+
+    public ClientRegistrationRequest {
+        // Jackson passes null and then fills the map through otherField, so it has to be mutable here
+        otherFields = otherFields == null ? new LinkedHashMap<>() : otherFields;
+    }
+
+    public ClientRegistrationRequest(String customerNumber, String name, String email, String url, String username,
+                                     String password) {
+        this(customerNumber, name, email, url, username, password, Map.of());
+    }
+
+    public boolean hasCreateClientFields() {
+        return url != null && name != null && username != null && password != null;
+    }
+
+    @JsonAnySetter
+    void otherField(String name, Object value) {
+        otherFields.put(name, value);
+    }
+
+    @JsonAnyGetter
+    Map<String, Object> otherFieldsForJson() {
+        return otherFields;
+    }
+}
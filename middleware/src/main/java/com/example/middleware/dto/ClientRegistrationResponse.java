@@ -0,0 +1,50 @@
+package com.example.middleware.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Scoring Engine's answer to a client registration, or the error the middleware answers with when
+ * registration could not be completed.
+ * <p>
+ * Fields the record has no component for, such as the engine's {@code clientId}, are kept in {@code otherFields}
+ * and written back out unchanged, so the engine's answer reaches the caller as it was sent.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ClientRegistrationResponse(
+        Boolean success,
+        String customerNumber,
+        String message,
+        String registrationDate,
+        String error,
+        @JsonIgnore Map<String, Object> otherFields) {
+
+    public ClientRegistrationResponse {
+        // Jackson passes null and then fills the map through otherField, so it has to be mutable here
+        otherFields = otherFields == null ? new LinkedHashMap<>() : otherFields;
+    }
+
+    public ClientRegistrationResponse(Boolean success, String customerNumber, String message, String registrationDate,
+                                      String error) {
+        this(success, customerNumber, message, registrationDate, error, Map.of());
+    }
+
+    public static ClientRegistrationResponse failed(String error) {
+        return new ClientRegistrationResponse(false, null, null, null, error);
+    }
+
+    @JsonAnySetter
+    void otherField(String name, Object value) {
+        otherFields.put(name, value);
+    }
+
+    @JsonAnyGetter
+    Map<String, Object> otherFieldsForJson() {
+        return otherFields;
+    }
+}
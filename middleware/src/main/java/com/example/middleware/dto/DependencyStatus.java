@@ -0,0 +1,30 @@
+package com.example.middleware.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * The outcome of the latest background probe of one dependency. {@code latencyMs} and {@code checkedAt}
+ * are null until the first probe has finished.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DependencyStatus(
+        String name,
+        Status status,
+        Long latencyMs,
+        Instant checkedAt,
+        String detail) {
+
+    public enum Status {
+        UP, DOWN, UNKNOWN
+    }
+
+    public static DependencyStatus unknown(String name) {
+        return new DependencyStatus(name, Status.UNKNOWN, null, null, "Not probed yet");
+    }
+
+    public boolean isUp() {
+        return status == Status.UP;
+    }
+}
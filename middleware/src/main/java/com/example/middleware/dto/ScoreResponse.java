@@ -0,0 +1,77 @@
+package com.example.middleware.dto;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A customer's score as read from the Scoring Engine and returned by {@code /api/score}.
+ * <p>
+ * The JSON keeps the names the score was sent under. Fields the record has no component for, such as the
+ * engine's {@code scoreDate} and {@code limitAmount}, are kept in {@code otherFields} and written back out
+ * unchanged, so the endpoint passes the engine's answer through as it did when it was a map.
+ * <p>
+ * Optional fields are omitted from the JSON when null: {@code stale} and {@code scoreAgeSeconds} appear only
+ * on a cached score the engine could not refresh, and {@code isFallback}, {@code message} and {@code error}
+ * only when no score could be served.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ScoreResponse(
+        String customerNumber,
+        Integer score,
+        Double limit,
+        @JsonProperty("timestamp") String scoreDate,
+        Boolean stale,
+        Long scoreAgeSeconds,
+        @JsonProperty("isFallback") Boolean isFallback,
+        String message,
+        String error,
+        @JsonIgnore Map<String, Object> otherFields) {
+
+    public ScoreResponse {
+        // Jackson passes null and then fills the map through otherField, so it has to be mutable here
+        otherFields = otherFields == null ? new LinkedHashMap<>() : otherFields;
+    }
+
+    public static ScoreResponse of(String customerNumber, int score, double limit, String scoreDate) {
+        return new ScoreResponse(customerNumber, score, limit, scoreDate, null, null, null, null, null, Map.of());
+    }
+
+    /**
+     * The answer for a customer the engine failed on and for whom no earlier score is known
+     */
+    public static ScoreResponse unavailable(String customerNumber, String error) {
+        return new ScoreResponse(customerNumber, null, null, null, null, null, true,
+                "Scoring engine unavailable and no previous score is known for this customer", error, Map.of());
+    }
+
+    /**
+     * A batch entry for a customer whose score could not be read at all
+     */
+    public static ScoreResponse failed(String customerNumber, String error) {
+        return new ScoreResponse(customerNumber, null, null, null, null, null, null, null, error, Map.of());
+    }
+
+    /**
+     * This score marked as served from cache after the engine could not refresh it
+     */
+    public ScoreResponse asStale(long ageSeconds) {
+        return new ScoreResponse(customerNumber, score, limit, scoreDate, true, ageSeconds, isFallback, message, error,
+                otherFields);
+    }
+
+    @JsonAnySetter
+    void otherField(String name, Object value) {
+        otherFields.put(name, value);
+    }
+
+    @JsonAnyGetter
+    Map<String, Object> otherFieldsForJson() {
+        return otherFields;
+    }
+}
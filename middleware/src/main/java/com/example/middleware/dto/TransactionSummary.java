@@ -0,0 +1,27 @@
+package com.example.middleware.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A customer's transaction data from the CBS, or fallback data with {@code isFallback} set when the CBS call failed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionSummary(
+        String customerNumber,
+        String responseData,
+        Transactions transactions,
+        @JsonProperty("isFallback") Boolean isFallback,
+        String message) {
+
+    public record Transactions(int count, String lastTransactionDate) {
+    }
+
+    public static TransactionSummary of(String customerNumber, String responseData, Transactions transactions) {
+        return new TransactionSummary(customerNumber, responseData, transactions, null, null);
+    }
+
+    public static TransactionSummary fallback(String customerNumber, String message) {
+        return new TransactionSummary(customerNumber, null, new Transactions(0, "N/A"), true, message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.middleware.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A client the Scoring Engine has accepted, with a fingerprint of the details it was registered with.
+ * Only the fingerprint of the request is kept, never the credentials themselves.
+ */
+@Entity
+@Table(name = "client_registrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientRegistration {
+
+    // The operation and the client's identity, e.g. "register:234774784"
+    @Id
+    @Column(name = "registration_key")
+    private String registrationKey;
+
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "customer_number")
+    private String customerNumber;
+
+    @Column(name = "message")
+    private String message;
+
+    @Column(name = "registration_date")
+    private String registrationDate;
+
+    // The engine's other response fields as JSON, so a remembered registration is answered as the engine answered it
+    @Column(name = "other_fields", columnDefinition = "text")
+    private String otherFields;
+
+    @Column(name = "registered_at")
+    private OffsetDateTime registeredAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        registeredAt = OffsetDateTime.now();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.middleware.repository;
+
+import com.example.middleware.entity.ClientRegistration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ClientRegistrationRepository extends JpaRepository<ClientRegistration, String> {
+}
@@ -0,0 +1,189 @@
+package com.example.middleware.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caps the calls in flight to one backend at a limit that adapts to how the backend copes (AIMD).
+ * <p>
+ * Every call that completes in time while the limit is in use raises the limit by {@code 1 / limit}, so
+ * about one per limit's worth of calls. A call that fails with an overload sign (a timeout, a connection
+ * error, a 5xx or a 429) or takes longer than {@code slowCallNanos} cuts the limit by {@code backoffRatio}.
+ * Only one cut is made per round of calls, so a burst of timeouts does not collapse the limit to the
+ * minimum. A call arriving at the limit waits up to {@code maxWaitNanos} in a queue of at most
+ * {@code maxQueue}, and is otherwise refused at once with a {@link ConcurrencyLimitExceededException}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String backend;
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+    private final long slowCallNanos;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long lastCutAt;
+
+    private final Counter queueFull;
+    private final Counter waitTimedOut;
+
+    public AdaptiveConcurrencyLimiter(String backend, MeterRegistry meterRegistry, int initialLimit, int minLimit,
+                                      int maxLimit, double backoffRatio, long slowCallMs, int maxQueue, long maxWaitMs) {
+        this(backend, meterRegistry, initialLimit, minLimit, maxLimit, backoffRatio, slowCallMs, maxQueue, maxWaitMs,
+                System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String backend, MeterRegistry meterRegistry, int initialLimit, int minLimit,
+                               int maxLimit, double backoffRatio, long slowCallMs, int maxQueue, long maxWaitMs,
+                               LongSupplier clock) {
+        this.backend = backend;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.backoffRatio = backoffRatio;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.clock = clock;
+        this.lastCutAt = clock.getAsLong();
+
+        this.queueFull = rejectionCounter(meterRegistry, backend, "queue_full");
+        this.waitTimedOut = rejectionCounter(meterRegistry, backend, "wait_timeout");
+        Gauge.builder("outbound.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent calls to the backend")
+                .tag("backend", backend)
+                .register(meterRegistry);
+        Gauge.builder("outbound.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls to the backend currently in flight")
+                .tag("backend", backend)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} on the calling thread once a slot is free, and feeds its outcome back into the limit
+     *
+     * @throws ConcurrencyLimitExceededException if no slot freed up in time
+     */
+    public <T> T execute(Supplier<T> call) {
+        long startedAt = acquire();
+        boolean overloaded = true;
+        try {
+            T value = call.get();
+            overloaded = clock.getAsLong() - startedAt > slowCallNanos;
+            return value;
+        } catch (RuntimeException e) {
+            overloaded = isOverloadSign(e);
+            throw e;
+        } finally {
+            release(startedAt, overloaded);
+        }
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long acquire() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return clock.getAsLong();
+            }
+            if (waiting >= maxQueue) {
+                queueFull.increment();
+                throw new ConcurrencyLimitExceededException(
+                        backend + " is at its concurrency limit of " + (int) limit + " and the queue is full");
+            }
+
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        waitTimedOut.increment();
+                        throw new ConcurrencyLimitExceededException(
+                                backend + " stayed at its concurrency limit of " + (int) limit + " for the whole queue wait");
+                    }
+                    remaining = slotFreed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrencyLimitExceededException("Interrupted while waiting for a " + backend + " slot");
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            return clock.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long startedAt, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean limitInUse = inFlight * 2 >= limit;
+            inFlight--;
+            if (overloaded) {
+                // Calls started before the last cut saw the old limit; they must not cut again
+                if (startedAt > lastCutAt) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastCutAt = clock.getAsLong();
+                }
+            } else if (limitInUse) {
+                // An idle backend proves nothing about its capacity, so only a busy one earns a raise
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isOverloadSign(RuntimeException e) {
+        if (e instanceof HttpClientErrorException clientError) {
+            // Other 4xx answers are about the request, not the backend's load
+            return clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return true;
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String backend, String reason) {
+        return Counter.builder("outbound.concurrency.rejections")
+                .description("Backend calls refused at the concurrency limit, by why they could not wait for a slot")
+                .tag("backend", backend)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
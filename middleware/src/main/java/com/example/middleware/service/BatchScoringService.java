@@ -0,0 +1,120 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.ScoreResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Scores many customers at once with at most {@code scoring.engine.batch.concurrency} score requests in
+ * flight. Each lane starts the next customer when its previous one completes, so no thread waits on the
+ * engine and the batch takes roughly N / concurrency times the engine latency.
+ */
+@Service
+public class BatchScoringService {
+
+    private final ScoringEngineService scoringEngineService;
+    private final int concurrency;
+
+    public BatchScoringService(ScoringEngineService scoringEngineService,
+                               @Value("${scoring.engine.batch.concurrency:16}") int concurrency) {
+        this.scoringEngineService = scoringEngineService;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Scores every distinct customer and hands each result to {@code onResult} as soon as it arrives, in
+     * completion order. A customer whose score could not be fetched gets an entry with an {@code error}.
+     * If {@code onResult} throws, for example because the client went away, no further customers are started.
+     *
+     * @return a future completing once every started customer has been reported
+     */
+    public CompletableFuture<Void> scoreAll(List<String> customerNumbers, Consumer<ScoreResponse> onResult) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(customerNumbers));
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (distinct.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+
+        Batch batch = new Batch(distinct, onResult, done);
+        int lanes = Math.min(concurrency, distinct.size());
+        for (int i = 0; i < lanes; i++) {
+            scoreNext(batch);
+        }
+        return done;
+    }
+
+    private void scoreNext(Batch batch) {
+        // Scores answered straight from the cache complete at once; they are handled in this loop rather
+        // than by recursion, so a batch of cache hits cannot overflow the stack
+        int index;
+        while (!batch.stopped.get() && (index = batch.next.getAndIncrement()) < batch.customerNumbers.size()) {
+            String customerNumber = batch.customerNumbers.get(index);
+            CompletableFuture<ScoreResponse> score;
+            try {
+                score = scoringEngineService.getCustomerScore(customerNumber);
+            } catch (RuntimeException e) {
+                score = CompletableFuture.failedFuture(e);
+            }
+            BiConsumer<ScoreResponse, Throwable> report = (result, error) -> report(batch, customerNumber, result, error);
+            if (!score.isDone()) {
+                score.whenComplete((result, error) -> {
+                    report.accept(result, error);
+                    scoreNext(batch);
+                });
+                return;
+            }
+            score.whenComplete(report);
+        }
+    }
+
+    private void report(Batch batch, String customerNumber, ScoreResponse result, Throwable error) {
+        ScoreResponse entry;
+        if (error == null) {
+            entry = result;
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            entry = ScoreResponse.failed(customerNumber, String.valueOf(cause.getMessage()));
+        }
+
+        try {
+            if (!batch.stopped.get()) {
+                batch.onResult.accept(entry);
+            }
+        } catch (RuntimeException e) {
+            batch.stopped.set(true);
+            batch.done.completeExceptionally(e);
+        }
+
+        int reported = batch.reported.incrementAndGet();
+        int started = Math.min(batch.next.get(), batch.customerNumbers.size());
+        if (reported == batch.customerNumbers.size() || (batch.stopped.get() && reported >= started)) {
+            batch.done.complete(null);
+        }
+    }
+
+    private static final class Batch {
+        private final List<String> customerNumbers;
+        private final Consumer<ScoreResponse> onResult;
+        private final CompletableFuture<Void> done;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger reported = new AtomicInteger();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+
+        private Batch(List<String> customerNumbers, Consumer<ScoreResponse> onResult, CompletableFuture<Void> done) {
+            this.customerNumbers = customerNumbers;
+            this.onResult = onResult;
+            this.done = done;
+        }
+    }
+}
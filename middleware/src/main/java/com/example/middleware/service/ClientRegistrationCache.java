@@ -0,0 +1,273 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.entity.ClientRegistration;
+import com.example.middleware.repository.ClientRegistrationRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which clients the Scoring Engine has accepted, so registering a client again with the same
+ * details is answered locally instead of through the engine's slow, rate-limited API.
+ * <p>
+ * Accepted registrations are stored in the database and indexed in memory, keyed by operation and client
+ * (customer number or {@code clientId}, or name when there is neither). A registration whose details hash to
+ * the stored fingerprint is answered with the stored response; changed details, or {@code force}, send it to
+ * the engine again.
+ * Failed registrations are not remembered. Concurrent identical registrations share one engine call.
+ * <p>
+ * The details include the client's password, so the fingerprint is an HMAC keyed by a dedicated server-side
+ * secret, {@code scoring.engine.registration.fingerprint-key}, rather than a plain hash that could be
+ * brute-forced from the table. Without that key a random one is generated at start-up: registrations are then
+ * only recognised until the next restart, after which every client is sent to the engine once more.
+ */
+@Component
+public class ClientRegistrationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientRegistrationCache.class);
+
+    private static final String HMAC = "HmacSHA256";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final ClientRegistrationRepository clientRegistrationRepository;
+    private final SecretKeySpec fingerprintKey;
+
+    private final Map<String, ClientRegistration> index = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<ClientRegistrationResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter unchanged;
+    private final Counter registeredNew;
+    private final Counter changed;
+    private final Counter forced;
+    private final Counter failed;
+
+    public ClientRegistrationCache(ClientRegistrationRepository clientRegistrationRepository, MeterRegistry meterRegistry,
+                                   @Value("${scoring.engine.registration.fingerprint-key:}") String fingerprintKey) {
+        this.clientRegistrationRepository = clientRegistrationRepository;
+        this.fingerprintKey = new SecretKeySpec(fingerprintKeyBytes(fingerprintKey), HMAC);
+
+        this.unchanged = registrationCounter(meterRegistry, "unchanged");
+        this.registeredNew = registrationCounter(meterRegistry, "new");
+        this.changed = registrationCounter(meterRegistry, "changed");
+        this.forced = registrationCounter(meterRegistry, "forced");
+        this.failed = registrationCounter(meterRegistry, "failed");
+        Gauge.builder("client.registrations.known", index, Map::size)
+                .description("Client registrations held in the in-memory index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the stored registrations into the in-memory index, so a redeploy does not register them again
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        try {
+            clientRegistrationRepository.findAll().forEach(registration ->
+                    index.put(registration.getRegistrationKey(), registration));
+            logger.info("Loaded {} known client registrations", index.size());
+        } catch (RuntimeException e) {
+            // Registrations are then looked up one by one as they come in
+            logger.warn("Could not load known client registrations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Answers the registration from the stored one when nothing changed, and otherwise calls {@code send}
+     * and stores the engine's answer if it accepted the client
+     *
+     * @param operation the engine endpoint, part of the key so register and createClient are remembered apart
+     * @param force     register with the engine even if an identical registration is stored
+     */
+    public CompletableFuture<ClientRegistrationResponse> register(String operation, ClientRegistrationRequest request,
+                                                                  boolean force,
+                                                                  Supplier<CompletableFuture<ClientRegistrationResponse>> send) {
+        String identity = identity(request);
+        if (identity == null) {
+            // Nothing to recognise the client by next time
+            return send.get();
+        }
+        String key = operation + ":" + identity;
+        String fingerprint = fingerprint(request);
+
+        Optional<ClientRegistration> known = find(key);
+        if (!force && known.isPresent() && known.get().getFingerprint().equals(fingerprint)) {
+            unchanged.increment();
+            return CompletableFuture.completedFuture(toResponse(known.get()));
+        }
+        Counter outcome = force ? forced : known.isPresent() ? changed : registeredNew;
+
+        String flightKey = key + "#" + fingerprint;
+        CompletableFuture<ClientRegistrationResponse> call = new CompletableFuture<>();
+        CompletableFuture<ClientRegistrationResponse> running = inFlight.putIfAbsent(flightKey, call);
+        if (running != null) {
+            return running;
+        }
+
+        CompletableFuture<ClientRegistrationResponse> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, error) -> {
+            if (error == null && isAccepted(response)) {
+                outcome.increment();
+                remember(key, fingerprint, response);
+            } else {
+                failed.increment();
+            }
+            inFlight.remove(flightKey, call);
+            if (error == null) {
+                call.complete(response);
+            } else {
+                call.completeExceptionally(error);
+            }
+        });
+        return call;
+    }
+
+    private Optional<ClientRegistration> find(String key) {
+        ClientRegistration indexed = index.get(key);
+        if (indexed != null) {
+            return Optional.of(indexed);
+        }
+        try {
+            Optional<ClientRegistration> stored = clientRegistrationRepository.findById(key);
+            stored.ifPresent(registration -> index.put(key, registration));
+            return stored;
+        } catch (RuntimeException e) {
+            logger.warn("Could not look up client registration {}, registering again: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void remember(String key, String fingerprint, ClientRegistrationResponse response) {
+        ClientRegistration registration = new ClientRegistration(key, fingerprint, response.customerNumber(),
+                response.message(), response.registrationDate(), otherFieldsToJson(response.otherFields()), null);
+        index.put(key, registration);
+        try {
+            clientRegistrationRepository.save(registration);
+        } catch (RuntimeException e) {
+            // Still remembered until restart; the next registration after a restart goes to the engine
+            logger.warn("Could not store client registration {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static boolean isAccepted(ClientRegistrationResponse response) {
+        return response != null && !Boolean.FALSE.equals(response.success()) && response.error() == null;
+    }
+
+    private static ClientRegistrationResponse toResponse(ClientRegistration registration) {
+        return new ClientRegistrationResponse(true, registration.getCustomerNumber(), registration.getMessage(),
+                registration.getRegistrationDate(), null, otherFieldsFromJson(registration));
+    }
+
+    /**
+     * The client's customer number, or the {@code clientId} it was sent under, or else its name
+     */
+    private static String identity(ClientRegistrationRequest request) {
+        if (request.customerNumber() != null) {
+            return request.customerNumber();
+        }
+        Object clientId = request.otherFields().get("clientId");
+        return clientId != null ? String.valueOf(clientId) : request.name();
+    }
+
+    /**
+     * HMAC-SHA256 over every field, including the passed-through ones in name order, each prefixed by its
+     * length so no two different requests hash alike
+     */
+    String fingerprint(ClientRegistrationRequest request) {
+        StringBuilder canonical = new StringBuilder();
+        for (String field : new String[] {request.customerNumber(), request.name(), request.email(),
+                request.url(), request.username(), request.password()}) {
+            appendField(canonical, field);
+        }
+        for (Map.Entry<String, Object> field : new TreeMap<>(request.otherFields()).entrySet()) {
+            appendField(canonical, field.getKey());
+            appendField(canonical, field.getValue() == null ? null : String.valueOf(field.getValue()));
+        }
+        try {
+            // Mac instances are not thread-safe, so each fingerprint gets its own
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(fingerprintKey);
+            return HexFormat.of().formatHex(mac.doFinal(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC + " is not available", e);
+        }
+    }
+
+    private static void appendField(StringBuilder canonical, String field) {
+        canonical.append(field == null ? -1 : field.length()).append(':').append(field == null ? "" : field);
+    }
+
+    private static String otherFieldsToJson(Map<String, Object> otherFields) {
+        if (otherFields.isEmpty()) {
+            return null;
+        }
+        try {
+            return JSON.writeValueAsString(otherFields);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not store the other fields of a client registration: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, Object> otherFieldsFromJson(ClientRegistration registration) {
+        if (registration.getOtherFields() == null) {
+            return null;
+        }
+        try {
+            return JSON.readValue(registration.getOtherFields(), new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not read the stored fields of client registration {}: {}",
+                    registration.getRegistrationKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] fingerprintKeyBytes(String fingerprintKey) {
+        if (fingerprintKey != null && !fingerprintKey.isBlank()) {
+            return fingerprintKey.getBytes(StandardCharsets.UTF_8);
+        }
+        // Stored fingerprints cannot be matched after a restart, so known clients are registered with the engine again
+        logger.warn("No client registration fingerprint key is configured (scoring.engine.registration.fingerprint-key), "
+                + "using a random one; registrations will not be recognised across restarts");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    private static Counter registrationCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("client.registrations")
+                .description("Client registrations by outcome; unchanged ones were answered without calling the engine")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.middleware.service;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown when a backend call is refused by its {@link AdaptiveConcurrencyLimiter} because the limit is
+ * reached and no slot freed up within the queue wait. It is a {@link RestClientException} so the
+ * {@link RetryEngine} treats it like any other failed attempt.
+ */
+public class ConcurrencyLimitExceededException extends RestClientException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
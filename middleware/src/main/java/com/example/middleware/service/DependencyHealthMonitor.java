@@ -0,0 +1,173 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.DependencyStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Probes the scoring engine, the CBS SOAP endpoint and the database on a background schedule and keeps the
+ * latest outcome of each in memory, so health endpoints answer from memory instead of calling out.
+ * <p>
+ * Each dependency is probed every {@code interval} on its own thread. A probe that has not finished within
+ * {@code staleAfter} of the last result, because it hangs or the scheduler stopped, turns that dependency
+ * DOWN rather than leaving an old UP in place.
+ */
+@Component
+public class DependencyHealthMonitor {
+
+    public static final String SCORING_ENGINE = "scoringEngine";
+    public static final String CBS = "cbs";
+    public static final String DATABASE = "database";
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyHealthMonitor.class);
+
+    private final ScoringEngineService scoringEngineService;
+    private final CloseableHttpClient soapHttpClient;
+    private final DataSource dataSource;
+    private final TaskScheduler healthProbeScheduler;
+    private final Duration interval;
+    private final Duration staleAfter;
+    private final String transactionUrl;
+    private final int databaseTimeoutSeconds;
+    private final Clock clock;
+
+    private final Map<String, DependencyStatus> statuses = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DependencyHealthMonitor(ScoringEngineService scoringEngineService, CloseableHttpClient soapHttpClient,
+                                   DataSource dataSource, TaskScheduler healthProbeScheduler, MeterRegistry meterRegistry,
+                                   @Value("${health.probe.interval:30s}") Duration interval,
+                                   @Value("${health.probe.stale-after:2m}") Duration staleAfter,
+                                   @Value("${com.example.middleware.transaction.data.url:https://trxapitest.credable.io/service/transaction}") String transactionUrl,
+                                   @Value("${health.probe.database-timeout-seconds:2}") int databaseTimeoutSeconds) {
+        this(scoringEngineService, soapHttpClient, dataSource, healthProbeScheduler, meterRegistry, interval, staleAfter,
+                transactionUrl, databaseTimeoutSeconds, Clock.systemUTC());
+    }
+
+    DependencyHealthMonitor(ScoringEngineService scoringEngineService, CloseableHttpClient soapHttpClient,
+                            DataSource dataSource, TaskScheduler healthProbeScheduler, MeterRegistry meterRegistry,
+                            Duration interval, Duration staleAfter, String transactionUrl, int databaseTimeoutSeconds,
+                            Clock clock) {
+        this.scoringEngineService = scoringEngineService;
+        this.soapHttpClient = soapHttpClient;
+        this.dataSource = dataSource;
+        this.healthProbeScheduler = healthProbeScheduler;
+        this.interval = interval;
+        this.staleAfter = staleAfter;
+        this.transactionUrl = transactionUrl;
+        this.databaseTimeoutSeconds = databaseTimeoutSeconds;
+        this.clock = clock;
+
+        for (String name : List.of(SCORING_ENGINE, CBS, DATABASE)) {
+            statuses.put(name, DependencyStatus.unknown(name));
+            Gauge.builder("dependency.up", this, monitor -> monitor.status(name).isUp() ? 1 : 0)
+                    .description("1 if the latest background probe found the dependency up, 0 otherwise")
+                    .tag("dependency", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Starts probing once the application is ready; the first round runs at once
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        healthProbeScheduler.scheduleWithFixedDelay(this::probeScoringEngine, interval);
+        healthProbeScheduler.scheduleWithFixedDelay(this::probeCbs, interval);
+        healthProbeScheduler.scheduleWithFixedDelay(this::probeDatabase, interval);
+    }
+
+    /**
+     * The latest status of every dependency, in a fixed order
+     */
+    public Map<String, DependencyStatus> snapshot() {
+        Map<String, DependencyStatus> snapshot = new LinkedHashMap<>();
+        for (String name : List.of(SCORING_ENGINE, CBS, DATABASE)) {
+            snapshot.put(name, status(name));
+        }
+        return snapshot;
+    }
+
+    /**
+     * The latest status of one dependency; DOWN if its last result is older than {@code staleAfter}
+     */
+    public DependencyStatus status(String name) {
+        DependencyStatus status = statuses.get(name);
+        if (status.checkedAt() != null && status.checkedAt().plus(staleAfter).isBefore(clock.instant())) {
+            return new DependencyStatus(name, DependencyStatus.Status.DOWN, status.latencyMs(), status.checkedAt(),
+                    "No probe result for more than " + staleAfter);
+        }
+        return status;
+    }
+
+    void probeScoringEngine() {
+        probe(SCORING_ENGINE, () -> scoringEngineService.testConnection()
+                ? null
+                : "Failed to connect to the scoring engine at " + scoringEngineService.getScoringEngineUrl());
+    }
+
+    void probeCbs() {
+        probe(CBS, () -> {
+            // Any answer below 500, even a fault for the missing SOAP body, means the endpoint is serving
+            int code = soapHttpClient.execute(new HttpGet(transactionUrl + "?wsdl"), response -> response.getCode());
+            return code < 500 ? null : "CBS answered HTTP " + code;
+        });
+    }
+
+    void probeDatabase() {
+        probe(DATABASE, () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return connection.isValid(databaseTimeoutSeconds) ? null : "Connection did not validate";
+            }
+        });
+    }
+
+    private void probe(String name, Probe probe) {
+        Instant startedAt = clock.instant();
+        DependencyStatus.Status result;
+        String detail;
+        try {
+            detail = probe.run();
+            result = detail == null ? DependencyStatus.Status.UP : DependencyStatus.Status.DOWN;
+        } catch (Exception e) {
+            detail = e.getMessage();
+            result = DependencyStatus.Status.DOWN;
+        }
+        Instant checkedAt = clock.instant();
+        DependencyStatus previous = statuses.put(name, new DependencyStatus(name, result,
+                Duration.between(startedAt, checkedAt).toMillis(), checkedAt, detail));
+        if (previous != null && previous.status() != result) {
+            logger.info("Dependency {} is now {}{}", name, result, detail == null ? "" : ": " + detail);
+        }
+    }
+
+    /**
+     * One probe; returns null when the dependency is up and a reason when it is not
+     */
+    @FunctionalInterface
+    private interface Probe {
+        String run() throws IOException, SQLException;
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.middleware.service;
 
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.dto.ScoreResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
@@ -10,6 +13,8 @@ import org.springframework.web.client.RestTemplate;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Mock implementation of scoring engine service that simulates the scoring engine
@@ -25,8 +30,10 @@ public class MockScoringEngineService extends ScoringEngineService {
     private static final Random random = new Random();
     private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
-    public MockScoringEngineService(RestTemplate restTemplate) {
-        super(restTemplate);
+    public MockScoringEngineService(RestTemplate restTemplate, RetryEngine retryEngine, RequestHedger requestHedger,
+                                    AdaptiveConcurrencyLimiter scoringEngineLimiter, ScoreCache scoreCache,
+                                    ClientRegistrationCache clientRegistrationCache) {
+        super(restTemplate, retryEngine, requestHedger, scoringEngineLimiter, scoreCache, clientRegistrationCache);
         logger.info("Initialized MockScoringEngineService - using simulated scoring engine responses");
     }
     
@@ -35,32 +42,24 @@ public class MockScoringEngineService extends ScoringEngineService {
      * @param customerNumber The customer number
      * @return The score response
      */
-    public Map<String, Object> getCustomerScore(String customerNumber) {
+    @Override
+    public CompletableFuture<ScoreResponse> getCustomerScore(String customerNumber) {
+        // Simulate a 500ms processing time without holding a thread
+        return CompletableFuture.supplyAsync(() -> simulateScore(customerNumber),
+                CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS));
+    }
+    
+    private ScoreResponse simulateScore(String customerNumber) {
         logger.info("Simulating scoring engine response for customer {}", customerNumber);
         
-        // Simulate processing delay
-        try {
-            Thread.sleep(500); // Simulate a 500ms processing time
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("customerNumber", customerNumber);
-        
         // Generate a score between 300 and 850 (typical credit score range)
         int score = 300 + random.nextInt(551);
-        response.put("score", score);
         
         // Set credit limit based on score
         double limit = calculateCreditLimit(score);
-        response.put("limit", limit);
-        
-        // Add timestamp
-        response.put("timestamp", LocalDate.now().format(dateFormatter));
         
         logger.info("Generated mock score {} and limit {} for customer {}", score, limit, customerNumber);
-        return response;
+        return ScoreResponse.of(customerNumber, score, limit, LocalDate.now().format(dateFormatter));
     }
     
     /**
@@ -120,13 +119,6 @@ public class MockScoringEngineService extends ScoringEngineService {
     public boolean registerClient(String customerNumber, String name, String email) {
         logger.info("Simulating client registration for customer {}", customerNumber);
         
-        // Simulate processing delay
-        try {
-            Thread.sleep(300); // Simulate a 300ms processing time
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
         // 90% success rate for registrations
         boolean success = random.nextDouble() < 0.9;
         
@@ -140,39 +132,42 @@ public class MockScoringEngineService extends ScoringEngineService {
     }
     
     /**
-     * Registers a client with the Scoring Engine
+     * Registers a client with the Scoring Engine; the mock engine is always asked, so nothing is remembered
      * @param clientData The client registration data
+     * @param force Ignored by the mock
      * @return The registration response
      */
-    public Map<String, Object> registerClient(Map<String, Object> clientData) {
-        String customerNumber = clientData.getOrDefault("customerNumber", "unknown").toString();
-        String name = clientData.getOrDefault("name", "Unknown Name").toString();
-        String email = clientData.getOrDefault("email", "unknown@example.com").toString();
+    @Override
+    public CompletableFuture<ClientRegistrationResponse> registerClient(ClientRegistrationRequest clientData, boolean force) {
+        // Simulate a 300ms processing time without holding a thread
+        return CompletableFuture.supplyAsync(() -> simulateRegistration(clientData),
+                CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS));
+    }
+    
+    private ClientRegistrationResponse simulateRegistration(ClientRegistrationRequest clientData) {
+        String customerNumber = Objects.requireNonNullElse(clientData.customerNumber(), "unknown");
+        String name = Objects.requireNonNullElse(clientData.name(), "Unknown Name");
+        String email = Objects.requireNonNullElse(clientData.email(), "unknown@example.com");
         
         boolean success = registerClient(customerNumber, name, email);
         
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", success);
-        response.put("customerNumber", customerNumber);
-        
         if (success) {
-            response.put("message", "Client registered successfully");
-            response.put("registrationDate", LocalDate.now().format(dateFormatter));
-        } else {
-            response.put("message", "Failed to register client");
-            response.put("error", "Mock registration failure");
+            return new ClientRegistrationResponse(true, customerNumber, "Client registered successfully",
+                    LocalDate.now().format(dateFormatter), null);
         }
-        
-        return response;
+        return new ClientRegistrationResponse(false, customerNumber, "Failed to register client", null,
+                "Mock registration failure");
     }
     
     /**
      * Registers a client with the Scoring Engine using the createClient endpoint
      * @param clientData The client registration data
+     * @param force Ignored by the mock
      * @return The registration response
      */
-    public Map<String, Object> createClient(Map<String, Object> clientData) {
-        return registerClient(clientData); // Same implementation for mock service
+    @Override
+    public CompletableFuture<ClientRegistrationResponse> createClient(ClientRegistrationRequest clientData, boolean force) {
+        return registerClient(clientData, force); // Same implementation for mock service
     }
     
     /**
@@ -0,0 +1,266 @@
+package com.example.middleware.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second, identical scoring engine request when the first is slower than usual, and takes whichever
+ * answers first.
+ * <p>
+ * The hedge goes out once the first request has run longer than the {@code percentile} of recent engine
+ * latencies, so only the slowest few percent of requests are doubled. The loser is cancelled; its thread is
+ * interrupted and at the latest freed by the HTTP response timeout. Hedges draw on a budget that each request
+ * tops up by {@code budgetRatio}, so when the engine is slow across the board hedging stops instead of
+ * doubling the load. Only idempotent calls may be hedged.
+ */
+@Component
+public class RequestHedger {
+
+    private final Executor executor;
+    private final TaskScheduler scheduler;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final double budgetRatio;
+    private final double budgetMax;
+    private final LongSupplier clock;
+
+    private final LatencyWindow latencies;
+    private final Object budgetLock = new Object();
+    private double budget;
+
+    private final Counter notHedged;
+    private final Counter hedged;
+    private final Counter budgetExhausted;
+    private final Counter primaryWins;
+    private final Counter hedgeWins;
+
+    @Autowired
+    public RequestHedger(Executor scoringEngineExecutor, TaskScheduler scoringRetryScheduler, MeterRegistry meterRegistry,
+                         @Value("${scoring.engine.hedge.enabled:false}") boolean enabled,
+                         @Value("${scoring.engine.hedge.percentile:0.95}") double percentile,
+                         @Value("${scoring.engine.hedge.min-delay-ms:20}") long minDelayMs,
+                         @Value("${scoring.engine.hedge.window:1000}") int window,
+                         @Value("${scoring.engine.hedge.min-samples:50}") int minSamples,
+                         @Value("${scoring.engine.hedge.budget-ratio:0.1}") double budgetRatio,
+                         @Value("${scoring.engine.hedge.budget-max:10}") double budgetMax) {
+        this(scoringEngineExecutor, scoringRetryScheduler, meterRegistry, enabled, percentile, minDelayMs, window,
+                minSamples, budgetRatio, budgetMax, System::nanoTime);
+    }
+
+    RequestHedger(Executor executor, TaskScheduler scheduler, MeterRegistry meterRegistry, boolean enabled,
+                  double percentile, long minDelayMs, int window, int minSamples, double budgetRatio, double budgetMax,
+                  LongSupplier clock) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.minSamples = Math.max(1, minSamples);
+        this.budgetRatio = budgetRatio;
+        this.budgetMax = budgetMax;
+        this.budget = budgetMax;
+        this.clock = clock;
+        this.latencies = new LatencyWindow(Math.max(this.minSamples, window));
+
+        this.notHedged = requestCounter(meterRegistry, "primary_only");
+        this.hedged = requestCounter(meterRegistry, "hedged");
+        this.budgetExhausted = requestCounter(meterRegistry, "budget_exhausted");
+        this.primaryWins = winCounter(meterRegistry, "primary");
+        this.hedgeWins = winCounter(meterRegistry, "hedge");
+        Gauge.builder("scoring.engine.hedge.threshold", this, hedger -> hedger.thresholdNanos() / 1_000_000.0)
+                .description("How long a scoring engine request may run before it is hedged; 0 until enough latencies are known")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} on the scoring engine executor, hedged if hedging is enabled. The returned future
+     * completes with the first successful answer, or fails once every request sent has failed.
+     */
+    public <T> CompletableFuture<T> call(Supplier<T> call) {
+        if (!enabled) {
+            return CompletableFuture.supplyAsync(call, executor);
+        }
+
+        deposit();
+        Hedge<T> hedge = new Hedge<>(call, clock.getAsLong());
+        hedge.primary = launch(hedge, false);
+
+        long threshold = thresholdNanos();
+        if (threshold == 0 || hedge.result.isDone()) {
+            // Not enough latencies observed yet to know what slow means
+            notHedged.increment();
+        } else {
+            scheduler.schedule(() -> sendHedge(hedge), Instant.now().plusNanos(threshold));
+        }
+        return hedge.result;
+    }
+
+    private <T> void sendHedge(Hedge<T> hedge) {
+        if (hedge.result.isDone()) {
+            notHedged.increment();
+            return;
+        }
+        if (!withdraw()) {
+            budgetExhausted.increment();
+            return;
+        }
+        hedged.increment();
+        hedge.hedged = true;
+        hedge.secondary = launch(hedge, true);
+    }
+
+    private <T> Future<?> launch(Hedge<T> hedge, boolean isHedge) {
+        hedge.running.incrementAndGet();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                hedge.succeeded(hedge.call.get(), isHedge);
+            } catch (RuntimeException e) {
+                hedge.failed(e);
+            }
+        }, null);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            hedge.failed(e);
+        }
+        return task;
+    }
+
+    /**
+     * The {@code percentile} of recent latencies, or 0 while fewer than {@code minSamples} are known
+     */
+    long thresholdNanos() {
+        long observed = latencies.percentile(percentile, minSamples);
+        return observed == 0 ? 0 : Math.max(minDelayNanos, observed);
+    }
+
+    private void deposit() {
+        synchronized (budgetLock) {
+            budget = Math.min(budgetMax, budget + budgetRatio);
+        }
+    }
+
+    private boolean withdraw() {
+        synchronized (budgetLock) {
+            if (budget < 1) {
+                return false;
+            }
+            budget -= 1;
+            return true;
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("scoring.engine.hedge.requests")
+                .description("Hedgeable scoring engine requests by whether a second request was sent; the hedge rate is hedged over the total")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter winCounter(MeterRegistry meterRegistry, String winner) {
+        return Counter.builder("scoring.engine.hedge.wins")
+                .description("Hedged scoring engine requests by which request answered first")
+                .tag("winner", winner)
+                .register(meterRegistry);
+    }
+
+    private final class Hedge<T> {
+        private final Supplier<T> call;
+        private final long startedAt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private volatile Future<?> primary;
+        private volatile Future<?> secondary;
+        private volatile boolean hedged;
+
+        private Hedge(Supplier<T> call, long startedAt) {
+            this.call = call;
+            this.startedAt = startedAt;
+        }
+
+        private void succeeded(T value, boolean isHedge) {
+            running.decrementAndGet();
+            if (!result.complete(value)) {
+                return;
+            }
+            // When the hedge wins this undercounts the primary's latency, which keeps stragglers from
+            // dragging the threshold up
+            latencies.record(clock.getAsLong() - startedAt);
+            if (hedged) {
+                (isHedge ? hedgeWins : primaryWins).increment();
+            }
+            Future<?> loser = isHedge ? primary : secondary;
+            if (loser != null) {
+                loser.cancel(true);
+            }
+        }
+
+        private void failed(RuntimeException error) {
+            // A failure only counts once no other request is left that could still answer
+            if (running.decrementAndGet() <= 0) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * The last {@code capacity} latencies; the percentile is recomputed every tenth of a window rather
+     * than on every read
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private final int recomputeEvery;
+        private int next;
+        private int size;
+        private int sinceRecompute;
+        private double cachedPercentile = -1;
+        private long cachedValue;
+
+        private LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+            this.recomputeEvery = Math.max(1, capacity / 10);
+        }
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+            sinceRecompute++;
+        }
+
+        private synchronized long percentile(double percentile, int minSamples) {
+            if (size < minSamples) {
+                return 0;
+            }
+            if (percentile != cachedPercentile || sinceRecompute >= recomputeEvery || cachedValue == 0) {
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                int index = Math.min(size - 1, Math.max(0, (int) Math.ceil(percentile * size) - 1));
+                cachedValue = Math.max(1, sorted[index]);
+                cachedPercentile = percentile;
+                sinceRecompute = 0;
+            }
+            return cachedValue;
+        }
+    }
+}
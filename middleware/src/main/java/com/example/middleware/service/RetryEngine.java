@@ -0,0 +1,225 @@
+package com.example.middleware.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs scoring engine calls asynchronously and retries the failed ones without holding a thread.
+ * <p>
+ * Each attempt runs on {@code scoringEngineExecutor}. A failed attempt is retried after a jittered
+ * exponential backoff, waited out on {@code scoringRetryScheduler}, until {@code maxAttempts} is reached.
+ * Every call has a deadline: the returned future fails once it passes, and no retry is scheduled that
+ * would start after it. Retries also draw on a shared budget that each call tops up by {@code budgetRatio},
+ * so during a brownout the engine sees at most that share of extra traffic instead of {@code maxAttempts} times the load.
+ */
+@Component
+public class RetryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryEngine.class);
+
+    private final Executor executor;
+    private final TaskScheduler scheduler;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long deadlineMs;
+    private final double budgetRatio;
+    private final double budgetMax;
+    private final LongSupplier clock;
+    private final DoubleSupplier random;
+
+    private final Object budgetLock = new Object();
+    private double budget;
+
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter retried;
+    private final Counter budgetExhausted;
+    private final Counter deadlineExceeded;
+
+    @Autowired
+    public RetryEngine(Executor scoringEngineExecutor, TaskScheduler scoringRetryScheduler, MeterRegistry meterRegistry,
+                       @Value("${scoring.engine.retry.max-attempts:5}") int maxAttempts,
+                       @Value("${scoring.engine.retry.delay-ms:2000}") long baseDelayMs,
+                       @Value("${scoring.engine.retry.max-delay-ms:10000}") long maxDelayMs,
+                       @Value("${scoring.engine.retry.deadline-ms:15000}") long deadlineMs,
+                       @Value("${scoring.engine.retry.budget-ratio:0.2}") double budgetRatio,
+                       @Value("${scoring.engine.retry.budget-max:10}") double budgetMax) {
+        this(scoringEngineExecutor, scoringRetryScheduler, meterRegistry, maxAttempts, baseDelayMs, maxDelayMs,
+                deadlineMs, budgetRatio, budgetMax, System::nanoTime, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    RetryEngine(Executor executor, TaskScheduler scheduler, MeterRegistry meterRegistry, int maxAttempts,
+                long baseDelayMs, long maxDelayMs, long deadlineMs, double budgetRatio, double budgetMax,
+                LongSupplier clock, DoubleSupplier random) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.deadlineMs = deadlineMs;
+        this.budgetRatio = budgetRatio;
+        this.budgetMax = budgetMax;
+        this.budget = budgetMax;
+        this.clock = clock;
+        this.random = random;
+
+        this.succeeded = callCounter(meterRegistry, "success");
+        this.failed = callCounter(meterRegistry, "failure");
+        this.retried = retryCounter(meterRegistry, "scheduled");
+        this.budgetExhausted = retryCounter(meterRegistry, "budget_exhausted");
+        this.deadlineExceeded = retryCounter(meterRegistry, "deadline_exceeded");
+    }
+
+    /**
+     * Runs {@code call}, retrying it while it throws a retryable {@link RestClientException}. The returned
+     * future completes with the first successful result, or fails with the last error, or with a
+     * {@link TimeoutException} once the deadline has passed.
+     */
+    public <T> CompletableFuture<T> execute(String operation, Supplier<T> call) {
+        return executeAsync(operation, () -> CompletableFuture.supplyAsync(call, executor));
+    }
+
+    /**
+     * Like {@link #execute(String, Supplier)}, for calls that run their own attempts asynchronously;
+     * {@code attempt} is invoked once per attempt and its future decides whether to retry.
+     */
+    public <T> CompletableFuture<T> executeAsync(String operation, Supplier<CompletableFuture<T>> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadline = clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(operation + " did not complete within " + deadlineMs + " ms"))) {
+                deadlineExceeded.increment();
+            }
+        }, Instant.now().plusMillis(deadlineMs));
+        result.whenComplete((value, error) -> {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            if (error == null) {
+                succeeded.increment();
+            } else {
+                failed.increment();
+            }
+        });
+
+        deposit();
+        attempt(operation, attempt, 1, deadline, result);
+        return result;
+    }
+
+    private <T> void attempt(String operation, Supplier<CompletableFuture<T>> call, int attempt, long deadline,
+                             CompletableFuture<T> result) {
+        if (result.isDone()) {
+            // The deadline passed while this attempt waited for its backoff
+            return;
+        }
+        CompletableFuture<T> attemptFuture;
+        try {
+            attemptFuture = call.get();
+        } catch (RuntimeException e) {
+            // Typically the executor refusing the attempt because its queue is full
+            result.completeExceptionally(e);
+            return;
+        }
+        attemptFuture.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!isRetryable(cause) || attempt >= maxAttempts) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            long delayMs = backoff(attempt);
+            if (clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(delayMs) >= deadline) {
+                deadlineExceeded.increment();
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!withdraw()) {
+                budgetExhausted.increment();
+                logger.warn("{} failed and the retry budget is spent, not retrying: {}", operation, cause.getMessage());
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            retried.increment();
+            logger.warn("{} attempt {} failed, retrying in {} ms: {}", operation, attempt, delayMs, cause.getMessage());
+            scheduler.schedule(() -> attempt(operation, call, attempt + 1, deadline, result),
+                    Instant.now().plus(Duration.ofMillis(delayMs)));
+        });
+    }
+
+    /**
+     * Full jitter: a random delay up to the exponential bound, so clients that failed together do not
+     * all retry together.
+     */
+    private long backoff(int attempt) {
+        long bound = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return (long) (bound * random.getAsDouble());
+    }
+
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof HttpClientErrorException clientError) {
+            // Other 4xx answers will not change on a retry
+            return clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+                    || clientError.getStatusCode() == HttpStatus.REQUEST_TIMEOUT;
+        }
+        return cause instanceof RestClientException;
+    }
+
+    private void deposit() {
+        synchronized (budgetLock) {
+            budget = Math.min(budgetMax, budget + budgetRatio);
+        }
+    }
+
+    private boolean withdraw() {
+        synchronized (budgetLock) {
+            if (budget < 1) {
+                return false;
+            }
+            budget -= 1;
+            return true;
+        }
+    }
+
+    private static Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("scoring.engine.calls")
+                .description("Scoring engine calls by final outcome, after retries")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter retryCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("scoring.engine.retries")
+                .description("Scoring engine retry decisions; budget_exhausted and deadline_exceeded mean the call gave up")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
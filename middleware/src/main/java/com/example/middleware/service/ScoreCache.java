@@ -0,0 +1,208 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.ScoreResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-customer cache of scoring engine results, served stale-while-revalidate.
+ * <p>
+ * A score younger than {@code ttl} is served as-is. An older one, up to {@code maxStale}, is served at once
+ * marked {@code stale} while a background call refreshes it, so an engine outage neither slows reads down
+ * nor replaces real scores with made-up ones. A customer with no usable score waits for the engine; if that
+ * fails too, the failure is cached for {@code negativeTtl} so repeated reads do not each wait out the retries.
+ * Concurrent reads of the same customer share one engine call.
+ */
+@Component
+public class ScoreCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreCache.class);
+
+    private final long ttlNanos;
+    private final long maxStaleNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<ScoreResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter freshReads;
+    private final Counter staleReads;
+    private final Counter negativeReads;
+    private final Counter misses;
+    private final Counter revalidated;
+    private final Counter revalidationFailed;
+
+    @Autowired
+    public ScoreCache(MeterRegistry meterRegistry,
+                      @Value("${scoring.engine.score-cache.ttl:5m}") Duration ttl,
+                      @Value("${scoring.engine.score-cache.max-stale:24h}") Duration maxStale,
+                      @Value("${scoring.engine.score-cache.negative-ttl:30s}") Duration negativeTtl,
+                      @Value("${scoring.engine.score-cache.max-entries:10000}") int maxEntries) {
+        this(meterRegistry, ttl, maxStale, negativeTtl, maxEntries, System::nanoTime);
+    }
+
+    ScoreCache(MeterRegistry meterRegistry, Duration ttl, Duration maxStale, Duration negativeTtl, int maxEntries,
+               LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxStaleNanos = maxStale.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.clock = clock;
+        // Least recently read customers are dropped first once the cache is full
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        this.freshReads = readCounter(meterRegistry, "fresh");
+        this.staleReads = readCounter(meterRegistry, "stale");
+        this.negativeReads = readCounter(meterRegistry, "negative");
+        this.misses = readCounter(meterRegistry, "miss");
+        this.revalidated = revalidationCounter(meterRegistry, "success");
+        this.revalidationFailed = revalidationCounter(meterRegistry, "failure");
+        Gauge.builder("score.cache.size", entries, Map::size)
+                .description("Customers with a cached score or cached failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the customer's score, calling {@code fetch} only when the cache cannot answer. A read that
+     * finds a usable entry completes at once; otherwise the returned future completes with the engine's
+     * answer or with an unavailable response, and never fails.
+     */
+    public CompletableFuture<ScoreResponse> read(String customerNumber, Supplier<CompletableFuture<ScoreResponse>> fetch) {
+        Entry entry = entries.get(customerNumber);
+        long now = clock.getAsLong();
+
+        if (entry != null && entry.score != null) {
+            long age = now - entry.fetchedAt;
+            if (age < ttlNanos) {
+                freshReads.increment();
+                return CompletableFuture.completedFuture(entry.score);
+            }
+            if (age < maxStaleNanos) {
+                staleReads.increment();
+                revalidate(customerNumber, fetch);
+                return CompletableFuture.completedFuture(stale(entry.score, age));
+            }
+        } else if (entry != null && now - entry.fetchedAt < negativeTtlNanos) {
+            negativeReads.increment();
+            return CompletableFuture.completedFuture(ScoreResponse.unavailable(customerNumber, entry.error));
+        }
+
+        misses.increment();
+        return load(customerNumber, fetch).handle((score, error) -> {
+            if (error == null) {
+                return score;
+            }
+            // The entry may have been refreshed by another read while this one waited
+            Entry current = entries.get(customerNumber);
+            if (current != null && current.score != null && clock.getAsLong() - current.fetchedAt < maxStaleNanos) {
+                return stale(current.score, clock.getAsLong() - current.fetchedAt);
+            }
+            return ScoreResponse.unavailable(customerNumber, unwrap(error).getMessage());
+        });
+    }
+
+    private void revalidate(String customerNumber, Supplier<CompletableFuture<ScoreResponse>> fetch) {
+        load(customerNumber, fetch).whenComplete((score, error) -> {
+            if (error == null) {
+                revalidated.increment();
+            } else {
+                revalidationFailed.increment();
+                logger.warn("Background score refresh failed for customer {}, keeping the stale score: {}",
+                        customerNumber, unwrap(error).getMessage());
+            }
+        });
+    }
+
+    /**
+     * Calls the engine, or joins the call already running for the customer, and records the outcome.
+     * A failure only replaces an entry that has no servable score to fall back on.
+     */
+    private CompletableFuture<ScoreResponse> load(String customerNumber, Supplier<CompletableFuture<ScoreResponse>> fetch) {
+        CompletableFuture<ScoreResponse> call = new CompletableFuture<>();
+        CompletableFuture<ScoreResponse> running = inFlight.putIfAbsent(customerNumber, call);
+        if (running != null) {
+            return running;
+        }
+
+        CompletableFuture<ScoreResponse> fetched;
+        try {
+            fetched = fetch.get();
+        } catch (RuntimeException e) {
+            fetched = CompletableFuture.failedFuture(e);
+        }
+        fetched.whenComplete((score, error) -> {
+            if (error == null) {
+                entries.put(customerNumber, new Entry(score, null, clock.getAsLong()));
+            } else {
+                long now = clock.getAsLong();
+                entries.compute(customerNumber, (key, current) ->
+                        current != null && current.score != null && now - current.fetchedAt < maxStaleNanos
+                                ? current
+                                : new Entry(null, unwrap(error).getMessage(), now));
+            }
+            inFlight.remove(customerNumber, call);
+            if (error == null) {
+                call.complete(score);
+            } else {
+                call.completeExceptionally(unwrap(error));
+            }
+        });
+        return call;
+    }
+
+    private static ScoreResponse stale(ScoreResponse score, long ageNanos) {
+        return score.asStale(Duration.ofNanos(ageNanos).toSeconds());
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("score.cache.reads")
+                .description("Score reads by how the cache answered them; miss means the read waited for the engine")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter revalidationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("score.cache.revalidations")
+                .description("Background refreshes of stale scores by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry {
+        // Null for a cached failure
+        private final ScoreResponse score;
+        private final String error;
+        private final long fetchedAt;
+
+        private Entry(ScoreResponse score, String error, long fetchedAt) {
+            this.score = score;
+            this.error = error;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.middleware.service;
 
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.dto.ScoreResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -12,13 +14,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class ScoringEngineService {
 
     private final RestTemplate restTemplate;
+    private final RetryEngine retryEngine;
+    private final RequestHedger requestHedger;
+    private final AdaptiveConcurrencyLimiter scoringEngineLimiter;
+    private final ScoreCache scoreCache;
+    private final ClientRegistrationCache clientRegistrationCache;
     private static final Logger logger = LoggerFactory.getLogger(ScoringEngineService.class);
     
     @Value("${scoring.engine.url:https://scoringtest.credable.io/api}")
@@ -30,179 +37,129 @@ public class ScoringEngineService {
     @Value("${scoring.engine.password:pwd123}")
     private String password;
     
-    @Value("${scoring.engine.retry.max-attempts:5}")
-    private int maxRetryAttempts;
-    
-    @Value("${scoring.engine.retry.delay-ms:2000}")
-    private long retryDelayMs;
-    
-    public ScoringEngineService(RestTemplate restTemplate) {
+    public ScoringEngineService(RestTemplate restTemplate, RetryEngine retryEngine, RequestHedger requestHedger,
+                                AdaptiveConcurrencyLimiter scoringEngineLimiter, ScoreCache scoreCache,
+                                ClientRegistrationCache clientRegistrationCache) {
         this.restTemplate = restTemplate;
+        this.retryEngine = retryEngine;
+        this.requestHedger = requestHedger;
+        this.scoringEngineLimiter = scoringEngineLimiter;
+        this.scoreCache = scoreCache;
+        this.clientRegistrationCache = clientRegistrationCache;
     }
     
     /**
-     * Retrieves a customer score from the Scoring Engine with retry mechanism
+     * Retrieves a customer score, from the {@link ScoreCache} when it holds a usable one and otherwise from
+     * the Scoring Engine, retrying failed calls through the {@link RetryEngine} and hedging slow ones
+     * through the {@link RequestHedger}
      * 
      * @param customerNumber The customer number
-     * @return The score response
+     * @return The score response; marked stale when the engine could not refresh it, or unavailable when
+     *         the engine failed and no earlier score is known
      */
-    public Map<String, Object> getCustomerScore(String customerNumber) {
+    public CompletableFuture<ScoreResponse> getCustomerScore(String customerNumber) {
+        return scoreCache.read(customerNumber, () -> fetchCustomerScore(customerNumber));
+    }
+    
+    private CompletableFuture<ScoreResponse> fetchCustomerScore(String customerNumber) {
         String url = scoringEngineUrl + "/score/" + customerNumber;
         
         // Create request with authentication
         HttpHeaders headers = createAuthHeaders();
         HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
         
-        Exception lastException = null;
-        
-        // Implement retry mechanism
-        for (int attempt = 0; attempt < maxRetryAttempts; attempt++) {
-            try {
-                ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                        url,
-                        HttpMethod.GET,
-                        requestEntity,
-                        new ParameterizedTypeReference<Map<String, Object>>() {}
-                );
-                
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    return response.getBody();
-                }
-                
-            } catch (RestClientException e) {
-                lastException = e;
-                System.err.println("Attempt " + (attempt + 1) + " failed: " + e.getMessage());
-                
-                // Wait before retrying
-                try {
-                    Thread.sleep(retryDelayMs * (attempt + 1)); // Exponential backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        }
-        
-        // If all retries failed, return fallback response
-        System.err.println("All retry attempts failed. Last error: " + 
-                (lastException != null ? lastException.getMessage() : "Unknown error"));
-        return createFallbackScoreResponse(customerNumber);
+        // A score query is a GET, so each attempt may be hedged with a duplicate request
+        return retryEngine.executeAsync("Score query for customer " + customerNumber,
+                () -> requestHedger.call(() -> exchange(url, HttpMethod.GET, requestEntity, ScoreResponse.class)));
+    }
+    
+    /**
+     * Registers a client with the Scoring Engine, unless it is already registered with the same details
+     * 
+     * @param clientData The client registration data
+     * @return The registration response
+     */
+    public CompletableFuture<ClientRegistrationResponse> registerClient(ClientRegistrationRequest clientData) {
+        return registerClient(clientData, false);
     }
     
     /**
      * Registers a client with the Scoring Engine
      * 
      * @param clientData The client registration data
+     * @param force Register with the engine even if the client is already registered with the same details
      * @return The registration response
      */
-    public Map<String, Object> registerClient(Map<String, Object> clientData) {
+    public CompletableFuture<ClientRegistrationResponse> registerClient(ClientRegistrationRequest clientData, boolean force) {
         String url = scoringEngineUrl + "/client/register";
         
         // Create request with authentication
         HttpHeaders headers = createAuthHeaders();
-        HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(clientData, headers);
-        
-        Exception lastException = null;
-        
-        // Implement retry mechanism
-        for (int attempt = 0; attempt < maxRetryAttempts; attempt++) {
-            try {
-                ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                        url,
-                        HttpMethod.POST,
-                        requestEntity,
-                        new ParameterizedTypeReference<Map<String, Object>>() {}
-                );
-                
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    return response.getBody();
-                }
-                
-            } catch (RestClientException e) {
-                lastException = e;
-                System.err.println("Attempt " + (attempt + 1) + " failed: " + e.getMessage());
-                
-                // Wait before retrying
-                try {
-                    Thread.sleep(retryDelayMs * (attempt + 1)); // Exponential backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        }
-        
-        // If all retries failed, return error response
-        System.err.println("All retry attempts failed. Last error: " + 
-                (lastException != null ? lastException.getMessage() : "Unknown error"));
-        
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("success", false);
-        errorResponse.put("error", "Failed to register client after " + maxRetryAttempts + " attempts");
-        return errorResponse;
+        HttpEntity<ClientRegistrationRequest> requestEntity = new HttpEntity<>(clientData, headers);
+        
+        return clientRegistrationCache.register("register", clientData, force, () -> retryEngine.execute("Client registration",
+                        () -> exchange(url, HttpMethod.POST, requestEntity, ClientRegistrationResponse.class))
+                .exceptionally(error -> {
+                    // If all retries failed, return error response
+                    logger.error("All client registration attempts failed. Last error: {}", unwrap(error).getMessage());
+                    return ClientRegistrationResponse.failed("Failed to register client: " + unwrap(error).getMessage());
+                }));
+    }
+    
+    /**
+     * Registers a client with the Scoring Engine using the createClient endpoint, unless it is already
+     * registered with the same details
+     * 
+     * @param clientData The client registration data with url, name, username, and password
+     * @return The registration response
+     */
+    public CompletableFuture<ClientRegistrationResponse> createClient(ClientRegistrationRequest clientData) {
+        return createClient(clientData, false);
     }
     
     /**
      * Registers a client with the Scoring Engine using the createClient endpoint
      * 
      * @param clientData The client registration data with url, name, username, and password
+     * @param force Register with the engine even if the client is already registered with the same details
      * @return The registration response
      */
-    public Map<String, Object> createClient(Map<String, Object> clientData) {
+    public CompletableFuture<ClientRegistrationResponse> createClient(ClientRegistrationRequest clientData, boolean force) {
         String url = scoringEngineUrl + "/client/createClient";
         
         // Validate required fields
-        if (!clientData.containsKey("url") || !clientData.containsKey("name") || 
-            !clientData.containsKey("username") || !clientData.containsKey("password")) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("error", "Missing required fields: url, name, username, and password are required");
-            return errorResponse;
+        if (!clientData.hasCreateClientFields()) {
+            return CompletableFuture.completedFuture(ClientRegistrationResponse.failed(
+                    "Missing required fields: url, name, username, and password are required"));
         }
         
         // Create request with authentication
         HttpHeaders headers = createAuthHeaders();
         headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(clientData, headers);
-        
-        Exception lastException = null;
+        HttpEntity<ClientRegistrationRequest> requestEntity = new HttpEntity<>(clientData, headers);
+        
+        return clientRegistrationCache.register("createClient", clientData, force, () -> retryEngine.execute("Client creation",
+                        () -> exchange(url, HttpMethod.POST, requestEntity, ClientRegistrationResponse.class))
+                .exceptionally(error -> {
+                    // If all retries failed, return error response
+                    logger.error("All client creation attempts failed. Last error: {}", unwrap(error).getMessage());
+                    return ClientRegistrationResponse.failed("Failed to create client: " + unwrap(error).getMessage());
+                }));
+    }
+    
+    /**
+     * One attempt at a scoring engine call, read straight into {@code responseType}; a non-2xx answer or an
+     * empty body counts as a failed attempt. Every request, hedges included, holds a slot of the scoring
+     * engine's concurrency limit while it runs.
+     */
+    private <T> T exchange(String url, HttpMethod method, HttpEntity<?> requestEntity, Class<T> responseType) {
+        ResponseEntity<T> response = scoringEngineLimiter.execute(
+                () -> restTemplate.exchange(url, method, requestEntity, responseType));
         
-        // Implement retry mechanism
-        for (int attempt = 0; attempt < maxRetryAttempts; attempt++) {
-            try {
-                ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                        url,
-                        HttpMethod.POST,
-                        requestEntity,
-                        new ParameterizedTypeReference<Map<String, Object>>() {}
-                );
-                
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    return response.getBody();
-                }
-                
-            } catch (RestClientException e) {
-                lastException = e;
-                System.err.println("Attempt " + (attempt + 1) + " failed: " + e.getMessage());
-                
-                // Wait before retrying
-                try {
-                    Thread.sleep(retryDelayMs * (attempt + 1)); // Exponential backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            return response.getBody();
         }
-        
-        // If all retries failed, return error response
-        System.err.println("All retry attempts failed. Last error: " + 
-                (lastException != null ? lastException.getMessage() : "Unknown error"));
-        
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("success", false);
-        errorResponse.put("error", "Failed to create client after " + maxRetryAttempts + " attempts");
-        return errorResponse;
+        throw new RestClientException("Scoring engine answered " + response.getStatusCode() + " without a body");
     }
     
     /**
@@ -217,11 +174,12 @@ public class ScoringEngineService {
         int attempt = 0;
         while (attempt < 1) { // Only try once for faster fallback to mock
             try {
-                ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                // Only the status matters, so the body is not read
+                ResponseEntity<Void> response = restTemplate.exchange(
                     testUrl,
                     HttpMethod.GET,
                     entity,
-                    new ParameterizedTypeReference<Map<String, Object>>() {}
+                    Void.class
                 );
                 
                 if (response.getStatusCode().is2xxSuccessful()) {
@@ -255,13 +213,8 @@ public class ScoringEngineService {
         return headers;
     }
     
-    private Map<String, Object> createFallbackScoreResponse(String customerNumber) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("customerNumber", customerNumber);
-        response.put("score", 650); // Default fallback score
-        response.put("scoreDate", java.time.LocalDate.now().toString());
-        response.put("isFallback", true);
-        response.put("message", "This is fallback data due to Scoring Engine API failure");
-        return response;
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
+    
 }
@@ -1,18 +1,17 @@
 package com.example.middleware.service;
 
+import com.example.middleware.dto.TransactionSummary;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.soap.client.core.SoapActionCallback;
 
-import java.util.HashMap;
-import java.util.Map;
-
 @Service
 public class TransactionDataService {
 
     private final WebServiceTemplate webServiceTemplate;
+    private final AdaptiveConcurrencyLimiter cbsLimiter;
     
     @Value("${cbs.username:admin}")
     private String username;
@@ -23,8 +22,9 @@ public class TransactionDataService {
     @Value("${com.example.middleware.transaction.data.url:https://trxapitest.credable.io/service/transaction}")
     private String transactionUrl;
     
-    public TransactionDataService(WebServiceTemplate webServiceTemplate) {
+    public TransactionDataService(WebServiceTemplate webServiceTemplate, AdaptiveConcurrencyLimiter cbsLimiter) {
         this.webServiceTemplate = webServiceTemplate;
+        this.cbsLimiter = cbsLimiter;
     }
     
     /**
@@ -33,7 +33,7 @@ public class TransactionDataService {
      * @param customerNumber The customer number
      * @return The transaction data
      */
-    public Map<String, Object> getTransactionData(String customerNumber) {
+    public TransactionSummary getTransactionData(String customerNumber) {
         try {
             // Create the request
             String soapRequest = createSoapRequest(customerNumber);
@@ -43,12 +43,12 @@ public class TransactionDataService {
                 new BasicAuthenticationInterceptor(username, password)
             });
             
-            // Make the SOAP call
-            String response = (String) webServiceTemplate.marshalSendAndReceive(
+            // Make the SOAP call, within the CBS concurrency limit
+            String response = cbsLimiter.execute(() -> (String) webServiceTemplate.marshalSendAndReceive(
                     transactionUrl,
                     soapRequest,
                     new SoapActionCallback("http://credable.io/cbs/GetTransactionData")
-            );
+            ));
             
             // Process the response
             return processResponse(response, customerNumber);
@@ -72,34 +72,13 @@ public class TransactionDataService {
                 "</soapenv:Envelope>";
     }
     
-    private Map<String, Object> processResponse(String response, String customerNumber) {
+    private TransactionSummary processResponse(String response, String customerNumber) {
         // In a real implementation, this would parse the XML response
         // For this example, we'll create a sample response
-        Map<String, Object> result = new HashMap<>();
-        result.put("customerNumber", customerNumber);
-        result.put("responseData", response);
-        
-        // Add some sample transaction data
-        Map<String, Object> transactions = new HashMap<>();
-        transactions.put("count", 5);
-        transactions.put("lastTransactionDate", "2025-03-20");
-        result.put("transactions", transactions);
-        
-        return result;
+        return TransactionSummary.of(customerNumber, response, new TransactionSummary.Transactions(5, "2025-03-20"));
     }
     
-    private Map<String, Object> createFallbackResponse(String customerNumber) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("customerNumber", customerNumber);
-        response.put("isFallback", true);
-        response.put("message", "This is fallback data due to CBS API failure");
-        
-        // Add some fallback transaction data
-        Map<String, Object> transactions = new HashMap<>();
-        transactions.put("count", 0);
-        transactions.put("lastTransactionDate", "N/A");
-        response.put("transactions", transactions);
-        
-        return response;
+    private TransactionSummary createFallbackResponse(String customerNumber) {
+        return TransactionSummary.fallback(customerNumber, "This is fallback data due to CBS API failure");
     }
 }
@@ -1,7 +1,14 @@
 package com.example.middleware.controller;
 
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.dto.ScoreResponse;
+import com.example.middleware.dto.TransactionSummary;
+import com.example.middleware.service.BatchScoringService;
 import com.example.middleware.service.ScoringEngineService;
 import com.example.middleware.service.TransactionDataService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -12,8 +19,9 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -27,9 +35,14 @@ class MiddlewareControllerTest {
     @Mock
     private ScoringEngineService scoringEngineService;
 
+    @Mock
+    private BatchScoringService batchScoringService;
+
     @InjectMocks
     private MiddlewareController middlewareController;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -42,20 +55,19 @@ class MiddlewareControllerTest {
     @ValueSource(strings = {"234774784", "318411216", "340397370", "366585630", "397178638"})
     void getTransactionDataWithMultipleCustomerIds(String customerId) {
         // Create mock response
-        Map<String, Object> mockResponse = new HashMap<>();
-        mockResponse.put("customerNumber", customerId);
-        mockResponse.put("transactions", new HashMap<>());
+        TransactionSummary mockResponse = TransactionSummary.of(customerId, null,
+                new TransactionSummary.Transactions(5, "2025-03-20"));
 
         // Mock the service
         when(transactionDataService.getTransactionData(customerId)).thenReturn(mockResponse);
 
         // Call the controller method
-        ResponseEntity<Map<String, Object>> response = middlewareController.getTransactionData(customerId);
+        ResponseEntity<TransactionSummary> response = middlewareController.getTransactionData(customerId);
 
         // Verify the response
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(customerId, response.getBody().get("customerNumber"));
+        assertEquals(customerId, response.getBody().customerNumber());
     }
 
     /**
@@ -65,45 +77,89 @@ class MiddlewareControllerTest {
     @ValueSource(strings = {"234774784", "318411216", "340397370", "366585630", "397178638"})
     void getCustomerScoreWithMultipleCustomerIds(String customerId) {
         // Create mock response
-        Map<String, Object> mockResponse = new HashMap<>();
-        mockResponse.put("customerNumber", customerId);
-        mockResponse.put("score", 750);
+        ScoreResponse mockResponse = ScoreResponse.of(customerId, 750, 2000.0, "2025-03-22");
 
         // Mock the service
-        when(scoringEngineService.getCustomerScore(customerId)).thenReturn(mockResponse);
+        when(scoringEngineService.getCustomerScore(customerId)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         // Call the controller method
-        ResponseEntity<Map<String, Object>> response = middlewareController.getCustomerScore(customerId);
+        ResponseEntity<ScoreResponse> response = middlewareController.getCustomerScore(customerId).join();
 
         // Verify the response
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(customerId, response.getBody().get("customerNumber"));
-        assertEquals(750, response.getBody().get("score"));
+        assertEquals(customerId, response.getBody().customerNumber());
+        assertEquals(750, response.getBody().score());
+    }
+
+    /**
+     * Test that the score endpoint writes a generated score under its original JSON keys
+     */
+    @Test
+    void getCustomerScoreKeepsJsonKeys() throws Exception {
+        when(scoringEngineService.getCustomerScore("234774784"))
+                .thenReturn(CompletableFuture.completedFuture(ScoreResponse.of("234774784", 750, 2000.0, "2025-03-22")));
+
+        ResponseEntity<ScoreResponse> response = middlewareController.getCustomerScore("234774784").join();
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(response.getBody()));
+
+        Set<String> keys = new HashSet<>();
+        json.fieldNames().forEachRemaining(keys::add);
+        assertEquals(Set.of("customerNumber", "score", "limit", "timestamp"), keys);
+    }
+
+    /**
+     * Test that the score endpoint passes the engine's answer through unchanged, including fields it does not know
+     */
+    @Test
+    void getCustomerScorePassesEngineFieldsThrough() throws Exception {
+        String engineJson = "{\"customerNumber\":\"234774784\",\"score\":750,\"limitAmount\":2000.0,"
+                + "\"scoreDate\":\"2025-03-22\",\"riskBand\":\"B\"}";
+        ScoreResponse engineScore = objectMapper.readValue(engineJson, ScoreResponse.class);
+        when(scoringEngineService.getCustomerScore("234774784")).thenReturn(CompletableFuture.completedFuture(engineScore));
+
+        ResponseEntity<ScoreResponse> response = middlewareController.getCustomerScore("234774784").join();
+
+        assertEquals(objectMapper.readTree(engineJson), objectMapper.readTree(objectMapper.writeValueAsString(response.getBody())));
     }
 
     @Test
     void registerClient() {
         // Create client data with one of the test customer IDs
-        Map<String, Object> clientData = new HashMap<>();
-        clientData.put("clientId", "234774784");
-        clientData.put("name", "Test Client");
+        ClientRegistrationRequest clientData = new ClientRegistrationRequest("234774784", "Test Client", null,
+                null, null, null);
 
         // Create mock response
-        Map<String, Object> mockResponse = new HashMap<>();
-        mockResponse.put("success", true);
-        mockResponse.put("clientId", "234774784");
+        ClientRegistrationResponse mockResponse = new ClientRegistrationResponse(true, "234774784", null, null, null);
 
         // Mock the service
-        when(scoringEngineService.registerClient(clientData)).thenReturn(mockResponse);
+        when(scoringEngineService.registerClient(clientData, false)).thenReturn(CompletableFuture.completedFuture(mockResponse));
 
         // Call the controller method
-        ResponseEntity<Map<String, Object>> response = middlewareController.registerClient(clientData);
+        ResponseEntity<ClientRegistrationResponse> response = middlewareController.registerClient(clientData, false).join();
 
         // Verify the response
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(true, response.getBody().get("success"));
-        assertEquals("234774784", response.getBody().get("clientId"));
+        assertEquals(true, response.getBody().success());
+        assertEquals("234774784", response.getBody().customerNumber());
+    }
+
+    /**
+     * Test that client registration forwards the caller's fields and the engine's answer under their own names
+     */
+    @Test
+    void registerClientPassesFieldsThrough() throws Exception {
+        String clientJson = "{\"clientId\":\"234774784\",\"firstName\":\"John\",\"lastName\":\"Doe\","
+                + "\"email\":\"john.doe@example.com\"}";
+        String engineJson = "{\"success\":true,\"clientId\":\"234774784\",\"token\":\"abc\"}";
+        ClientRegistrationRequest clientData = objectMapper.readValue(clientJson, ClientRegistrationRequest.class);
+        ClientRegistrationResponse engineResponse = objectMapper.readValue(engineJson, ClientRegistrationResponse.class);
+        when(scoringEngineService.registerClient(clientData, false)).thenReturn(CompletableFuture.completedFuture(engineResponse));
+
+        ResponseEntity<ClientRegistrationResponse> response = middlewareController.registerClient(clientData, false).join();
+
+        assertEquals(objectMapper.readTree(clientJson), objectMapper.readTree(objectMapper.writeValueAsString(clientData)));
+        assertEquals(objectMapper.readTree(engineJson), objectMapper.readTree(objectMapper.writeValueAsString(response.getBody())));
     }
 }
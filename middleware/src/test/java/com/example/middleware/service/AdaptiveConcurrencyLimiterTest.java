@@ -0,0 +1,99 @@
+package com.example.middleware.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    // Every read moves the clock on, so each call starts after the previous one
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Test that a successful call while the limit is in use raises the limit
+     */
+    @Test
+    void raisesLimitAfterSuccess() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 0);
+
+        assertEquals("ok", limiter.execute(() -> "ok"));
+
+        assertEquals(2.5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Test that a timeout cuts the limit, once per round of calls
+     */
+    @Test
+    void cutsLimitOnceWhenCallsTimeOut() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 0);
+
+        assertThrows(ResourceAccessException.class, () -> limiter.execute(() -> {
+            // Started before the inner call's cut, so its own timeout must not cut again
+            try {
+                limiter.execute(() -> {
+                    throw new ResourceAccessException("Read timed out");
+                });
+            } catch (ResourceAccessException e) {
+                // Fall through to the outer call's own timeout
+            }
+            throw new ResourceAccessException("Read timed out");
+        }));
+
+        assertEquals(9.0, limiter.getLimit());
+    }
+
+    /**
+     * Test that a call slower than the slow-call threshold cuts the limit even though it succeeded
+     */
+    @Test
+    void cutsLimitOnSlowCall() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 0);
+
+        limiter.execute(() -> now.addAndGet(TimeUnit.SECONDS.toNanos(5)));
+
+        assertEquals(9.0, limiter.getLimit());
+    }
+
+    /**
+     * Test that a client error other than 429 leaves the limit alone
+     */
+    @Test
+    void ignoresClientErrors() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 0);
+
+        assertThrows(HttpClientErrorException.class, () -> limiter.execute(() -> {
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+
+        assertEquals(10.0, limiter.getLimit());
+    }
+
+    /**
+     * Test that a call at the limit is refused at once when there is no room to queue
+     */
+    @Test
+    void rejectsAtTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 0);
+
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.execute(() -> limiter.execute(() -> "too many")));
+
+        assertEquals(1.0, meterRegistry.get("outbound.concurrency.rejections").tag("reason", "queue_full").counter().count());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue) {
+        return new AdaptiveConcurrencyLimiter("scoring-engine", meterRegistry, initialLimit, 1, 20, 0.9, 3000L,
+                maxQueue, 10L, now::incrementAndGet);
+    }
+}
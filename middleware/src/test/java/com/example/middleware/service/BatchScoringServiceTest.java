@@ -0,0 +1,114 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.ScoreResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BatchScoringServiceTest {
+
+    @Mock
+    private ScoringEngineService scoringEngineService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Test that every distinct customer is scored once and reported
+     */
+    @Test
+    void scoresEveryDistinctCustomer() {
+        when(scoringEngineService.getCustomerScore(anyString()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(score(invocation.getArgument(0))));
+        BatchScoringService batchScoringService = new BatchScoringService(scoringEngineService, 2);
+        List<ScoreResponse> results = new ArrayList<>();
+
+        batchScoringService.scoreAll(List.of("234774784", "318411216", "234774784", "340397370"), results::add).join();
+
+        assertEquals(3, results.size());
+        verify(scoringEngineService, times(1)).getCustomerScore("234774784");
+    }
+
+    /**
+     * Test that no more than the configured number of scores are in flight at once
+     */
+    @Test
+    void capsScoresInFlight() {
+        List<CompletableFuture<ScoreResponse>> pending = new ArrayList<>();
+        when(scoringEngineService.getCustomerScore(anyString())).thenAnswer(invocation -> {
+            CompletableFuture<ScoreResponse> score = new CompletableFuture<>();
+            pending.add(score);
+            return score;
+        });
+        BatchScoringService batchScoringService = new BatchScoringService(scoringEngineService, 2);
+        List<ScoreResponse> results = new ArrayList<>();
+
+        CompletableFuture<Void> done = batchScoringService.scoreAll(
+                List.of("234774784", "318411216", "340397370", "366585630"), results::add);
+
+        assertEquals(2, pending.size());
+        pending.get(0).complete(score("234774784"));
+        assertEquals(3, pending.size());
+        assertEquals("234774784", results.get(0).customerNumber());
+
+        pending.get(1).complete(score("318411216"));
+        pending.get(2).complete(score("340397370"));
+        pending.get(3).complete(score("366585630"));
+        done.join();
+        assertEquals(4, results.size());
+    }
+
+    /**
+     * Test that a failed customer is reported inline without failing the batch
+     */
+    @Test
+    void reportsFailuresInline() {
+        when(scoringEngineService.getCustomerScore("234774784"))
+                .thenReturn(CompletableFuture.completedFuture(score("234774784")));
+        when(scoringEngineService.getCustomerScore("318411216"))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Scoring engine down")));
+        BatchScoringService batchScoringService = new BatchScoringService(scoringEngineService, 4);
+        List<ScoreResponse> results = new ArrayList<>();
+
+        batchScoringService.scoreAll(List.of("234774784", "318411216"), results::add).join();
+
+        assertEquals(2, results.size());
+        ScoreResponse failure = results.get(1);
+        assertEquals("318411216", failure.customerNumber());
+        assertEquals("Scoring engine down", failure.error());
+    }
+
+    /**
+     * Test that no further customers are started once results can no longer be delivered
+     */
+    @Test
+    void stopsWhenResultsCannotBeDelivered() {
+        when(scoringEngineService.getCustomerScore(anyString()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(score(invocation.getArgument(0))));
+        BatchScoringService batchScoringService = new BatchScoringService(scoringEngineService, 1);
+
+        CompletableFuture<Void> done = batchScoringService.scoreAll(List.of("234774784", "318411216", "340397370"),
+                result -> {
+                    throw new IllegalStateException("Client disconnected");
+                });
+
+        assertThrows(CompletionException.class, done::join);
+        verify(scoringEngineService, times(1)).getCustomerScore(anyString());
+    }
+
+    private static ScoreResponse score(String customerNumber) {
+        return ScoreResponse.of(customerNumber, 700, 2000.0, "2025-03-22");
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.entity.ClientRegistration;
+import com.example.middleware.repository.ClientRegistrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ClientRegistrationCacheTest {
+
+    @Mock
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ClientRegistrationCache cache;
+    private AtomicInteger sends;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ClientRegistrationCache(clientRegistrationRepository, meterRegistry, "fingerprint-key");
+        sends = new AtomicInteger();
+    }
+
+    /**
+     * Test that registering the same client again with the same details is answered without the engine
+     */
+    @Test
+    void unchangedRegistrationIsNotSentAgain() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+
+        cache.register("register", request, false, this::accept).join();
+        ClientRegistrationResponse second = cache.register("register", request, false, this::accept).join();
+
+        assertEquals(1, sends.get());
+        assertTrue(second.success());
+        assertEquals("234774784", second.customerNumber());
+        verify(clientRegistrationRepository, times(1)).save(any(ClientRegistration.class));
+        assertEquals(1.0, meterRegistry.get("client.registrations").tag("result", "unchanged").counter().count());
+    }
+
+    /**
+     * Test that changed details, or force, register the client with the engine again
+     */
+    @Test
+    void changedOrForcedRegistrationIsSentAgain() {
+        cache.register("register", request("john.doe@example.com"), false, this::accept).join();
+        cache.register("register", request("john@example.org"), false, this::accept).join();
+        cache.register("register", request("john@example.org"), true, this::accept).join();
+
+        assertEquals(3, sends.get());
+        assertEquals(1.0, meterRegistry.get("client.registrations").tag("result", "changed").counter().count());
+        assertEquals(1.0, meterRegistry.get("client.registrations").tag("result", "forced").counter().count());
+    }
+
+    /**
+     * Test that a registration the engine rejected is not remembered
+     */
+    @Test
+    void failedRegistrationIsNotRemembered() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+
+        cache.register("register", request, false, () -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture(ClientRegistrationResponse.failed("Engine unavailable"));
+        }).join();
+        cache.register("register", request, false, this::accept).join();
+
+        assertEquals(2, sends.get());
+        assertEquals(1.0, meterRegistry.get("client.registrations").tag("result", "failed").counter().count());
+    }
+
+    /**
+     * Test that a registration stored before a restart is found in the database
+     */
+    @Test
+    void storedRegistrationIsFoundAfterRestart() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+        ClientRegistration stored = new ClientRegistration("register:234774784",
+                cache.fingerprint(request), "234774784", "Client registered", "2025-03-22", null, null);
+        when(clientRegistrationRepository.findAll()).thenReturn(List.of(stored));
+
+        cache.loadIndex();
+        ClientRegistrationResponse response = cache.register("register", request, false, this::accept).join();
+
+        assertEquals(0, sends.get());
+        assertEquals("Client registered", response.message());
+        verify(clientRegistrationRepository, never()).findById(any());
+    }
+
+    /**
+     * Test that the same client registered through different endpoints is remembered separately
+     */
+    @Test
+    void operationsAreRememberedApart() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+        when(clientRegistrationRepository.findById("createClient:234774784")).thenReturn(Optional.empty());
+
+        cache.register("register", request, false, this::accept).join();
+        cache.register("createClient", request, false, this::accept).join();
+
+        assertEquals(2, sends.get());
+    }
+
+    /**
+     * Test that the fingerprint is keyed, so a stored one cannot be matched without the server-side secret
+     */
+    @Test
+    void fingerprintDependsOnTheKey() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+        ClientRegistrationCache otherKey = new ClientRegistrationCache(clientRegistrationRepository,
+                new SimpleMeterRegistry(), "another-key");
+        ClientRegistrationCache sameKey = new ClientRegistrationCache(clientRegistrationRepository,
+                new SimpleMeterRegistry(), "fingerprint-key");
+
+        assertEquals(cache.fingerprint(request), cache.fingerprint(request));
+        assertEquals(cache.fingerprint(request), sameKey.fingerprint(request));
+        assertNotEquals(cache.fingerprint(request), otherKey.fingerprint(request));
+    }
+
+    /**
+     * Test that without a configured key each process gets its own random one, never a guessable default
+     */
+    @Test
+    void missingKeyFallsBackToARandomKey() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+        ClientRegistrationCache blankKey = new ClientRegistrationCache(clientRegistrationRepository,
+                new SimpleMeterRegistry(), "");
+        ClientRegistrationCache nullKey = new ClientRegistrationCache(clientRegistrationRepository,
+                new SimpleMeterRegistry(), null);
+
+        assertNotEquals(blankKey.fingerprint(request), nullKey.fingerprint(request));
+        assertEquals(blankKey.fingerprint(request), blankKey.fingerprint(request));
+    }
+
+    /**
+     * Test that a client sent by clientId is recognised by it, and that its passed-through fields are fingerprinted
+     */
+    @Test
+    void passedThroughFieldsIdentifyAndFingerprintTheClient() {
+        ClientRegistrationRequest request = new ClientRegistrationRequest(null, null, null, null, null, null,
+                new LinkedHashMap<>(Map.of("clientId", "234774784", "firstName", "John")));
+        ClientRegistrationRequest renamed = new ClientRegistrationRequest(null, null, null, null, null, null,
+                new LinkedHashMap<>(Map.of("clientId", "234774784", "firstName", "Johnny")));
+        when(clientRegistrationRepository.findById("register:234774784")).thenReturn(Optional.empty());
+
+        cache.register("register", request, false, this::accept).join();
+        cache.register("register", request, false, this::accept).join();
+        cache.register("register", renamed, false, this::accept).join();
+
+        assertEquals(2, sends.get());
+        assertNotEquals(cache.fingerprint(request), cache.fingerprint(renamed));
+        assertEquals(1.0, meterRegistry.get("client.registrations").tag("result", "changed").counter().count());
+    }
+
+    /**
+     * Test that a remembered registration is answered with the engine's other fields too
+     */
+    @Test
+    void rememberedResponseKeepsEngineFields() {
+        ClientRegistrationRequest request = request("john.doe@example.com");
+        ClientRegistrationResponse engineResponse = new ClientRegistrationResponse(true, null, "Client registered",
+                null, null, Map.of("clientId", "234774784"));
+        when(clientRegistrationRepository.save(any(ClientRegistration.class))).thenAnswer(invocation -> {
+            // Read back from the stored form, as after a restart
+            ClientRegistration stored = invocation.getArgument(0);
+            when(clientRegistrationRepository.findAll()).thenReturn(List.of(stored));
+            return stored;
+        });
+
+        cache.register("register", request, false, () -> CompletableFuture.completedFuture(engineResponse)).join();
+        ClientRegistrationCache restarted = new ClientRegistrationCache(clientRegistrationRepository,
+                new SimpleMeterRegistry(), "fingerprint-key");
+        restarted.loadIndex();
+        ClientRegistrationResponse response = restarted.register("register", request, false, this::accept).join();
+
+        assertEquals(0, sends.get());
+        assertEquals(Map.of("clientId", "234774784"), response.otherFields());
+    }
+
+    private CompletableFuture<ClientRegistrationResponse> accept() {
+        sends.incrementAndGet();
+        return CompletableFuture.completedFuture(
+                new ClientRegistrationResponse(true, "234774784", "Client registered", "2025-03-22", null));
+    }
+
+    private static ClientRegistrationRequest request(String email) {
+        return new ClientRegistrationRequest("234774784", "John Doe", email, null, null, null);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.DependencyStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class DependencyHealthMonitorTest {
+
+    @Mock
+    private ScoringEngineService scoringEngineService;
+
+    @Mock
+    private CloseableHttpClient soapHttpClient;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private TaskScheduler healthProbeScheduler;
+
+    private final MovableClock clock = new MovableClock(Instant.parse("2025-03-22T00:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DependencyHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        monitor = new DependencyHealthMonitor(scoringEngineService, soapHttpClient, dataSource, healthProbeScheduler,
+                meterRegistry, Duration.ofSeconds(30), Duration.ofMinutes(2), "https://test-url.com/service", 2, clock);
+    }
+
+    /**
+     * Test that every dependency is reported unknown until it has been probed
+     */
+    @Test
+    void reportsUnknownBeforeTheFirstProbe() {
+        assertEquals(DependencyStatus.Status.UNKNOWN, monitor.status(DependencyHealthMonitor.SCORING_ENGINE).status());
+        assertEquals(3, monitor.snapshot().size());
+        verifyNoInteractions(scoringEngineService, soapHttpClient, dataSource);
+    }
+
+    /**
+     * Test that reads are answered from the latest probe without calling the dependency again
+     */
+    @Test
+    void servesTheLatestProbeResult() {
+        when(scoringEngineService.testConnection()).thenReturn(true);
+
+        monitor.probeScoringEngine();
+        DependencyStatus first = monitor.status(DependencyHealthMonitor.SCORING_ENGINE);
+        DependencyStatus second = monitor.status(DependencyHealthMonitor.SCORING_ENGINE);
+
+        assertEquals(DependencyStatus.Status.UP, first.status());
+        assertEquals(first, second);
+        assertNotNull(first.checkedAt());
+        verify(scoringEngineService, times(1)).testConnection();
+        assertEquals(1.0, meterRegistry.get("dependency.up").tag("dependency", "scoringEngine").gauge().value());
+    }
+
+    /**
+     * Test that failed probes mark the dependency down with the reason
+     */
+    @Test
+    void reportsFailedProbesAsDown() throws Exception {
+        when(soapHttpClient.execute(any(ClassicHttpRequest.class), any(HttpClientResponseHandler.class)))
+                .thenAnswer(invocation -> 503);
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        monitor.probeCbs();
+        monitor.probeDatabase();
+
+        DependencyStatus cbs = monitor.status(DependencyHealthMonitor.CBS);
+        DependencyStatus database = monitor.status(DependencyHealthMonitor.DATABASE);
+        assertEquals(DependencyStatus.Status.DOWN, cbs.status());
+        assertEquals("CBS answered HTTP 503", cbs.detail());
+        assertEquals(DependencyStatus.Status.DOWN, database.status());
+        assertEquals("Connection refused", database.detail());
+    }
+
+    /**
+     * Test that a reachable database is reported up
+     */
+    @Test
+    void reportsValidDatabaseConnectionAsUp() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+
+        monitor.probeDatabase();
+
+        assertEquals(DependencyStatus.Status.UP, monitor.status(DependencyHealthMonitor.DATABASE).status());
+        verify(connection).close();
+    }
+
+    /**
+     * Test that a result older than stale-after no longer counts as up
+     */
+    @Test
+    void reportsStaleResultsAsDown() {
+        when(scoringEngineService.testConnection()).thenReturn(true);
+        monitor.probeScoringEngine();
+
+        clock.advance(Duration.ofMinutes(3));
+        DependencyStatus status = monitor.status(DependencyHealthMonitor.SCORING_ENGINE);
+
+        assertEquals(DependencyStatus.Status.DOWN, status.status());
+        assertTrue(status.detail().startsWith("No probe result"));
+    }
+
+    private static final class MovableClock extends Clock {
+        private Instant now;
+
+        private MovableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
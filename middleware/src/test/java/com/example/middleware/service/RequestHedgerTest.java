@@ -0,0 +1,127 @@
+package com.example.middleware.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+    private ThreadPoolTaskScheduler scheduler;
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        executor = Executors.newCachedThreadPool();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test that no request is hedged until enough latencies are known to tell what slow means
+     */
+    @Test
+    void doesNotHedgeWithoutEnoughSamples() {
+        RequestHedger hedger = hedger(10);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            calls.incrementAndGet();
+            sleep(100);
+            return "primary";
+        }).join();
+
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.hedge.requests").tag("outcome", "primary_only").counter().count());
+    }
+
+    /**
+     * Test that a straggler is hedged, the hedge's answer is used and the straggler is cancelled
+     */
+    @Test
+    void hedgesAStragglerAndCancelsIt() throws InterruptedException {
+        RequestHedger hedger = hedger(10);
+        warmUp(hedger);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        String result = hedger.call(() -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                }
+                return "primary";
+            }
+            return "hedge";
+        }).join();
+
+        assertEquals("hedge", result);
+        assertTrue(primaryCancelled.await(1, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("scoring.engine.hedge.requests").tag("outcome", "hedged").counter().count());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.hedge.wins").tag("winner", "hedge").counter().count());
+    }
+
+    /**
+     * Test that no hedge is sent once the hedge budget is spent
+     */
+    @Test
+    void doesNotHedgeWhenBudgetIsSpent() {
+        // Less than one hedge banked and nothing added per request
+        RequestHedger hedger = new RequestHedger(executor, scheduler, meterRegistry, true, 0.95, 20L, 10, 5,
+                0.0, 0.5, System::nanoTime);
+        warmUp(hedger);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            calls.incrementAndGet();
+            sleep(100);
+            return "primary";
+        }).join();
+
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.hedge.requests").tag("outcome", "budget_exhausted").counter().count());
+    }
+
+    private RequestHedger hedger(double budgetMax) {
+        return new RequestHedger(executor, scheduler, meterRegistry, true, 0.95, 20L, 10, 5, 0.1, budgetMax,
+                System::nanoTime);
+    }
+
+    /**
+     * Records enough fast answers for the threshold to settle at the 20 ms minimum
+     */
+    private static void warmUp(RequestHedger hedger) {
+        for (int i = 0; i < 5; i++) {
+            hedger.call(() -> "warm-up").join();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
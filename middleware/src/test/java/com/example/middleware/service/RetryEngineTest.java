@@ -0,0 +1,118 @@
+package com.example.middleware.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryEngineTest {
+
+    private ThreadPoolTaskScheduler scheduler;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Test that a failed attempt is retried until one succeeds
+     */
+    @Test
+    void retriesUntilSuccess() {
+        RetryEngine retryEngine = retryEngine(5, 5000L, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryEngine.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ResourceAccessException("Connection refused");
+            }
+            return "ok";
+        }).join();
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.get("scoring.engine.retries").tag("result", "scheduled").counter().count());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.calls").tag("outcome", "success").counter().count());
+    }
+
+    /**
+     * Test that a client error other than 408 or 429 is not retried
+     */
+    @Test
+    void doesNotRetryClientErrors() {
+        RetryEngine retryEngine = retryEngine(5, 5000L, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = retryEngine.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        });
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(HttpClientErrorException.class, exception.getCause());
+        assertEquals(1, attempts.get());
+    }
+
+    /**
+     * Test that retries stop once the shared retry budget is spent
+     */
+    @Test
+    void stopsRetryingWhenBudgetIsSpent() {
+        // A budget of one retry, topped up by a tenth of a retry per call
+        RetryEngine retryEngine = retryEngine(5, 5000L, 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = retryEngine.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection refused");
+        });
+
+        assertThrows(CompletionException.class, result::join);
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, meterRegistry.get("scoring.engine.retries").tag("result", "budget_exhausted").counter().count());
+    }
+
+    /**
+     * Test that no retry is scheduled past the call's deadline
+     */
+    @Test
+    void givesUpAtTheDeadline() {
+        // Backoff of 10 ms doubling per attempt, against a 25 ms deadline
+        RetryEngine retryEngine = retryEngine(10, 25L, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = retryEngine.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection refused");
+        });
+
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertTrue(exception.getCause() instanceof ResourceAccessException || exception.getCause() instanceof TimeoutException);
+        assertTrue(attempts.get() < 10);
+        assertEquals(1.0, meterRegistry.get("scoring.engine.calls").tag("outcome", "failure").counter().count());
+    }
+
+    private RetryEngine retryEngine(int maxAttempts, long deadlineMs, double budgetMax) {
+        return new RetryEngine(Runnable::run, scheduler, meterRegistry, maxAttempts, 10L, 1000L, deadlineMs,
+                0.1, budgetMax, System::nanoTime, () -> 1.0);
+    }
+}
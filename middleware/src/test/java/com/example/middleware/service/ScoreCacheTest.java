@@ -0,0 +1,130 @@
+package com.example.middleware.service;
+
+import com.example.middleware.dto.ScoreResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger engineCalls = new AtomicInteger();
+
+    private ScoreCache scoreCache;
+
+    @BeforeEach
+    void setUp() {
+        scoreCache = new ScoreCache(meterRegistry, Duration.ofMinutes(5), Duration.ofHours(24), Duration.ofSeconds(30),
+                100, now::get);
+    }
+
+    /**
+     * Test that a fresh score is served without calling the engine
+     */
+    @Test
+    void freshScoreIsServedFromCache() {
+        scoreCache.read("234774784", () -> engine(score(750))).join();
+
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        ScoreResponse result = scoreCache.read("234774784", () -> engine(score(800))).join();
+
+        assertEquals(750, result.score());
+        assertNull(result.stale());
+        assertEquals(1, engineCalls.get());
+    }
+
+    /**
+     * Test that an aged score is served at once, marked stale, and refreshed in the background
+     */
+    @Test
+    void agedScoreIsServedStaleAndRevalidated() {
+        scoreCache.read("234774784", () -> engine(score(750))).join();
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        CompletableFuture<ScoreResponse> refresh = new CompletableFuture<>();
+
+        ScoreResponse stale = scoreCache.read("234774784", () -> {
+            engineCalls.incrementAndGet();
+            return refresh;
+        }).join();
+        refresh.complete(score(800));
+        ScoreResponse refreshed = scoreCache.read("234774784", () -> engine(score(900))).join();
+
+        assertEquals(750, stale.score());
+        assertEquals(true, stale.stale());
+        assertEquals(600L, stale.scoreAgeSeconds());
+        assertEquals(800, refreshed.score());
+        assertEquals(2, engineCalls.get());
+    }
+
+    /**
+     * Test that a failed refresh keeps serving the last real score
+     */
+    @Test
+    void failedRefreshKeepsServingLastRealScore() {
+        scoreCache.read("234774784", () -> engine(score(750))).join();
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        scoreCache.read("234774784", () -> CompletableFuture.failedFuture(new ResourceAccessException("Connection refused"))).join();
+        ScoreResponse result = scoreCache.read("234774784", () -> engine(score(800))).join();
+
+        assertEquals(750, result.score());
+        assertEquals(true, result.stale());
+        assertEquals(1.0, meterRegistry.get("score.cache.revalidations").tag("outcome", "failure").counter().count());
+    }
+
+    /**
+     * Test that a failure for an unknown customer is cached briefly
+     */
+    @Test
+    void failureIsCachedBriefly() {
+        ScoreResponse first = scoreCache.read("234774784",
+                () -> CompletableFuture.failedFuture(new ResourceAccessException("Connection refused"))).join();
+        ScoreResponse cached = scoreCache.read("234774784", () -> engine(score(750))).join();
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        ScoreResponse afterNegativeTtl = scoreCache.read("234774784", () -> engine(score(750))).join();
+
+        assertEquals(true, first.isFallback());
+        assertNull(first.score());
+        assertEquals(true, cached.isFallback());
+        assertEquals(750, afterNegativeTtl.score());
+        assertEquals(1, engineCalls.get());
+        assertEquals(1.0, meterRegistry.get("score.cache.reads").tag("result", "negative").counter().count());
+    }
+
+    /**
+     * Test that concurrent misses for one customer share one engine call
+     */
+    @Test
+    void concurrentMissesShareOneCall() {
+        CompletableFuture<ScoreResponse> call = new CompletableFuture<>();
+
+        CompletableFuture<ScoreResponse> first = scoreCache.read("234774784", () -> {
+            engineCalls.incrementAndGet();
+            return call;
+        });
+        CompletableFuture<ScoreResponse> second = scoreCache.read("234774784", () -> engine(score(800)));
+        call.complete(score(750));
+
+        assertEquals(750, first.join().score());
+        assertEquals(750, second.join().score());
+        assertEquals(1, engineCalls.get());
+    }
+
+    private CompletableFuture<ScoreResponse> engine(ScoreResponse score) {
+        engineCalls.incrementAndGet();
+        return CompletableFuture.completedFuture(score);
+    }
+
+    private static ScoreResponse score(int score) {
+        return ScoreResponse.of("234774784", score, 2000.0, "2025-03-22");
+    }
+}
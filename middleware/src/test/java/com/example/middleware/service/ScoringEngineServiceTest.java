@@ -1,23 +1,27 @@
 package com.example.middleware.service;
 
+import com.example.middleware.dto.ClientRegistrationRequest;
+import com.example.middleware.dto.ClientRegistrationResponse;
+import com.example.middleware.dto.ScoreResponse;
+import com.example.middleware.repository.ClientRegistrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,22 +34,42 @@ class ScoringEngineServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private ClientRegistrationRepository clientRegistrationRepository;
+
     private ScoringEngineService scoringEngineService;
-    
-    private final ParameterizedTypeReference<Map<String, Object>> mapTypeReference = 
-            new ParameterizedTypeReference<>() {};
+
+    private ThreadPoolTaskScheduler retryScheduler;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         
+        // Attempts run on the calling thread; retries wait on a real scheduler with short delays
+        retryScheduler = new ThreadPoolTaskScheduler();
+        retryScheduler.initialize();
+        RetryEngine retryEngine = new RetryEngine(Runnable::run, retryScheduler, new SimpleMeterRegistry(),
+                3, 10L, 100L, 5000L, 0.2, 10, System::nanoTime, () -> 1.0);
+        ScoreCache scoreCache = new ScoreCache(new SimpleMeterRegistry(), Duration.ofMinutes(5), Duration.ofHours(24),
+                Duration.ofSeconds(30), 100);
+        RequestHedger requestHedger = new RequestHedger(Runnable::run, retryScheduler, new SimpleMeterRegistry(),
+                false, 0.95, 20L, 100, 10, 0.1, 10, System::nanoTime);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("scoring-engine", new SimpleMeterRegistry(),
+                10, 2, 20, 0.9, 3000L, 50, 50L);
+        ClientRegistrationCache clientRegistrationCache = new ClientRegistrationCache(clientRegistrationRepository,
+                new SimpleMeterRegistry(), "fingerprint-key");
+        scoringEngineService = new ScoringEngineService(restTemplate, retryEngine, requestHedger, limiter, scoreCache,
+                clientRegistrationCache);
+        
         // Set up properties
         ReflectionTestUtils.setField(scoringEngineService, "scoringEngineUrl", "https://test-url.com/api");
         ReflectionTestUtils.setField(scoringEngineService, "username", "admin");
         ReflectionTestUtils.setField(scoringEngineService, "password", "pwd123");
-        ReflectionTestUtils.setField(scoringEngineService, "maxRetryAttempts", 3);
-        ReflectionTestUtils.setField(scoringEngineService, "retryDelayMs", 10L); // Short delay for tests
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryScheduler.shutdown();
     }
 
     /**
@@ -55,36 +79,33 @@ class ScoringEngineServiceTest {
     @ValueSource(strings = {"234774784", "318411216", "340397370", "366585630", "397178638"})
     void getCustomerScoreWithMultipleCustomerIds(String customerId) {
         // Create a mock response
-        Map<String, Object> responseBody = new HashMap<>();
-        responseBody.put("customerNumber", customerId);
-        responseBody.put("score", 750);
-        responseBody.put("scoreDate", "2025-03-22");
+        ScoreResponse responseBody = ScoreResponse.of(customerId, 750, 2000.0, "2025-03-22");
         
-        ResponseEntity<Map<String, Object>> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
+        ResponseEntity<ScoreResponse> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
         
         // Mock the RestTemplate to return our response
         when(restTemplate.exchange(
                 anyString(),
                 eq(HttpMethod.GET),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ScoreResponse.class)
         )).thenReturn(responseEntity);
 
         // Call the service method
-        Map<String, Object> result = scoringEngineService.getCustomerScore(customerId);
+        ScoreResponse result = scoringEngineService.getCustomerScore(customerId).join();
 
         // Verify the result
         assertNotNull(result);
-        assertEquals(customerId, result.get("customerNumber"));
-        assertEquals(750, result.get("score"));
-        assertEquals("2025-03-22", result.get("scoreDate"));
+        assertEquals(customerId, result.customerNumber());
+        assertEquals(750, result.score());
+        assertEquals("2025-03-22", result.scoreDate());
         
         // Verify the RestTemplate was called once (no retries needed)
         verify(restTemplate, times(1)).exchange(
                 anyString(),
                 eq(HttpMethod.GET),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ScoreResponse.class)
         );
     }
 
@@ -98,36 +119,31 @@ class ScoringEngineServiceTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ScoreResponse.class)
         ))
         .thenThrow(new RestClientException("Test exception"))
-        .thenAnswer(invocation -> {
-            Map<String, Object> responseBody = new HashMap<>();
-            responseBody.put("customerNumber", "234774784");
-            responseBody.put("score", 750);
-            responseBody.put("scoreDate", "2025-03-22");
-            return new ResponseEntity<>(responseBody, HttpStatus.OK);
-        });
+        .thenAnswer(invocation -> new ResponseEntity<>(
+                ScoreResponse.of("234774784", 750, 2000.0, "2025-03-22"), HttpStatus.OK));
 
         // Call the service method
-        Map<String, Object> result = scoringEngineService.getCustomerScore("234774784");
+        ScoreResponse result = scoringEngineService.getCustomerScore("234774784").join();
 
         // Verify the result
         assertNotNull(result);
-        assertEquals("234774784", result.get("customerNumber"));
-        assertEquals(750, result.get("score"));
+        assertEquals("234774784", result.customerNumber());
+        assertEquals(750, result.score());
         
         // Verify the RestTemplate was called twice (one failure, one success)
         verify(restTemplate, times(2)).exchange(
                 anyString(),
                 eq(HttpMethod.GET),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ScoreResponse.class)
         );
     }
 
     /**
-     * Test that the service returns a fallback response after all retry attempts fail
+     * Test that the service returns an unavailable response, not a made-up score, after all retry attempts fail
      */
     @Test
     void getCustomerScoreWithAllRetriesFailing() {
@@ -136,23 +152,24 @@ class ScoringEngineServiceTest {
                 anyString(),
                 eq(HttpMethod.GET),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ScoreResponse.class)
         )).thenThrow(new RestClientException("Test exception"));
 
         // Call the service method
-        Map<String, Object> result = scoringEngineService.getCustomerScore("234774784");
+        ScoreResponse result = scoringEngineService.getCustomerScore("234774784").join();
 
         // Verify the result is a fallback response
         assertNotNull(result);
-        assertEquals("234774784", result.get("customerNumber"));
-        assertEquals(true, result.get("isFallback"));
+        assertEquals("234774784", result.customerNumber());
+        assertEquals(true, result.isFallback());
+        assertNull(result.score());
         
-        // Verify the RestTemplate was called maxRetryAttempts times (3 in this case)
+        // Verify the RestTemplate was called max-attempts times (3 in this case)
         verify(restTemplate, times(3)).exchange(
                 anyString(),
                 eq(HttpMethod.GET),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ScoreResponse.class)
         );
     }
 
@@ -162,33 +179,29 @@ class ScoringEngineServiceTest {
     @Test
     void registerClientTest() {
         // Create client data
-        Map<String, Object> clientData = new HashMap<>();
-        clientData.put("clientId", "234774784");
-        clientData.put("firstName", "John");
-        clientData.put("lastName", "Doe");
+        ClientRegistrationRequest clientData = new ClientRegistrationRequest("234774784", "John Doe", "john.doe@example.com",
+                null, null, null);
         
         // Create a mock response
-        Map<String, Object> responseBody = new HashMap<>();
-        responseBody.put("success", true);
-        responseBody.put("clientId", "234774784");
+        ClientRegistrationResponse responseBody = new ClientRegistrationResponse(true, "234774784", null, null, null);
         
-        ResponseEntity<Map<String, Object>> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
+        ResponseEntity<ClientRegistrationResponse> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
         
         // Mock the RestTemplate
         when(restTemplate.exchange(
                 anyString(),
                 eq(HttpMethod.POST),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ClientRegistrationResponse.class)
         )).thenReturn(responseEntity);
 
         // Call the service method
-        Map<String, Object> result = scoringEngineService.registerClient(clientData);
+        ClientRegistrationResponse result = scoringEngineService.registerClient(clientData).join();
 
         // Verify the result
         assertNotNull(result);
-        assertEquals(true, result.get("success"));
-        assertEquals("234774784", result.get("clientId"));
+        assertEquals(true, result.success());
+        assertEquals("234774784", result.customerNumber());
     }
 
     /**
@@ -198,32 +211,56 @@ class ScoringEngineServiceTest {
     @ValueSource(strings = {"234774784", "318411216", "340397370", "366585630", "397178638"})
     void registerClientWithMultipleCustomerIds(String clientId) {
         // Create client data
-        Map<String, Object> clientData = new HashMap<>();
-        clientData.put("clientId", clientId);
-        clientData.put("firstName", "John");
-        clientData.put("lastName", "Doe");
+        ClientRegistrationRequest clientData = new ClientRegistrationRequest(clientId, "John Doe", "john.doe@example.com",
+                null, null, null);
         
         // Create a mock response
-        Map<String, Object> responseBody = new HashMap<>();
-        responseBody.put("success", true);
-        responseBody.put("clientId", clientId);
+        ClientRegistrationResponse responseBody = new ClientRegistrationResponse(true, clientId, null, null, null);
         
-        ResponseEntity<Map<String, Object>> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
+        ResponseEntity<ClientRegistrationResponse> responseEntity = new ResponseEntity<>(responseBody, HttpStatus.OK);
         
         // Mock the RestTemplate
         when(restTemplate.exchange(
                 anyString(),
                 eq(HttpMethod.POST),
                 any(HttpEntity.class),
-                eq(mapTypeReference)
+                eq(ClientRegistrationResponse.class)
         )).thenReturn(responseEntity);
 
         // Call the service method
-        Map<String, Object> result = scoringEngineService.registerClient(clientData);
+        ClientRegistrationResponse result = scoringEngineService.registerClient(clientData).join();
 
         // Verify the result
         assertNotNull(result);
-        assertEquals(true, result.get("success"));
-        assertEquals(clientId, result.get("clientId"));
+        assertEquals(true, result.success());
+        assertEquals(clientId, result.customerNumber());
+    }
+
+    /**
+     * Test that registering the same client again with unchanged details does not call the engine
+     */
+    @Test
+    void registerClientTwiceCallsEngineOnce() {
+        ClientRegistrationRequest clientData = new ClientRegistrationRequest("234774784", "John Doe", "john.doe@example.com",
+                null, null, null);
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                eq(ClientRegistrationResponse.class)
+        )).thenReturn(new ResponseEntity<>(new ClientRegistrationResponse(true, "234774784", null, null, null), HttpStatus.OK));
+
+        scoringEngineService.registerClient(clientData).join();
+        ClientRegistrationResponse second = scoringEngineService.registerClient(clientData).join();
+        scoringEngineService.registerClient(clientData, true).join();
+
+        assertEquals(true, second.success());
+        // Once for the first registration and once for the forced one
+        verify(restTemplate, times(2)).exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                eq(ClientRegistrationResponse.class)
+        );
     }
 }
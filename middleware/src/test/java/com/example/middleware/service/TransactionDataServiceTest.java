@@ -1,18 +1,17 @@
 package com.example.middleware.service;
 
+import com.example.middleware.dto.TransactionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.soap.client.core.SoapActionCallback;
 
-import java.util.Map;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -23,12 +22,13 @@ class TransactionDataServiceTest {
     @Mock
     private WebServiceTemplate webServiceTemplate;
 
-    @InjectMocks
     private TransactionDataService transactionDataService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        transactionDataService = new TransactionDataService(webServiceTemplate,
+                new AdaptiveConcurrencyLimiter("cbs", new SimpleMeterRegistry(), 10, 2, 20, 0.9, 5000L, 50, 50L));
         
         // Set up properties
         ReflectionTestUtils.setField(transactionDataService, "username", "admin");
@@ -50,13 +50,13 @@ class TransactionDataServiceTest {
         )).thenThrow(new RuntimeException("Test exception"));
 
         // Call the service method
-        Map<String, Object> result = transactionDataService.getTransactionData(customerId);
+        TransactionSummary result = transactionDataService.getTransactionData(customerId);
 
         // Verify the fallback response
         assertNotNull(result);
-        assertEquals(customerId, result.get("customerNumber"));
-        assertEquals(true, result.get("isFallback"));
-        assertNotNull(result.get("transactions"));
+        assertEquals(customerId, result.customerNumber());
+        assertEquals(true, result.isFallback());
+        assertNotNull(result.transactions());
     }
 
     /**
@@ -81,12 +81,12 @@ class TransactionDataServiceTest {
         )).thenReturn(mockResponse);
 
         // Call the service method
-        Map<String, Object> result = transactionDataService.getTransactionData("234774784");
+        TransactionSummary result = transactionDataService.getTransactionData("234774784");
 
         // Verify the response
         assertNotNull(result);
-        assertEquals("234774784", result.get("customerNumber"));
-        assertFalse(result.containsKey("isFallback"));
-        assertNotNull(result.get("transactions"));
+        assertEquals("234774784", result.customerNumber());
+        assertNull(result.isFallback());
+        assertNotNull(result.transactions());
     }
 }